@@ -0,0 +1,62 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.benchmark.BenchmarkData;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.util.ArgumentListBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembly of the complete Ranorex command line by the build step, including the quoting done for cmd.exe.
+ * Placed in the package of the build step to call the package-private assembly of a build.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+public class CommandLineBenchmark {
+    //Up to 500 parameters the command line fits into the 32767 characters Windows accepts
+    @Param ({"10", "100", "500"})
+    public int parameters;
+
+    private String globalParameters;
+    private String commandLineArguments;
+    private RanorexRunnerBuilder builder;
+    private RanorexRunContext context;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        globalParameters = BenchmarkData.globalParameters(parameters);
+        commandLineArguments = BenchmarkData.commandLineArguments(20);
+        builder = createBuilder();
+        FilePath workspace = new FilePath(new File("C:\\Users\\jenkins\\.jenkins\\workspace\\Regression Suite"));
+        //The messages of every invocation, like the cmd.exe fallback, are discarded instead of piling up in memory
+        context = new RanorexRunContext(builder, Collections.singletonList("Nightly"), workspace, TaskListener.NULL);
+    }
+
+    @Benchmark
+    public ArgumentListBuilder buildArgumentsWithCompiledPlan() throws IOException, InterruptedException {
+        return builder.buildArguments(context, "Nightly", null, 0);
+    }
+
+    @Benchmark
+    public ArgumentListBuilder buildArgumentsWithNewBuilder() throws IOException, InterruptedException {
+        return createBuilder().buildArguments(context, "Nightly", null, 0);
+    }
+
+    private RanorexRunnerBuilder createBuilder() {
+        return new RanorexRunnerBuilder(".\\bin\\Debug\\Regression Suite.rxtst", "Nightly", ".\\Reports", "", "rxlog", true, true,
+                "", "", false, "", "", "", "", globalParameters, commandLineArguments);
+    }
+}
@@ -0,0 +1,78 @@
+package com.ranorex.jenkinsranorexplugin.benchmark;
+
+import com.ranorex.jenkinsranorexplugin.util.ArgumentParser;
+import com.ranorex.jenkinsranorexplugin.util.ArgumentTokenizer;
+import com.ranorex.jenkinsranorexplugin.util.CmdArgument;
+import com.ranorex.jenkinsranorexplugin.util.RanorexCommandPlan;
+import com.ranorex.jenkinsranorexplugin.util.RanorexParameter;
+import com.ranorex.jenkinsranorexplugin.util.StringUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of global parameters and command line arguments as entered in the job configuration
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+public class ArgumentParsingBenchmark {
+    @Param ({"10", "1000", "10000"})
+    public int entries;
+
+    private String globalParameters;
+    private String commandLineArguments;
+
+    @Setup
+    public void setUp() {
+        globalParameters = BenchmarkData.globalParameters(entries);
+        commandLineArguments = BenchmarkData.commandLineArguments(entries);
+    }
+
+    @Benchmark
+    public List<String> splitBy() {
+        return StringUtil.splitBy(globalParameters, BenchmarkData.ARGUMENT_SEPARATOR);
+    }
+
+    @Benchmark
+    public void tokenizeAndParseParameters(Blackhole blackhole) {
+        ArgumentTokenizer tokenizer = new ArgumentTokenizer(globalParameters, BenchmarkData.ARGUMENT_SEPARATOR);
+        ArgumentParser parser = new ArgumentParser();
+        while (tokenizer.next()) {
+            blackhole.consume(RanorexParameter.parse(parser, globalParameters, tokenizer.getStart(), tokenizer.getEnd()));
+        }
+    }
+
+    @Benchmark
+    public void constructRanorexParameters(Blackhole blackhole) {
+        for (String param : StringUtil.splitBy(globalParameters, BenchmarkData.ARGUMENT_SEPARATOR)) {
+            if (RanorexParameter.isValid(param)) {
+                blackhole.consume(new RanorexParameter(param));
+            }
+        }
+    }
+
+    @Benchmark
+    public void constructCmdArguments(Blackhole blackhole) {
+        ArgumentParser parser = new ArgumentParser();
+        for (String argument : StringUtil.splitBy(commandLineArguments, BenchmarkData.ARGUMENT_SEPARATOR)) {
+            if (CmdArgument.parse(parser, argument, 0, argument.length())) {
+                blackhole.consume(new CmdArgument(argument));
+            }
+        }
+    }
+
+    @Benchmark
+    public RanorexCommandPlan compileCommandPlan() {
+        return new RanorexCommandPlan(globalParameters, commandLineArguments, BenchmarkData.ARGUMENT_SEPARATOR);
+    }
+}
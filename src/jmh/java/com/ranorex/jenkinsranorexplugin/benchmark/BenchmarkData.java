@@ -0,0 +1,61 @@
+package com.ranorex.jenkinsranorexplugin.benchmark;
+
+/**
+ * Generates job configurations as they are produced from data files, used by all benchmarks
+ */
+public final class BenchmarkData {
+    public static final String ARGUMENT_SEPARATOR = "\t\r\n;";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @param count Number of parameters
+     * @return Global parameters, one per line, mixing all supported notations
+     */
+    public static String globalParameters(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+                case 0:
+                    sb.append("Url").append(i).append("=http://testserver:8080/app/").append(i);
+                    break;
+                case 1:
+                    sb.append("/pa:User").append(i).append(" = user").append(i).append("@example.com");
+                    break;
+                case 2:
+                    sb.append("/param:Path").append(i).append("=C:\\Data\\Input ").append(i).append(".xlsx");
+                    break;
+                default:
+                    //Invalid entry, ignored by the plugin
+                    sb.append("/zr");
+                    break;
+            }
+            sb.append(i % 2 == 0 ? "\n" : ";");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param count Number of arguments
+     * @return Command line arguments, one per line, including arguments which are set by the plugin itself
+     */
+    public static String commandLineArguments(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0:
+                    sb.append("/tcpa:TestCase").append(i).append(":Param=Value ").append(i);
+                    break;
+                case 1:
+                    sb.append("/rul:Label").append(i);
+                    break;
+                default:
+                    sb.append("/junit");
+                    break;
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package com.ranorex.jenkinsranorexplugin.benchmark;
+
+import com.ranorex.jenkinsranorexplugin.util.FileUtil;
+import hudson.FilePath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path handling which is done for every build
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+public class FileUtilBenchmark {
+    private final FilePath workspace = new FilePath(new File("C:\\Users\\jenkins\\.jenkins\\workspace\\Regression Suite"));
+    private final String relativeTestSuite = ".\\Solution\\Project\\bin\\Debug\\Regression Suite.rxtst";
+    private final String absoluteTestSuite = "D:\\Tests\\Solution\\Project\\bin\\Debug\\Regression Suite.rxtst";
+
+    @Benchmark
+    public String combinePath() {
+        return FileUtil.combinePath("C:\\Users\\jenkins\\.jenkins\\workspace\\Regression Suite\\", ".\\Reports\\Nightly/Run");
+    }
+
+    @Benchmark
+    public FilePath getRanorexWorkingDirectoryRelative() {
+        return FileUtil.getRanorexWorkingDirectory(workspace, relativeTestSuite);
+    }
+
+    @Benchmark
+    public FilePath getRanorexWorkingDirectoryAbsolute() {
+        return FileUtil.getRanorexWorkingDirectory(workspace, absoluteTestSuite);
+    }
+
+    @Benchmark
+    public String getExecutableFromTestSuite() {
+        return FileUtil.getExecutableFromTestSuite(relativeTestSuite);
+    }
+}
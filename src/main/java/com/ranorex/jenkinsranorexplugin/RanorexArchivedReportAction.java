@@ -0,0 +1,111 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.ReportManifest;
+import hudson.model.DirectoryBrowserSupport;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows the archived Ranorex report of a build. Every file is served from the blob store of the job, using
+ * the same relative paths as in the report directory, so the report and its screenshots open as before.
+ */
+public class RanorexArchivedReportAction implements RunAction2 {
+    private transient Run<?, ?> run;
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    /**
+     * @return The archived files of the build
+     * @throws IOException If the manifest could not be read
+     */
+    public ReportManifest getManifest() throws IOException {
+        return ReportManifest.read(RanorexReportArchive.getManifestFile(run));
+    }
+
+    /**
+     * @return The files directly in the report directories, like the reports; screenshots are kept in subdirectories
+     * @throws IOException If the manifest could not be read
+     */
+    public List<ReportManifest.Entry> getReports() throws IOException {
+        List<ReportManifest.Entry> reports = new ArrayList<>();
+        for (ReportManifest.Entry entry : getManifest().getEntries()) {
+            String path = entry.getPath();
+            if (path.startsWith(RanorexReportArchive.ZIPPED_REPORT_PREFIX)) {
+                path = path.substring(RanorexReportArchive.ZIPPED_REPORT_PREFIX.length());
+            }
+            if (path.indexOf('/') < 0) {
+                reports.add(entry);
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * Serves an archived file by its path in the report directory. The files were written by the test run, so
+     * they get the same Content-Security-Policy as archived artifacts.
+     *
+     * @param req The request
+     * @param rsp The response
+     * @throws IOException      If the file could not be read
+     * @throws ServletException If the file could not be sent
+     */
+    public void doDynamic(StaplerRequest req, StaplerResponse rsp) throws IOException, ServletException {
+        String path = req.getRestOfPath();
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        ReportManifest.Entry entry = getManifest().get(path);
+        File blob = entry == null ? null : RanorexReportArchive.getBlobStore(run.getParent()).getBlob(entry.getHash());
+        if (blob == null || ! blob.isFile()) {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String csp = DirectoryBrowserSupport.CSP;
+        if (! csp.trim().isEmpty()) {
+            rsp.setHeader("Content-Security-Policy", csp);
+            rsp.setHeader("X-WebKit-CSP", csp);
+            rsp.setHeader("X-Content-Security-Policy", csp);
+        }
+        try (InputStream in = new FileInputStream(blob)) {
+            rsp.serveFile(req, in, blob.lastModified(), entry.getSize(), path.substring(path.lastIndexOf('/') + 1));
+        }
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "package.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Ranorex Report";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ranorexReport";
+    }
+}
@@ -0,0 +1,53 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import hudson.model.Action;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers how long each run configuration of a build took, the durations are added to the trend
+ * of the job
+ */
+public class RanorexDurationAction implements Action {
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+
+    /**
+     * Records the duration of a finished run configuration
+     *
+     * @param runConfiguration The name of the run configuration
+     * @param duration         The duration in milliseconds
+     */
+    public synchronized void addDuration(String runConfiguration, long duration) {
+        durations.put(runConfiguration, duration);
+    }
+
+    /**
+     * @param runConfiguration The name of the run configuration
+     * @return The duration in milliseconds or -1 if the run configuration was not executed
+     */
+    public synchronized long getDuration(String runConfiguration) {
+        Long duration = durations.get(runConfiguration);
+        return duration != null ? duration : - 1;
+    }
+
+    public synchronized Map<String, Long> getDurations() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(durations));
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Ranorex run durations";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks everything a Ranorex run needs on the agent in a single remote call, before Ranorex is started:
+ * the test exe file, the working directory, the report directories, the free disk space and report files
+ * still locked by another process. All problems are returned at once, so they can be fixed together.
+ */
+final class RanorexPreflight extends MasterToSlaveFileCallable<ArrayList<String>> {
+    private static final long serialVersionUID = 1L;
+    static final long MIN_FREE_SPACE = 256L * 1024 * 1024;
+
+    private final String workingDirectory;
+    private final String executablePath;
+    private final ArrayList<String> reportDirectories;
+    private final ArrayList<String> reportFiles;
+    private final long minFreeSpace;
+
+    /**
+     * @param workingDirectory  The directory containing the test suite
+     * @param executablePath    The full path of the test exe file
+     * @param reportDirectories The directories Ranorex writes its reports to
+     * @param reportFiles       The report files Ranorex will overwrite, files with placeholders are left out
+     * @param minFreeSpace      The free space in bytes required in every report directory
+     */
+    RanorexPreflight(String workingDirectory, String executablePath, List<String> reportDirectories, List<String> reportFiles, long minFreeSpace) {
+        this.workingDirectory = workingDirectory;
+        this.executablePath = executablePath;
+        this.reportDirectories = new ArrayList<>(reportDirectories);
+        this.reportFiles = new ArrayList<>(reportFiles);
+        this.minFreeSpace = minFreeSpace;
+    }
+
+    @Override
+    public ArrayList<String> invoke(File f, VirtualChannel channel) {
+        ArrayList<String> problems = new ArrayList<>();
+        if (! new File(workingDirectory).isDirectory()) {
+            problems.add("The directory of the test suite '" + workingDirectory + "' does not exist");
+        } else if (! new File(executablePath).isFile()) {
+            problems.add("The test exe file '" + executablePath + "' does not exist, was the test suite compiled?");
+        }
+
+        for (String reportDirectory : reportDirectories) {
+            File directory = new File(reportDirectory);
+            if (! directory.isDirectory() && ! directory.mkdirs()) {
+                problems.add("The report directory '" + reportDirectory + "' could not be created");
+                continue;
+            }
+            if (! isWritable(directory)) {
+                problems.add("The report directory '" + reportDirectory + "' is not writable");
+                continue;
+            }
+            long freeSpace = directory.getUsableSpace();
+            if (freeSpace < minFreeSpace) {
+                problems.add("Only " + freeSpace / (1024 * 1024) + " MB are free for the report directory '" + reportDirectory
+                        + "', at least " + minFreeSpace / (1024 * 1024) + " MB are required");
+            }
+        }
+
+        for (String reportFile : reportFiles) {
+            File file = new File(reportFile);
+            if (file.isFile() && ! isUnlocked(file)) {
+                problems.add("The report file '" + reportFile + "' is locked, is another Ranorex run still writing it?");
+            }
+        }
+        return problems;
+    }
+
+    private static boolean isWritable(File directory) {
+        try {
+            File probe = File.createTempFile("ranorex", ".tmp", directory);
+            return probe.delete();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isUnlocked(File file) {
+        //Windows does not allow to open a file for writing while another process writes it
+        try (RandomAccessFile ignored = new RandomAccessFile(file, "rw")) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import hudson.Util;
+import hudson.model.Action;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tracks the test cases of a build while Ranorex is still running. The entries are taken from the
+ * console output, so the progress and the duration of each test case is visible before the report exists.
+ */
+public class RanorexProgressAction implements Action {
+    private final List<TestCaseProgress> testCases = new ArrayList<>();
+    private boolean running;
+
+    /**
+     * Records the start of a test case
+     *
+     * @param runConfiguration The run configuration which is executed or null
+     * @param testCase         The name of the test case
+     * @param timestamp        The time the start was reported in milliseconds
+     */
+    public synchronized void testCaseStarted(String runConfiguration, String testCase, long timestamp) {
+        running = true;
+        testCases.add(new TestCaseProgress(runConfiguration, testCase, timestamp));
+    }
+
+    /**
+     * Records the result of the last started test case with the given name
+     *
+     * @param runConfiguration The run configuration which is executed or null
+     * @param testCase         The name of the test case
+     * @param status           The status reported by Ranorex
+     * @param timestamp        The time the result was reported in milliseconds
+     */
+    public synchronized void testCaseCompleted(String runConfiguration, String testCase, String status, long timestamp) {
+        for (int i = testCases.size() - 1; i >= 0; i--) {
+            TestCaseProgress progress = testCases.get(i);
+            if (progress.isRunning() && progress.getName().equals(testCase)) {
+                progress.complete(status, timestamp);
+                return;
+            }
+        }
+        //The start marker was missed, keep the result anyway
+        TestCaseProgress progress = new TestCaseProgress(runConfiguration, testCase, timestamp);
+        progress.complete(status, timestamp);
+        testCases.add(progress);
+    }
+
+    /**
+     * Marks all test cases which did not report a result as aborted, called when the Ranorex process ended
+     *
+     * @param timestamp The time the process ended in milliseconds
+     */
+    public synchronized void finish(long timestamp) {
+        running = false;
+        for (TestCaseProgress progress : testCases) {
+            if (progress.isRunning()) {
+                progress.complete(TestCaseProgress.STATUS_ABORTED, timestamp);
+            }
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return A snapshot of all test cases in the order they were started
+     */
+    public synchronized List<TestCaseProgress> getTestCases() {
+        List<TestCaseProgress> snapshot = new ArrayList<>(testCases.size());
+        for (TestCaseProgress progress : testCases) {
+            snapshot.add(progress.copy());
+        }
+        return Collections.unmodifiableList(snapshot);
+    }
+
+    public synchronized int getCompletedCount() {
+        int count = 0;
+        for (TestCaseProgress progress : testCases) {
+            if (! progress.isRunning()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "clipboard.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Ranorex Progress";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ranorexProgress";
+    }
+
+    /**
+     * A single test case execution as reported in the console output
+     */
+    public static final class TestCaseProgress {
+        static final String STATUS_ABORTED = "Aborted";
+
+        private final String runConfiguration;
+        private final String name;
+        private final long start;
+        private String status;
+        private long end;
+
+        TestCaseProgress(String runConfiguration, String name, long start) {
+            this.runConfiguration = runConfiguration;
+            this.name = name;
+            this.start = start;
+        }
+
+        private void complete(String status, long end) {
+            this.status = status;
+            this.end = end;
+        }
+
+        private TestCaseProgress copy() {
+            TestCaseProgress copy = new TestCaseProgress(runConfiguration, name, start);
+            copy.complete(status, end);
+            return copy;
+        }
+
+        public String getRunConfiguration() {
+            return runConfiguration;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The reported status or null while the test case is running
+         */
+        public String getStatus() {
+            return status;
+        }
+
+        public boolean isRunning() {
+            return status == null;
+        }
+
+        /**
+         * @return The duration in milliseconds, for running test cases the time elapsed so far
+         */
+        public long getDuration() {
+            return (isRunning() ? System.currentTimeMillis() : end) - start;
+        }
+
+        public String getDurationString() {
+            return Util.getTimeSpanString(getDuration());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.ExecutionWatchdog;
+import com.ranorex.jenkinsranorexplugin.util.FailFastPolicy;
+import com.ranorex.jenkinsranorexplugin.util.TestCaseOutputParser;
+import hudson.console.LineTransformationOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Passes the console output of the Ranorex process through unchanged and reports the
+ * test case markers of every complete line to a {@link RanorexProgressAction} and a {@link FailFastPolicy}.
+ * Every line counts as activity for the {@link ExecutionWatchdog}.
+ */
+class RanorexProgressOutputStream extends LineTransformationOutputStream {
+    private final OutputStream out;
+    private final Charset charset;
+    private final RanorexProgressAction progress;
+    private final String runConfiguration;
+    private final FailFastPolicy failFast;
+    private final ExecutionWatchdog watchdog;
+    private final TestCaseOutputParser parser = new TestCaseOutputParser();
+
+    /**
+     * @param out              The build log
+     * @param charset          The charset of the process output
+     * @param progress         Receives the test case events
+     * @param runConfiguration The run configuration which is executed or null
+     * @param failFast         Receives the result of every completed test case
+     * @param watchdog         Receives the time of every line
+     */
+    RanorexProgressOutputStream(OutputStream out, Charset charset, RanorexProgressAction progress, String runConfiguration, FailFastPolicy failFast, ExecutionWatchdog watchdog) {
+        this.out = out;
+        this.charset = charset;
+        this.progress = progress;
+        this.runConfiguration = runConfiguration;
+        this.failFast = failFast;
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    protected void eol(byte[] b, int len) throws IOException {
+        out.write(b, 0, len);
+        watchdog.activity(System.currentTimeMillis());
+        switch (parser.parseLine(new String(b, 0, len, charset))) {
+            case STARTED:
+                progress.testCaseStarted(runConfiguration, parser.getTestCase(), System.currentTimeMillis());
+                break;
+            case COMPLETED:
+                progress.testCaseCompleted(runConfiguration, parser.getTestCase(), parser.getStatus(), System.currentTimeMillis());
+                failFast.testCaseCompleted(FailFastPolicy.isFailure(parser.getStatus()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        //The build log stays open for the following build steps
+        out.flush();
+    }
+}
@@ -0,0 +1,598 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.BlobChunks;
+import com.ranorex.jenkinsranorexplugin.util.BlobStore;
+import com.ranorex.jenkinsranorexplugin.util.ReportManifest;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.remoting.Channel;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archives the report files written by a build into a content-addressed blob store of the job. The agent
+ * hashes the new report files, only files whose content is not stored yet are transferred. Each build keeps
+ * a manifest which maps the report paths to the blobs, so identical screenshots of many builds are stored once.
+ * New content is transferred in chunks of many files, several chunks in parallel, and an interrupted chunk
+ * resumes from the bytes already received.
+ */
+final class RanorexReportArchive {
+    static final String BLOB_DIRECTORY = "ranorex-blobs";
+    static final String MANIFEST_FILE = "ranorex-report.manifest";
+    static final String ZIPPED_REPORT_PREFIX = "zipped/";
+    static final int PARALLEL_TRANSFERS = 4;
+    static final int MAX_TRANSFER_ATTEMPTS = 3;
+    private static final long GARBAGE_MIN_AGE = TimeUnit.HOURS.toMillis(1);
+    //The blobs currently received by any build by their path, only one transfer writes the partial file of a blob
+    private static final Set<String> RECEIVING = new HashSet<>();
+
+    private RanorexReportArchive() {
+    }
+
+    /**
+     * @param job The job
+     * @return The blob store shared by all builds of the job
+     */
+    static BlobStore getBlobStore(Job<?, ?> job) {
+        return new BlobStore(new File(job.getRootDir(), BLOB_DIRECTORY));
+    }
+
+    /**
+     * @param run The build
+     * @return The manifest file of the build
+     */
+    static File getManifestFile(Run<?, ?> run) {
+        return new File(run.getRootDir(), MANIFEST_FILE);
+    }
+
+    /**
+     * @param node              Any path on the agent executing Ranorex
+     * @param reportDirectories The report directories
+     * @param reportExtension   The extension of the Ranorex report without the dot
+     * @return The last modification time of every report file in the report directories
+     * @throws IOException          If a directory could not be read
+     * @throws InterruptedException If the build is aborted
+     */
+    static HashMap<String, Long> snapshot(FilePath node, List<String> reportDirectories, String reportExtension) throws IOException, InterruptedException {
+        return node.act(new Snapshot(new ArrayList<>(reportDirectories), reportExtension));
+    }
+
+    /**
+     * Takes a snapshot of the report directories on the agent. The agent keeps the snapshot and the hashes of
+     * the report files, so every pass only sends the files changed since the previous pass to the controller.
+     * The hashes are dropped on the agent when the controller no longer references them or the agent is
+     * disconnected.
+     *
+     * @param context The current execution
+     * @return The report files hashed on the agent
+     * @throws IOException          If a directory could not be read
+     * @throws InterruptedException If the build is aborted
+     */
+    static ReportHashes startHashing(RanorexRunContext context) throws IOException, InterruptedException {
+        return context.getWorkspace().act(new StartHashing(new ArrayList<>(context.getReportDirectories()), context.getReportExtension()));
+    }
+
+    /**
+     * Transfers the content of the files which is not in the blob store yet
+     *
+     * @param context The current execution
+     * @param files   The hashed files
+     * @return The transferred files, files with the same content are transferred once
+     * @throws IOException          If a file could not be transferred or stored
+     * @throws InterruptedException If the build is aborted
+     */
+    static List<ReportManifest.Entry> store(RanorexRunContext context, ReportManifest files) throws IOException, InterruptedException {
+        BlobStore store = getBlobStore(context.getRun().getParent());
+        List<ReportManifest.Entry> transferred = new ArrayList<>();
+        List<ReportManifest.Entry> claimed;
+        while (! (claimed = claim(store, files.getEntries())).isEmpty()) {
+            try {
+                transfer(context, store, claimed);
+            } finally {
+                release(store, claimed);
+            }
+            transferred.addAll(claimed);
+        }
+        return transferred;
+    }
+
+    /**
+     * Stores the report files written or modified since the snapshot and adds them to the manifest of the build
+     *
+     * @param context The current execution
+     * @param hashes  The report files hashed on the agent
+     * @param known   The files hashed while Ranorex was running, updated with the remaining files
+     * @return The files of this build step
+     * @throws IOException          If a file could not be transferred or stored
+     * @throws InterruptedException If the build is aborted
+     */
+    static ReportManifest archive(RanorexRunContext context, ReportHashes hashes, Map<String, HashedFile> known) throws IOException, InterruptedException {
+        hashes.hashChanges(Long.MAX_VALUE).applyTo(known);
+        ReportManifest files = toManifest(known);
+        long transferredSize = 0;
+        List<ReportManifest.Entry> transferred = store(context, files);
+        for (ReportManifest.Entry entry : transferred) {
+            transferredSize += entry.getSize();
+        }
+        //Several build steps of one build share the manifest
+        synchronized (RanorexReportArchive.class) {
+            File manifestFile = getManifestFile(context.getRun());
+            ReportManifest manifest = ReportManifest.read(manifestFile);
+            manifest.addAll(files);
+            manifest.write(manifestFile);
+        }
+        if (context.getRun().getAction(RanorexArchivedReportAction.class) == null) {
+            context.getRun().addAction(new RanorexArchivedReportAction());
+        }
+        context.getLogger().println("Archived " + files.getEntries().size() + " report files (" + files.getSize() / 1024 + " KB), "
+                + transferred.size() + " of them with new content (" + transferredSize / 1024 + " KB)");
+        return files;
+    }
+
+    /**
+     * @param files The hashed files by their relative path
+     * @return The files as manifest
+     */
+    static ReportManifest toManifest(Map<String, HashedFile> files) {
+        ReportManifest manifest = new ReportManifest();
+        for (Map.Entry<String, HashedFile> file : files.entrySet()) {
+            manifest.add(file.getKey(), file.getValue().getHash(), file.getValue().getSize());
+        }
+        return manifest;
+    }
+
+    /**
+     * Claims the missing blobs not received by another build. If another build receives all of them, waits
+     * until it is done and claims those it failed to store. The blob store is checked outside the lock, so
+     * builds of other jobs are not blocked by the file system.
+     */
+    private static List<ReportManifest.Entry> claim(BlobStore store, List<ReportManifest.Entry> entries) throws InterruptedException {
+        while (true) {
+            List<ReportManifest.Entry> missing = new ArrayList<>();
+            Set<String> hashes = new HashSet<>();
+            for (ReportManifest.Entry entry : entries) {
+                if (hashes.add(entry.getHash()) && ! store.contains(entry.getHash())) {
+                    missing.add(entry);
+                }
+            }
+            if (missing.isEmpty()) {
+                return missing;
+            }
+            synchronized (RECEIVING) {
+                List<ReportManifest.Entry> claimed = new ArrayList<>();
+                boolean waiting = false;
+                for (ReportManifest.Entry entry : missing) {
+                    if (RECEIVING.contains(receivingKey(store, entry))) {
+                        waiting = true;
+                    } else {
+                        claimed.add(entry);
+                    }
+                }
+                if (! claimed.isEmpty() || ! waiting) {
+                    for (ReportManifest.Entry entry : claimed) {
+                        RECEIVING.add(receivingKey(store, entry));
+                    }
+                    return claimed;
+                }
+                RECEIVING.wait();
+            }
+        }
+    }
+
+    private static void release(BlobStore store, List<ReportManifest.Entry> claimed) {
+        synchronized (RECEIVING) {
+            for (ReportManifest.Entry entry : claimed) {
+                RECEIVING.remove(receivingKey(store, entry));
+            }
+            RECEIVING.notifyAll();
+        }
+    }
+
+    /**
+     * Blob stores are per job, the same content may be received by builds of different jobs at the same time
+     */
+    private static String receivingKey(BlobStore store, ReportManifest.Entry entry) {
+        return store.getBlob(entry.getHash()).getPath();
+    }
+
+    private static void transfer(final RanorexRunContext context, final BlobStore store, List<ReportManifest.Entry> entries) throws IOException, InterruptedException {
+        List<List<ReportManifest.Entry>> chunks = BlobChunks.plan(entries, BlobChunks.CHUNK_SIZE);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(PARALLEL_TRANSFERS, chunks.size()));
+        try {
+            List<Future<Void>> transfers = new ArrayList<>();
+            for (final List<ReportManifest.Entry> chunk : chunks) {
+                transfers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException, InterruptedException {
+                        transferChunk(context, store, chunk);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> transfer : transfers) {
+                try {
+                    transfer.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException("The report files could not be transferred", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void transferChunk(RanorexRunContext context, BlobStore store, List<ReportManifest.Entry> chunk) throws IOException, InterruptedException {
+        List<String> reportDirectories = context.getReportDirectories();
+        for (int attempt = 1; ; attempt++) {
+            List<ReportManifest.Entry> pending = new ArrayList<>();
+            ArrayList<String> paths = new ArrayList<>();
+            ArrayList<Long> offsets = new ArrayList<>();
+            for (ReportManifest.Entry entry : chunk) {
+                if (! store.getBlob(entry.getHash()).isFile()) {
+                    pending.add(entry);
+                    paths.add(toAgentPath(reportDirectories, entry.getPath()));
+                    offsets.add(BlobChunks.resumeOffset(store, entry));
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            BlobChunks.Receiver receiver = new BlobChunks.Receiver(store, pending);
+            try {
+                FilePath workspace = context.getWorkspace();
+                workspace.act(new SendChunk(paths, offsets, new RemoteOutputStream(receiver)));
+                //Wait for the data still on its way from the agent
+                VirtualChannel channel = workspace.getChannel();
+                if (channel instanceof Channel) {
+                    ((Channel) channel).syncIO();
+                }
+                receiver.finish();
+                return;
+            } catch (IOException e) {
+                if (attempt >= MAX_TRANSFER_ATTEMPTS) {
+                    throw e;
+                }
+                context.getLogger().println("The transfer of " + pending.size() + " report files was interrupted, resuming: " + e.getMessage());
+            } finally {
+                receiver.close();
+            }
+        }
+    }
+
+    private static String toAgentPath(List<String> reportDirectories, String path) {
+        if (path.startsWith(ZIPPED_REPORT_PREFIX) && reportDirectories.size() > 1) {
+            return reportDirectories.get(1) + path.substring(ZIPPED_REPORT_PREFIX.length()).replace('/', File.separatorChar);
+        }
+        return reportDirectories.get(0) + path.replace('/', File.separatorChar);
+    }
+
+    /**
+     * @param reportDirectories The report directories, files of the second one get the zipped report prefix
+     * @param reportExtension   The extension of the Ranorex report without the dot
+     * @return The files of the Ranorex report and the compressed reports in the report directories by their
+     * relative path separated by '/'. Like the compressor only two levels are listed, so a report directory
+     * containing the whole workspace is not archived.
+     */
+    static Map<String, File> listReportFiles(List<String> reportDirectories, String reportExtension) {
+        Map<String, File> files = new HashMap<>();
+        for (int i = 0; i < reportDirectories.size(); i++) {
+            String prefix = i == 0 ? "" : ZIPPED_REPORT_PREFIX;
+            for (Map.Entry<String, File> file : RanorexReportCompressor.listReportFiles(new File(reportDirectories.get(i))).entrySet()) {
+                if (isArchived(file.getKey(), reportExtension)) {
+                    files.put(prefix + file.getKey(), file.getValue());
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @param path            The relative path of a file in a report directory
+     * @param reportExtension The extension of the Ranorex report without the dot
+     * @return True if the file belongs to the Ranorex report or is a compressed report
+     */
+    static boolean isArchived(String path, String reportExtension) {
+        if (path.indexOf('/') < 0 && path.toLowerCase(Locale.ROOT).endsWith(RanorexRunnerBuilder.ZIPPED_REPORT_EXTENSION)) {
+            return true;
+        }
+        return RanorexReportCompressor.isReportFile(path, reportExtension);
+    }
+
+    private static final class Snapshot extends MasterToSlaveFileCallable<HashMap<String, Long>> {
+        private static final long serialVersionUID = 1L;
+        private final ArrayList<String> reportDirectories;
+        private final String reportExtension;
+
+        Snapshot(ArrayList<String> reportDirectories, String reportExtension) {
+            this.reportDirectories = reportDirectories;
+            this.reportExtension = reportExtension;
+        }
+
+        @Override
+        public HashMap<String, Long> invoke(File f, VirtualChannel channel) {
+            return listLastModified(reportDirectories, reportExtension);
+        }
+    }
+
+    /**
+     * @return The last modification time of every report file by its relative path
+     */
+    static HashMap<String, Long> listLastModified(List<String> reportDirectories, String reportExtension) {
+        HashMap<String, Long> snapshot = new HashMap<>();
+        for (Map.Entry<String, File> file : listReportFiles(reportDirectories, reportExtension).entrySet()) {
+            snapshot.put(file.getKey(), file.getValue().lastModified());
+        }
+        return snapshot;
+    }
+
+    /**
+     * The hash of a report file and the state of the file when it was hashed
+     */
+    static final class HashedFile implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String hash;
+        private final long size;
+        private final long lastModified;
+
+        HashedFile(String hash, long size, long lastModified) {
+            this.hash = hash;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        String getHash() {
+            return hash;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        boolean isUnchanged(File file) {
+            return file.length() == size && file.lastModified() == lastModified;
+        }
+    }
+
+    /**
+     * The report files hashed on the agent, the controller calls it through the channel
+     */
+    interface ReportHashes {
+        /**
+         * @param stableBefore Only files last modified before this time in milliseconds are hashed, so files
+         *                     Ranorex is still writing are skipped
+         * @return The report files written or modified since the previous call and the removed ones
+         * @throws IOException          If a file could not be read
+         * @throws InterruptedException If the build is aborted
+         */
+        HashChanges hashChanges(long stableBefore) throws IOException, InterruptedException;
+    }
+
+    /**
+     * The report files hashed since the previous pass and the report files removed since
+     */
+    static final class HashChanges implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final HashMap<String, HashedFile> changed;
+        private final ArrayList<String> removed;
+
+        HashChanges(HashMap<String, HashedFile> changed, ArrayList<String> removed) {
+            this.changed = changed;
+            this.removed = removed;
+        }
+
+        Map<String, HashedFile> getChanged() {
+            return changed;
+        }
+
+        /**
+         * @param files The hashed files of the previous passes by their relative path
+         */
+        void applyTo(Map<String, HashedFile> files) {
+            files.keySet().removeAll(removed);
+            files.putAll(changed);
+        }
+    }
+
+    private static final class StartHashing extends MasterToSlaveFileCallable<ReportHashes> {
+        private static final long serialVersionUID = 1L;
+        private final ArrayList<String> reportDirectories;
+        private final String reportExtension;
+
+        StartHashing(ArrayList<String> reportDirectories, String reportExtension) {
+            this.reportDirectories = reportDirectories;
+            this.reportExtension = reportExtension;
+        }
+
+        @Override
+        public ReportHashes invoke(File f, VirtualChannel channel) {
+            return channel.export(ReportHashes.class, new AgentReportHashes(reportDirectories, reportExtension, listLastModified(reportDirectories, reportExtension)));
+        }
+    }
+
+    /**
+     * Keeps the snapshot and the hashes of the report files on the agent between the passes
+     */
+    static final class AgentReportHashes implements ReportHashes {
+        private final List<String> reportDirectories;
+        private final String reportExtension;
+        private final Map<String, Long> snapshot;
+        private final Map<String, HashedFile> known = new HashMap<>();
+
+        AgentReportHashes(List<String> reportDirectories, String reportExtension, Map<String, Long> snapshot) {
+            this.reportDirectories = reportDirectories;
+            this.reportExtension = reportExtension;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public synchronized HashChanges hashChanges(long stableBefore) throws IOException {
+            HashMap<String, HashedFile> changed = new HashMap<>();
+            Set<String> present = new HashSet<>();
+            for (Map.Entry<String, File> file : listReportFiles(reportDirectories, reportExtension).entrySet()) {
+                File reportFile = file.getValue();
+                Long before = snapshot.get(file.getKey());
+                if (before != null && before == reportFile.lastModified() || RanorexReportCompressor.isTemporary(file.getKey())) {
+                    continue;
+                }
+                present.add(file.getKey());
+                HashedFile hashed = known.get(file.getKey());
+                if ((hashed == null || ! hashed.isUnchanged(reportFile)) && reportFile.lastModified() < stableBefore) {
+                    //Read the state first, a file modified while it is hashed is hashed again next time
+                    long size = reportFile.length();
+                    long lastModified = reportFile.lastModified();
+                    hashed = new HashedFile(BlobStore.hash(reportFile), size, lastModified);
+                    known.put(file.getKey(), hashed);
+                    changed.put(file.getKey(), hashed);
+                }
+            }
+            ArrayList<String> removed = new ArrayList<>();
+            for (Iterator<String> paths = known.keySet().iterator(); paths.hasNext(); ) {
+                String path = paths.next();
+                if (! present.contains(path)) {
+                    paths.remove();
+                    removed.add(path);
+                }
+            }
+            return new HashChanges(changed, removed);
+        }
+    }
+
+    private static final class SendChunk extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+        private final ArrayList<String> paths;
+        private final ArrayList<Long> offsets;
+        private final OutputStream out;
+
+        SendChunk(ArrayList<String> paths, ArrayList<Long> offsets, OutputStream out) {
+            this.paths = paths;
+            this.offsets = offsets;
+            this.out = out;
+        }
+
+        @Override
+        public Void invoke(File f, VirtualChannel channel) throws IOException {
+            List<File> files = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                files.add(new File(path));
+            }
+            try (OutputStream stream = out) {
+                BlobChunks.write(files, offsets, stream);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the blobs of a job which are not referenced by any build any more. The manifests of all builds
+     * are read, so this only runs in the background for jobs with deleted builds.
+     *
+     * @param job The job
+     * @return The number of deleted blobs
+     * @throws IOException If a manifest could not be read, no blob is deleted then
+     */
+    static int collectGarbage(Job<?, ?> job) throws IOException {
+        File[] builds = job.getBuildDir().listFiles();
+        if (builds == null) {
+            return 0;
+        }
+        //The builds directory also contains links to builds like lastSuccessfulBuild, they add nothing new
+        Set<String> referenced = new HashSet<>();
+        for (File build : builds) {
+            File manifest = new File(build, MANIFEST_FILE);
+            if (manifest.isFile()) {
+                for (ReportManifest.Entry entry : ReportManifest.read(manifest).getEntries()) {
+                    referenced.add(entry.getHash());
+                }
+            }
+        }
+        return getBlobStore(job).collectGarbage(referenced, System.currentTimeMillis() - GARBAGE_MIN_AGE);
+    }
+
+    /**
+     * Marks the blob store of a job when a build with archived reports is deleted. Deleting many builds, e.g.
+     * by the log rotation, only touches the mark; the store is collected later by {@link GarbageCollector}.
+     */
+    @Extension
+    @SuppressWarnings ("rawtypes")
+    public static class Cleanup extends RunListener<Run> {
+        @Override
+        public void onDeleted(Run run) {
+            if (! getManifestFile(run).isFile()) {
+                return;
+            }
+            try {
+                getBlobStore(run.getParent()).markGarbage();
+            } catch (IOException e) {
+                //The blobs are kept until the next build of the job is deleted
+            }
+        }
+    }
+
+    /**
+     * Collects the blob stores marked by {@link Cleanup} once an hour
+     */
+    @Extension
+    public static class GarbageCollector extends AsyncPeriodicWork {
+        public GarbageCollector() {
+            super("Ranorex report garbage collection");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return HOUR;
+        }
+
+        @Override
+        @SuppressWarnings ("rawtypes")
+        protected void execute(TaskListener listener) {
+            //A build is removed from disk after the listeners were notified, a fresh mark waits for the next run
+            long olderThan = System.currentTimeMillis() - MIN;
+            for (Job job : Jenkins.getActiveInstance().getAllItems(Job.class)) {
+                BlobStore store = getBlobStore(job);
+                if (! store.takeGarbageMark(olderThan)) {
+                    continue;
+                }
+                try {
+                    listener.getLogger().println("Deleted " + collectGarbage(job) + " unused Ranorex report files of " + job.getFullName());
+                } catch (IOException e) {
+                    //Keep all blobs rather than losing the files of a build, try again in the next run
+                    listener.getLogger().println("The Ranorex report files of " + job.getFullName() + " were not collected: " + e.getMessage());
+                    try {
+                        store.markGarbage();
+                    } catch (IOException mark) {
+                        //Collected when the next build is deleted
+                    }
+                }
+            }
+        }
+    }
+}
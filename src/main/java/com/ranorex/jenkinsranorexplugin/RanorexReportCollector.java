@@ -0,0 +1,130 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.ReportManifest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archives the report files of a build step while Ranorex is still running. Every few seconds the report
+ * files which have not changed for a while are hashed on the agent and their new content is transferred to
+ * the blob store of the job. The agent keeps the hashes, only the files changed since the previous pass are
+ * sent to the controller. When Ranorex exits, only the files written last are left to hash and transfer.
+ */
+final class RanorexReportCollector {
+    static final long INTERVAL = 30000;
+    static final long STABLE_AGE = 10000;
+
+    private final RanorexRunContext context;
+    private final RanorexReportArchive.ReportHashes hashes;
+    private final Object lock = new Object();
+    private final Map<String, RanorexReportArchive.HashedFile> hashed = new HashMap<>();
+    private Thread thread;
+    private boolean stopped;
+    private int transferred;
+    private long transferredSize;
+
+    /**
+     * @param context The current execution
+     * @param hashes  The report files hashed on the agent since the snapshot before the first run
+     */
+    RanorexReportCollector(RanorexRunContext context, RanorexReportArchive.ReportHashes hashes) {
+        this.context = context;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Starts collecting the report files in the background, called when Ranorex is started
+     */
+    void start() {
+        synchronized (lock) {
+            stopped = false;
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    collectUntilStopped();
+                }
+            }, "Ranorex report collector for " + context.getRun());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops collecting and waits until the files of the current pass are stored, called when Ranorex exits
+     *
+     * @throws InterruptedException If the build is aborted while waiting
+     */
+    void stop() throws InterruptedException {
+        Thread collector;
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+            collector = thread;
+            thread = null;
+        }
+        if (collector != null) {
+            collector.join();
+        }
+    }
+
+    /**
+     * Stops collecting without waiting, files which are only partly transferred are resumed later
+     */
+    void cancel() {
+        synchronized (lock) {
+            stopped = true;
+            if (thread != null) {
+                thread.interrupt();
+                thread = null;
+            }
+        }
+    }
+
+    /**
+     * Stores the remaining report files and adds all files of this build step to the manifest of the build
+     *
+     * @return The files of this build step
+     * @throws IOException          If a file could not be transferred or stored
+     * @throws InterruptedException If the build is aborted
+     */
+    ReportManifest archive() throws IOException, InterruptedException {
+        stop();
+        if (transferred > 0) {
+            context.getLogger().println("Transferred " + transferred + " report files (" + transferredSize / 1024 + " KB) while Ranorex was running");
+        }
+        return RanorexReportArchive.archive(context, hashes, hashed);
+    }
+
+    private void collectUntilStopped() {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    if (! stopped) {
+                        lock.wait(INTERVAL);
+                    }
+                    if (stopped) {
+                        return;
+                    }
+                }
+                collect(System.currentTimeMillis() - STABLE_AGE);
+            }
+        } catch (InterruptedException e) {
+            //Cancelled, the build is aborted
+        } catch (IOException e) {
+            context.getLogger().println("The report files could not be archived while Ranorex was running, they are archived at the end: " + e.getMessage());
+        }
+    }
+
+    private void collect(long stableBefore) throws IOException, InterruptedException {
+        RanorexReportArchive.HashChanges changes = hashes.hashChanges(stableBefore);
+        changes.applyTo(hashed);
+        List<ReportManifest.Entry> stored = RanorexReportArchive.store(context, RanorexReportArchive.toManifest(changes.getChanged()));
+        for (ReportManifest.Entry entry : stored) {
+            transferred++;
+            transferredSize += entry.getSize();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.ReportZip;
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the compressed report of a Ranorex run on the agent instead of Ranorex. While Ranorex is running,
+ * every report file which was not modified for a few seconds is compressed in the background on several
+ * threads. When the run has ended, only the files written last are compressed before the archive is
+ * assembled, so the compressed report is ready shortly after the run. Only the files of the Ranorex report are
+ * compressed: the reports and report data files, the style files and the screenshots in the subdirectories.
+ */
+final class RanorexReportCompressor {
+    static final String FINISH_SUFFIX = ".finish";
+    static final String PARTS_SUFFIX = ".parts";
+    static final long POLL_INTERVAL = 2000;
+    static final long STABLE_AGE = 5000;
+    //The style sheets and images of the report which Ranorex copies to the report directory only once
+    static final String REPORT_STYLE_PREFIX = "RanorexReport";
+    static final String[] IMAGE_EXTENSIONS = {".png", ".jpg", ".jpeg", ".gif", ".bmp"};
+    //Without a timeout the agent stops waiting for the end of the run after two days
+    static final long MAX_LIFETIME = TimeUnit.DAYS.toMillis(2);
+    //The time between the end of the run and the finish marker, e.g. to archive the report files
+    static final long FINISH_DELAY = TimeUnit.HOURS.toMillis(1);
+
+    private final FilePath finish;
+    private final Future<Integer> compression;
+
+    private RanorexReportCompressor(FilePath finish, Future<Integer> compression) {
+        this.finish = finish;
+        this.compression = compression;
+    }
+
+    /**
+     * Starts compressing the files written to the report directory from now on
+     *
+     * @param workspace       Any path on the agent executing Ranorex
+     * @param reportDirectory The report directory
+     * @param reportExtension The extension of the Ranorex report without the dot, e.g. rxlog
+     * @param zippedReport    The path of the compressed report on the agent
+     * @param timeout         The maximum duration of the run in minutes, 0 if it is not limited. The agent stops
+     *                        waiting for the end of the run a while after it, also if the controller is gone.
+     * @return The running compression
+     * @throws IOException          If the report directory could not be read
+     * @throws InterruptedException If the build is aborted
+     */
+    static RanorexReportCompressor start(FilePath workspace, String reportDirectory, String reportExtension, String zippedReport, int timeout) throws IOException, InterruptedException {
+        HashMap<String, Long> snapshot = RanorexReportArchive.snapshot(workspace, Collections.singletonList(reportDirectory), reportExtension);
+        FilePath finish = new FilePath(workspace.getChannel(), zippedReport + FINISH_SUFFIX);
+        finish.delete();
+        long maxLifetime = timeout > 0 ? TimeUnit.MINUTES.toMillis(timeout) + FINISH_DELAY : MAX_LIFETIME;
+        Future<Integer> compression = workspace.actAsync(new Compress(reportDirectory, reportExtension, zippedReport, snapshot, maxLifetime));
+        return new RanorexReportCompressor(finish, compression);
+    }
+
+    /**
+     * Tells the agent that the run has ended and waits for the compressed report
+     *
+     * @return The number of files in the compressed report
+     * @throws IOException          If the compressed report could not be written
+     * @throws InterruptedException If the build is aborted
+     */
+    int finish() throws IOException, InterruptedException {
+        finish.write("", "UTF-8");
+        try {
+            return compression.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("The Ranorex report could not be compressed", e.getCause());
+        } finally {
+            finish.delete();
+        }
+    }
+
+    /**
+     * Stops the compression without writing the compressed report
+     */
+    void cancel() {
+        compression.cancel(true);
+    }
+
+    /**
+     * @param path The relative path of a report file
+     * @return True if the file is only used while the compressed report is created
+     */
+    static boolean isTemporary(String path) {
+        return path.endsWith(FINISH_SUFFIX) || path.endsWith(".tmp") || path.contains(PARTS_SUFFIX + "/");
+    }
+
+    /**
+     * @param path            The relative path of a file in the report directory
+     * @param reportExtension The extension of the Ranorex report without the dot
+     * @return True if the file belongs to the Ranorex report: a report, a report data file or a style file
+     * directly in the report directory, or a screenshot in a subdirectory
+     */
+    static boolean isReportFile(String path, String reportExtension) {
+        int separator = path.indexOf('/');
+        String lowerCase = path.toLowerCase(Locale.ROOT);
+        if (separator < 0) {
+            String extension = "." + reportExtension.toLowerCase(Locale.ROOT);
+            return lowerCase.endsWith(extension) || lowerCase.endsWith(extension + ".data") || path.startsWith(REPORT_STYLE_PREFIX);
+        }
+        if (path.indexOf('/', separator + 1) >= 0) {
+            return false;
+        }
+        for (String imageExtension : IMAGE_EXTENSIONS) {
+            if (lowerCase.endsWith(imageExtension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists the files directly in the report directory and in its subdirectories, but not deeper, so a report
+     * directory containing the whole workspace is not walked every time
+     */
+    static Map<String, File> listReportFiles(File reportDirectory) {
+        Map<String, File> files = new HashMap<>();
+        File[] children = reportDirectory.listFiles();
+        if (children == null) {
+            return files;
+        }
+        for (File child : children) {
+            if (! child.isDirectory()) {
+                files.put(child.getName(), child);
+                continue;
+            }
+            File[] grandChildren = child.listFiles();
+            if (grandChildren == null) {
+                continue;
+            }
+            for (File grandChild : grandChildren) {
+                if (grandChild.isFile()) {
+                    files.put(child.getName() + "/" + grandChild.getName(), grandChild);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static final class Compress extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final String reportDirectory;
+        private final String reportExtension;
+        private final String zippedReport;
+        private final HashMap<String, Long> snapshot;
+        private final long maxLifetime;
+
+        Compress(String reportDirectory, String reportExtension, String zippedReport, HashMap<String, Long> snapshot, long maxLifetime) {
+            this.reportDirectory = reportDirectory;
+            this.reportExtension = reportExtension;
+            this.zippedReport = zippedReport;
+            this.snapshot = snapshot;
+            this.maxLifetime = maxLifetime;
+        }
+
+        @Override
+        public Integer invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+            File zip = new File(zippedReport);
+            // The report itself, the marker and the temporary files all start with the path of the report
+            String excluded = zip.getAbsolutePath();
+            File finish = new File(zippedReport + FINISH_SUFFIX);
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            long deadline = System.currentTimeMillis() + maxLifetime;
+            try (ReportZip reportZip = new ReportZip(new File(zippedReport + PARTS_SUFFIX), threads)) {
+                while (true) {
+                    //Checked before the files are listed, so the last pass sees every file of the run
+                    boolean finished = finish.exists();
+                    long stableBefore = System.currentTimeMillis() - STABLE_AGE;
+                    for (Map.Entry<String, File> file : listReportFiles(new File(reportDirectory)).entrySet()) {
+                        File reportFile = file.getValue();
+                        if (reportFile.getAbsolutePath().startsWith(excluded) || ! isReportFile(file.getKey(), reportExtension)
+                                || ! isPartOfRun(file.getKey(), reportFile)) {
+                            continue;
+                        }
+                        if (finished || reportFile.lastModified() < stableBefore) {
+                            reportZip.add(file.getKey(), reportFile);
+                        }
+                    }
+                    if (finished) {
+                        break;
+                    }
+                    //The controller may be gone without telling the agent
+                    if (System.currentTimeMillis() > deadline) {
+                        throw new IOException("The end of the Ranorex run was not reported within " + TimeUnit.MILLISECONDS.toMinutes(maxLifetime)
+                                + " minutes, the report was not compressed");
+                    }
+                    Thread.sleep(POLL_INTERVAL);
+                }
+                reportZip.write(zip);
+                return reportZip.size();
+            }
+        }
+
+        private boolean isPartOfRun(String path, File file) {
+            Long before = snapshot.get(path);
+            return before == null || before != file.lastModified() || path.startsWith(REPORT_STYLE_PREFIX);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.JUnitFailureReader;
+import com.ranorex.jenkinsranorexplugin.util.RanorexReportParser;
+import com.ranorex.jenkinsranorexplugin.util.ReportMerger;
+import com.ranorex.jenkinsranorexplugin.util.ReportSummary;
+import com.ranorex.jenkinsranorexplugin.util.TestCaseConsumer;
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the JUnit compatible reports and the report data files Ranorex wrote to a report directory during
+ * a run. The names of the reports contain placeholders like the time stamp, so the reports are recognized
+ * by comparing the directory content before and after the run. All file operations are executed on the
+ * agent, only the results are sent to the controller.
+ */
+final class RanorexReportFiles {
+    static final String JUNIT_REPORT_SUFFIX = ".junit.xml";
+    static final String REPORT_DATA_SUFFIX = ".data";
+
+    private RanorexReportFiles() {
+    }
+
+    /**
+     * @param node            Any path on the agent executing Ranorex
+     * @param reportDirectory The report directory
+     * @return The last modification time of every JUnit report and report data file in the report directory
+     * @throws IOException          If the directory could not be read
+     * @throws InterruptedException If the build is aborted
+     */
+    static HashMap<String, Long> snapshot(FilePath node, String reportDirectory) throws IOException, InterruptedException {
+        return node.act(new Snapshot(reportDirectory));
+    }
+
+    /**
+     * @param node            Any path on the agent executing Ranorex
+     * @param reportDirectory The report directory
+     * @param snapshot        The JUnit reports before the run
+     * @return The names of the failed test cases of all JUnit reports written or modified since the snapshot
+     * @throws IOException          If a report could not be read
+     * @throws InterruptedException If the build is aborted
+     */
+    static List<String> readFailedTestCases(FilePath node, String reportDirectory, HashMap<String, Long> snapshot) throws IOException, InterruptedException {
+        return node.act(new ReadFailedTestCases(reportDirectory, snapshot));
+    }
+
+    /**
+     * Summarizes the JUnit reports written since the snapshot, or the report data files if no JUnit report
+     * was written. Reports are read in the order they were written, so the result of a rerun replaces the
+     * first result of a test case.
+     *
+     * @param node            Any path on the agent executing Ranorex
+     * @param reportDirectory The report directory
+     * @param snapshot        The JUnit reports before the run
+     * @param prefix          Put in front of every test case name, may be empty
+     * @return The summary of all test cases
+     * @throws IOException          If a report could not be read
+     * @throws InterruptedException If the build is aborted
+     */
+    static ReportSummary summarize(FilePath node, String reportDirectory, HashMap<String, Long> snapshot, String prefix) throws IOException, InterruptedException {
+        return node.act(new Summarize(reportDirectory, snapshot, prefix));
+    }
+
+    /**
+     * @param node            Any path on the agent executing Ranorex
+     * @param reportDirectory The report directory
+     * @param snapshot        The reports before the run
+     * @return The names of the reports a summary of the run is created from, in the order they were written
+     * @throws IOException          If the directory could not be read
+     * @throws InterruptedException If the build is aborted
+     */
+    static ArrayList<String> listRunReports(FilePath node, String reportDirectory, HashMap<String, Long> snapshot) throws IOException, InterruptedException {
+        return node.act(new ListRunReports(reportDirectory, snapshot));
+    }
+
+    /**
+     * Merges the reports of several runs into one JUnit report on the agent. A test case executed in several
+     * runs of the same group is only counted once with the result of its last run.
+     *
+     * @param node            Any path on the agent executing Ranorex
+     * @param reportDirectory The report directory
+     * @param groups          The names of the reports of every run configuration, in the order they were written
+     * @param mergedReport    The name of the merged report in the report directory
+     * @return The summary of the merged report
+     * @throws IOException          If a report could not be read or the merged report could not be written
+     * @throws InterruptedException If the build is aborted
+     */
+    static ReportSummary merge(FilePath node, String reportDirectory, LinkedHashMap<String, List<String>> groups, String mergedReport) throws IOException, InterruptedException {
+        return node.act(new Merge(reportDirectory, groups, mergedReport));
+    }
+
+    /**
+     * @return The JUnit reports written since the snapshot, or the report data files if no JUnit report was
+     * written, sorted by their modification time
+     */
+    private static File[] listRunReports(String reportDirectory, HashMap<String, Long> snapshot) {
+        File[] reports = sortByLastModified(listNewReports(reportDirectory, JUNIT_REPORT_SUFFIX, snapshot));
+        if (reports.length == 0) {
+            reports = sortByLastModified(listNewReports(reportDirectory, REPORT_DATA_SUFFIX, snapshot));
+        }
+        return reports;
+    }
+
+    private static File[] sortByLastModified(List<File> reports) {
+        File[] sorted = reports.toArray(new File[0]);
+        Arrays.sort(sorted, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                return Long.compare(first.lastModified(), second.lastModified());
+            }
+        });
+        return sorted;
+    }
+
+    private static List<File> listNewReports(String reportDirectory, String suffix, HashMap<String, Long> snapshot) {
+        List<File> reports = new ArrayList<>();
+        for (File report : listReports(reportDirectory, suffix)) {
+            Long before = snapshot.get(report.getName());
+            if (before == null || before != report.lastModified()) {
+                reports.add(report);
+            }
+        }
+        return reports;
+    }
+
+    private static File[] listReports(String reportDirectory, String suffix) {
+        File[] reports = new File(reportDirectory).listFiles();
+        if (reports == null) {
+            return new File[0];
+        }
+        List<File> result = new ArrayList<>();
+        for (File report : reports) {
+            if (report.isFile() && report.getName().endsWith(suffix)) {
+                result.add(report);
+            }
+        }
+        return result.toArray(new File[0]);
+    }
+
+    private static final class Snapshot extends MasterToSlaveFileCallable<HashMap<String, Long>> {
+        private static final long serialVersionUID = 1L;
+        private final String reportDirectory;
+
+        Snapshot(String reportDirectory) {
+            this.reportDirectory = reportDirectory;
+        }
+
+        @Override
+        public HashMap<String, Long> invoke(File f, VirtualChannel channel) {
+            HashMap<String, Long> snapshot = new HashMap<>();
+            for (File report : listReports(reportDirectory, JUNIT_REPORT_SUFFIX)) {
+                snapshot.put(report.getName(), report.lastModified());
+            }
+            for (File report : listReports(reportDirectory, REPORT_DATA_SUFFIX)) {
+                snapshot.put(report.getName(), report.lastModified());
+            }
+            return snapshot;
+        }
+    }
+
+    private static final class ReadFailedTestCases extends MasterToSlaveFileCallable<List<String>> {
+        private static final long serialVersionUID = 1L;
+        private final String reportDirectory;
+        private final HashMap<String, Long> snapshot;
+
+        ReadFailedTestCases(String reportDirectory, HashMap<String, Long> snapshot) {
+            this.reportDirectory = reportDirectory;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public List<String> invoke(File f, VirtualChannel channel) throws IOException {
+            Set<String> failed = new LinkedHashSet<>();
+            for (File report : listNewReports(reportDirectory, JUNIT_REPORT_SUFFIX, snapshot)) {
+                try (InputStream in = new FileInputStream(report)) {
+                    failed.addAll(JUnitFailureReader.readFailedTestCases(in));
+                }
+            }
+            return new ArrayList<>(failed);
+        }
+    }
+
+    private static final class Summarize extends MasterToSlaveFileCallable<ReportSummary> {
+        private static final long serialVersionUID = 1L;
+        private final String reportDirectory;
+        private final HashMap<String, Long> snapshot;
+        private final String prefix;
+
+        Summarize(String reportDirectory, HashMap<String, Long> snapshot, String prefix) {
+            this.reportDirectory = reportDirectory;
+            this.snapshot = snapshot;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public ReportSummary invoke(File f, VirtualChannel channel) throws IOException {
+            ReportSummary summary = new ReportSummary();
+            for (File report : listRunReports(reportDirectory, snapshot)) {
+                //Iterations are counted per report, the same test case in a later report is a rerun
+                TestCaseConsumer consumer = summary.report(prefix);
+                try (InputStream in = new FileInputStream(report)) {
+                    if (report.getName().endsWith(JUNIT_REPORT_SUFFIX)) {
+                        RanorexReportParser.parseJUnit(in, consumer);
+                    } else {
+                        RanorexReportParser.parseReportData(in, consumer);
+                    }
+                }
+            }
+            return summary;
+        }
+    }
+
+    private static final class ListRunReports extends MasterToSlaveFileCallable<ArrayList<String>> {
+        private static final long serialVersionUID = 1L;
+        private final String reportDirectory;
+        private final HashMap<String, Long> snapshot;
+
+        ListRunReports(String reportDirectory, HashMap<String, Long> snapshot) {
+            this.reportDirectory = reportDirectory;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public ArrayList<String> invoke(File f, VirtualChannel channel) {
+            ArrayList<String> names = new ArrayList<>();
+            for (File report : listRunReports(reportDirectory, snapshot)) {
+                names.add(report.getName());
+            }
+            return names;
+        }
+    }
+
+    private static final class Merge extends MasterToSlaveFileCallable<ReportSummary> {
+        private static final long serialVersionUID = 1L;
+        private final String reportDirectory;
+        private final LinkedHashMap<String, List<String>> groups;
+        private final String mergedReport;
+
+        Merge(String reportDirectory, LinkedHashMap<String, List<String>> groups, String mergedReport) {
+            this.reportDirectory = reportDirectory;
+            this.groups = groups;
+            this.mergedReport = mergedReport;
+        }
+
+        @Override
+        public ReportSummary invoke(File f, VirtualChannel channel) throws IOException {
+            ReportMerger merger = new ReportMerger();
+            for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+                for (String report : group.getValue()) {
+                    merger.add(group.getKey(), new File(reportDirectory, report));
+                }
+            }
+            //Written to a temporary file first, so a failed merge never leaves a damaged report behind
+            File merged = new File(reportDirectory, mergedReport);
+            File temporary = new File(reportDirectory, mergedReport + ".tmp");
+            ReportSummary summary;
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temporary))) {
+                summary = merger.merge(out);
+            } catch (IOException e) {
+                temporary.delete();
+                throw e;
+            }
+            if (merged.exists() && ! merged.delete() || ! temporary.renameTo(merged)) {
+                temporary.delete();
+                throw new IOException("The merged report '" + merged + "' could not be written");
+            }
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.ReportSummary;
+import hudson.model.Action;
+
+import java.util.List;
+
+/**
+ * Shows the summary of the Ranorex reports of a build. The summary is created on the agent, the reports
+ * themselves stay in the report directory and are only transferred if they are archived.
+ */
+public class RanorexReportSummaryAction implements Action {
+    static final int SLOWEST_COUNT = 10;
+
+    private final ReportSummary summary = new ReportSummary();
+    private final String reportDirectory;
+
+    /**
+     * @param reportDirectory The report directory on the agent
+     */
+    public RanorexReportSummaryAction(String reportDirectory) {
+        this.reportDirectory = reportDirectory;
+    }
+
+    /**
+     * @param other The summary of a run, results of test cases already known are replaced
+     */
+    public void add(ReportSummary other) {
+        summary.addAll(other);
+    }
+
+    public ReportSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * @return The report directory on the agent
+     */
+    public String getReportDirectory() {
+        return reportDirectory;
+    }
+
+    /**
+     * @return The slowest test cases, the slowest first
+     */
+    public List<ReportSummary.TestCaseResult> getSlowest() {
+        return summary.getSlowest(SLOWEST_COUNT);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "clipboard.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Ranorex Report Summary";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ranorexSummary";
+    }
+}
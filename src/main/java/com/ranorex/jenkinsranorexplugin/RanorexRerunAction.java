@@ -0,0 +1,77 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import hudson.model.Action;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the results of the passes of a build in which failed test cases were executed again.
+ * A test case counts as passed if one of its reruns passed.
+ */
+public class RanorexRerunAction implements Action {
+    static final String PASSED = "Passed";
+    static final String FAILED = "Failed";
+
+    private final Map<String, List<String>> results = new LinkedHashMap<>();
+
+    /**
+     * Records the result of a test case in one pass
+     *
+     * @param runConfiguration The run configuration or null
+     * @param testCase         The name of the test case
+     * @param passed           If true, the test case passed
+     */
+    public synchronized void addResult(String runConfiguration, String testCase, boolean passed) {
+        String key = runConfiguration == null ? testCase : runConfiguration + " / " + testCase;
+        List<String> passes = results.get(key);
+        if (passes == null) {
+            passes = new ArrayList<>();
+            results.put(key, passes);
+        }
+        passes.add(passed ? PASSED : FAILED);
+    }
+
+    /**
+     * @return The results of every pass for each rerun test case
+     */
+    public synchronized Map<String, List<String>> getResults() {
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : results.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @return The test cases which failed first and passed in a rerun
+     */
+    public synchronized List<String> getFlakyTestCases() {
+        List<String> flaky = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : results.entrySet()) {
+            List<String> passes = entry.getValue();
+            if (passes.contains(FAILED) && PASSED.equals(passes.get(passes.size() - 1))) {
+                flaky.add(entry.getKey());
+            }
+        }
+        return flaky;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "refresh.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Ranorex Reruns";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ranorexReruns";
+    }
+}
@@ -0,0 +1,340 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.RunCacheKey;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Content addressed cache of Ranorex runs on the agent executing them. The key covers the test exe file and
+ * its assemblies, the input files declared by the user and the complete command line. If a run with the same
+ * key has finished before, its report files and exit code are restored instead of starting Ranorex again.
+ * <p>
+ * The cache is kept in the directory {@value #CACHE_DIRECTORY} below the root directory of the agent.
+ * Entries which were not used for {@value #MAX_AGE_DAYS} days are deleted whenever a new run is stored.
+ * All file operations are executed on the agent.
+ */
+final class RanorexRunCache {
+    static final String CACHE_DIRECTORY = "ranorex-run-cache";
+    private static final String RESULT_FILE = "run.properties";
+    private static final String EXIT_CODE = "exitCode";
+    static final int MAX_AGE_DAYS = 14;
+    private static final long MAX_AGE = MAX_AGE_DAYS * 24 * 60 * 60 * 1000L;
+    //Temporary directories of a store which was interrupted
+    private static final long MAX_TEMP_AGE = 24 * 60 * 60 * 1000L;
+
+    private final FilePath workspace;
+    private final FilePath cacheRoot;
+    private final String workingDirectory;
+    private final String executableFile;
+    private final List<String> inputs;
+    private final List<String> reportDirectories;
+
+    private RanorexRunCache(FilePath workspace, FilePath cacheRoot, String workingDirectory, String executableFile, List<String> inputs, List<String> reportDirectories) {
+        this.workspace = workspace;
+        this.cacheRoot = cacheRoot;
+        this.workingDirectory = workingDirectory;
+        this.executableFile = executableFile;
+        this.inputs = inputs;
+        this.reportDirectories = reportDirectories;
+    }
+
+    /**
+     * @param workspace         The workspace of the build
+     * @param workingDirectory  The directory containing the test exe file
+     * @param executableFile    The name of the test exe file
+     * @param inputPatterns     Ant patterns of additional input files, relative to the workspace, may be empty
+     * @param reportDirectories The directories Ranorex writes its reports to
+     * @return The cache or null if the root directory of the agent is not known
+     * @throws IOException          If the input files could not be listed
+     * @throws InterruptedException If the build is aborted
+     */
+    static RanorexRunCache create(FilePath workspace, FilePath workingDirectory, String executableFile, String inputPatterns, List<String> reportDirectories) throws IOException, InterruptedException {
+        Computer computer = workspace.toComputer();
+        Node node = computer != null ? computer.getNode() : null;
+        FilePath rootPath = node != null ? node.getRootPath() : null;
+        if (rootPath == null) {
+            return null;
+        }
+        List<String> inputs = new ArrayList<>();
+        if (inputPatterns != null && ! inputPatterns.trim().isEmpty()) {
+            String base = workspace.getRemote();
+            for (FilePath input : workspace.list(inputPatterns)) {
+                inputs.add(input.getRemote().substring(base.length() + 1));
+            }
+        }
+        return new RanorexRunCache(workspace, rootPath.child(CACHE_DIRECTORY), workingDirectory.getRemote(), executableFile, inputs, reportDirectories);
+    }
+
+    /**
+     * @param arguments The complete command line of the run
+     * @return The key of the run
+     * @throws IOException          If a file could not be read
+     * @throws InterruptedException If the build is aborted
+     */
+    String computeKey(List<String> arguments) throws IOException, InterruptedException {
+        return workspace.act(new ComputeKey(workingDirectory, executableFile, inputs, new ArrayList<>(arguments)));
+    }
+
+    /**
+     * Copies the cached report files to the report directories
+     *
+     * @param key The key of the run
+     * @return The exit code of the cached run or null if the run is not cached
+     * @throws IOException          If the files could not be copied
+     * @throws InterruptedException If the build is aborted
+     */
+    Integer restore(String key) throws IOException, InterruptedException {
+        return cacheRoot.act(new Restore(key, reportDirectories));
+    }
+
+    /**
+     * @return The last modification time of every file in the report directories, taken before Ranorex is started
+     * @throws IOException          If the directories could not be read
+     * @throws InterruptedException If the build is aborted
+     */
+    HashMap<String, Long> snapshot() throws IOException, InterruptedException {
+        return cacheRoot.act(new Snapshot(reportDirectories));
+    }
+
+    /**
+     * Stores all files of the report directories which were created or modified since the snapshot and
+     * deletes the entries which were not used for a long time
+     *
+     * @param key      The key of the run
+     * @param snapshot The state of the report directories before the run
+     * @param exitCode The exit code of Ranorex
+     * @return The number of cached files
+     * @throws IOException          If the files could not be copied
+     * @throws InterruptedException If the build is aborted
+     */
+    int store(String key, HashMap<String, Long> snapshot, int exitCode) throws IOException, InterruptedException {
+        return cacheRoot.act(new Store(key, reportDirectories, snapshot, exitCode));
+    }
+
+    private static final class ComputeKey extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+        private final String workingDirectory;
+        private final String executableFile;
+        private final List<String> inputs;
+        private final List<String> arguments;
+
+        ComputeKey(String workingDirectory, String executableFile, List<String> inputs, List<String> arguments) {
+            this.workingDirectory = workingDirectory;
+            this.executableFile = executableFile;
+            this.inputs = inputs;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public String invoke(File workspace, VirtualChannel channel) throws IOException {
+            RunCacheKey key = new RunCacheKey();
+            key.addString("executable", executableFile);
+            key.addBinaries(new File(workingDirectory));
+            for (String input : inputs) {
+                key.addFile(input, new File(workspace, input));
+            }
+            for (String argument : arguments) {
+                key.addString("argument", argument);
+            }
+            return key.toHex();
+        }
+    }
+
+    private static final class Snapshot extends MasterToSlaveFileCallable<HashMap<String, Long>> {
+        private static final long serialVersionUID = 1L;
+        private final List<String> reportDirectories;
+
+        Snapshot(List<String> reportDirectories) {
+            this.reportDirectories = reportDirectories;
+        }
+
+        @Override
+        public HashMap<String, Long> invoke(File cacheRoot, VirtualChannel channel) {
+            HashMap<String, Long> snapshot = new HashMap<>();
+            for (int i = 0; i < reportDirectories.size(); i++) {
+                Map<String, File> files = new HashMap<>();
+                listFiles(new File(reportDirectories.get(i)), "", files);
+                for (Map.Entry<String, File> file : files.entrySet()) {
+                    snapshot.put(i + "/" + file.getKey(), file.getValue().lastModified());
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    private static final class Store extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final String key;
+        private final List<String> reportDirectories;
+        private final HashMap<String, Long> snapshot;
+        private final int exitCode;
+
+        Store(String key, List<String> reportDirectories, HashMap<String, Long> snapshot, int exitCode) {
+            this.key = key;
+            this.reportDirectories = reportDirectories;
+            this.snapshot = snapshot;
+            this.exitCode = exitCode;
+        }
+
+        @Override
+        public Integer invoke(File cacheRoot, VirtualChannel channel) throws IOException {
+            evict(cacheRoot, System.currentTimeMillis());
+            File entry = new File(cacheRoot, key);
+            if (entry.isDirectory()) {
+                return 0;
+            }
+            //Concurrent builds may store the same key, so the entry is written to a temporary directory first
+            File temp = new File(cacheRoot, key + "." + UUID.randomUUID() + ".tmp");
+            if (! temp.mkdirs()) {
+                throw new IOException("Could not create directory " + temp);
+            }
+            int count = 0;
+            try {
+                for (int i = 0; i < reportDirectories.size(); i++) {
+                    Map<String, File> files = new HashMap<>();
+                    listFiles(new File(reportDirectories.get(i)), "", files);
+                    for (Map.Entry<String, File> file : files.entrySet()) {
+                        Long before = snapshot.get(i + "/" + file.getKey());
+                        if (before == null || before != file.getValue().lastModified()) {
+                            copy(file.getValue(), new File(temp, i + File.separator + file.getKey()));
+                            count++;
+                        }
+                    }
+                }
+                Properties result = new Properties();
+                result.setProperty(EXIT_CODE, String.valueOf(exitCode));
+                try (OutputStream out = new FileOutputStream(new File(temp, RESULT_FILE))) {
+                    result.store(out, null);
+                }
+                if (! temp.renameTo(entry)) {
+                    count = 0;
+                }
+            } finally {
+                deleteRecursive(temp);
+            }
+            return count;
+        }
+    }
+
+    private static final class Restore extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final String key;
+        private final List<String> reportDirectories;
+
+        Restore(String key, List<String> reportDirectories) {
+            this.key = key;
+            this.reportDirectories = reportDirectories;
+        }
+
+        @Override
+        public Integer invoke(File cacheRoot, VirtualChannel channel) throws IOException {
+            return restore(cacheRoot, key, reportDirectories);
+        }
+    }
+
+    /**
+     * Copies the cached report files to the report directories. The copies get the current time as modification
+     * time, so they are found as reports of this run even if they replace a report of the same name.
+     *
+     * @param cacheRoot         The directory of the cache
+     * @param key               The key of the run
+     * @param reportDirectories The directories Ranorex writes its reports to
+     * @return The exit code of the cached run or null if the run is not cached
+     * @throws IOException If the files could not be copied
+     */
+    static Integer restore(File cacheRoot, String key, List<String> reportDirectories) throws IOException {
+        File entry = new File(cacheRoot, key);
+        File resultFile = new File(entry, RESULT_FILE);
+        if (! resultFile.isFile()) {
+            return null;
+        }
+        Properties result = new Properties();
+        try (InputStream in = new FileInputStream(resultFile)) {
+            result.load(in);
+        }
+        for (int i = 0; i < reportDirectories.size(); i++) {
+            Map<String, File> files = new HashMap<>();
+            listFiles(new File(entry, String.valueOf(i)), "", files);
+            for (Map.Entry<String, File> file : files.entrySet()) {
+                copy(file.getValue(), new File(reportDirectories.get(i), file.getKey()));
+            }
+        }
+        //Remember the last use, entries which were not used for a long time are evicted
+        entry.setLastModified(System.currentTimeMillis());
+        return Integer.valueOf(result.getProperty(EXIT_CODE, "0"));
+    }
+
+    /**
+     * Deletes the entries which were not stored or restored for {@value #MAX_AGE_DAYS} days
+     *
+     * @param cacheRoot The directory of the cache
+     * @param now       The current time in milliseconds
+     * @return The number of deleted entries
+     */
+    static int evict(File cacheRoot, long now) {
+        File[] entries = cacheRoot.listFiles();
+        if (entries == null) {
+            return 0;
+        }
+        int evicted = 0;
+        for (File entry : entries) {
+            long maxAge = entry.getName().endsWith(".tmp") ? MAX_TEMP_AGE : MAX_AGE;
+            if (now - entry.lastModified() > maxAge) {
+                deleteRecursive(entry);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private static void listFiles(File directory, String prefix, Map<String, File> files) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                listFiles(child, prefix + child.getName() + File.separator, files);
+            } else {
+                files.put(prefix + child.getName(), child);
+            }
+        }
+    }
+
+    private static void copy(File source, File target) throws IOException {
+        File parent = target.getParentFile();
+        if (parent != null && ! parent.isDirectory() && ! parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        //The copy is modified now, the reports of a run are told apart from older ones by their modification time
+        Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void deleteRecursive(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursive(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,366 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.FileUtil;
+import com.ranorex.jenkinsranorexplugin.util.ReportSummary;
+import com.ranorex.jenkinsranorexplugin.util.StringUtil;
+import com.ranorex.jenkinsranorexplugin.util.TestRailPublisher;
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Everything a single execution of the build step resolves at runtime. A new context is created for
+ * every build, so concurrent builds of the same job never share any state. The builder itself only
+ * holds the job configuration.
+ */
+final class RanorexRunContext {
+    private static final String DEFAULT_REPORT_FILE = "%S_%Y%M%D_%T";
+
+    private final Run<?, ?> run;
+    private final FilePath workspace;
+    private final FilePath workingDirectory;
+    private final Launcher launcher;
+    private final TaskListener listener;
+    private final EnvVars env;
+    private final String workSpace;
+    private final String executableFile;
+    private final List<String> runConfigurations;
+    private final String reportDirectory;
+    private final String reportFile;
+    private final String reportExtension;
+    private final String zippedReportDirectory;
+    private final String zippedReportFile;
+    private final List<String> reportDirectories;
+    private final RanorexProgressAction progress;
+    private final RanorexRunCache runCache;
+    private final ReportSummary stepResults = new ReportSummary();
+    private final LinkedHashMap<String, List<String>> runReports = new LinkedHashMap<>();
+    private volatile RanorexReportCollector reportCollector;
+    private volatile TestRailPublisher testRailPublisher;
+    private FilePath parameterFile;
+
+    /**
+     * Resolves the working directory, the report locations and the test exe file for the current build
+     *
+     * @param builder           The configuration of the build step
+     * @param runConfigurations The run configurations in the order they should be executed
+     * @param run               The current build
+     * @param workspace         The workspace of the build
+     * @param launcher          Starts a process
+     * @param listener          Receives events that happen during a build
+     * @throws IOException          If the configured report file names are not valid
+     * @throws InterruptedException If the build is aborted while reading the environment
+     */
+    RanorexRunContext(RanorexRunnerBuilder builder, List<String> runConfigurations, Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener) throws IOException, InterruptedException {
+        this(builder, runConfigurations, run, workspace, launcher, listener, run.getEnvironment(listener));
+    }
+
+    /**
+     * Resolves the working directory, the report locations and the test exe file without a build, so the
+     * command line of a build step can be assembled outside of Jenkins, e.g. in a benchmark
+     *
+     * @param builder           The configuration of the build step
+     * @param runConfigurations The run configurations in the order they should be executed
+     * @param workspace         The workspace of the build
+     * @param listener          Receives the messages of the build step
+     * @throws IOException          If the configured report file names are not valid
+     * @throws InterruptedException If the thread is interrupted
+     */
+    RanorexRunContext(RanorexRunnerBuilder builder, List<String> runConfigurations, FilePath workspace, TaskListener listener) throws IOException, InterruptedException {
+        this(builder, runConfigurations, null, workspace, null, listener, new EnvVars());
+    }
+
+    private RanorexRunContext(RanorexRunnerBuilder builder, List<String> runConfigurations, Run<?, ?> run, FilePath workspace, Launcher launcher, TaskListener listener, EnvVars env) throws IOException, InterruptedException {
+        this.run = run;
+        this.workspace = workspace;
+        this.launcher = launcher;
+        this.listener = listener;
+        this.env = env;
+        this.runConfigurations = Collections.unmodifiableList(runConfigurations);
+        this.workingDirectory = FileUtil.getRanorexWorkingDirectory(workspace, builder.getRxTestSuiteFilePath());
+        this.workSpace = StringUtil.appendBackslash(workingDirectory.getRemote());
+        this.executableFile = FileUtil.getExecutableFromTestSuite(builder.getRxTestSuiteFilePath());
+        PrintStream logger = listener.getLogger();
+
+        // Ranorex Reportdirectory
+        String usedReportDirectory;
+        if (! StringUtil.isNullOrSpace(builder.getRxReportDirectory())) {
+            logger.println("Reportpath to merge. Base: " + workSpace + " Relative: " + builder.getRxReportDirectory());
+            usedReportDirectory = FileUtil.getAbsoluteReportDirectory(workSpace, builder.getRxReportDirectory());
+            logger.println("Merged path: " + usedReportDirectory);
+        } else {
+            usedReportDirectory = workSpace;
+        }
+        this.reportDirectory = StringUtil.appendBackslash(usedReportDirectory);
+
+        // ReportFilename
+        this.reportFile = resolveReportFile(builder.getRxReportFile(), DEFAULT_REPORT_FILE);
+        this.reportExtension = builder.getRxReportExtension();
+
+        // Compressed copy of Ranorex report
+        if (builder.getRxZippedReport()) {
+            // Zipped Ranorex Reportdirectory
+            String usedZippedReportDirectory;
+            if (! StringUtil.isNullOrSpace(builder.getRxZippedReportDirectory())) {
+                usedZippedReportDirectory = FileUtil.getAbsoluteReportDirectory(workSpace, builder.getRxZippedReportDirectory());
+            } else {
+                usedZippedReportDirectory = workSpace;
+            }
+            this.zippedReportDirectory = StringUtil.appendBackslash(usedZippedReportDirectory);
+            // Zipped Report File Name
+            this.zippedReportFile = resolveReportFile(builder.getRxZippedReportFile(), reportFile);
+        } else {
+            this.zippedReportDirectory = null;
+            this.zippedReportFile = null;
+        }
+        List<String> directories = new ArrayList<>();
+        directories.add(reportDirectory);
+        if (zippedReportDirectory != null && ! zippedReportDirectory.equals(reportDirectory)) {
+            directories.add(zippedReportDirectory);
+        }
+        this.reportDirectories = Collections.unmodifiableList(directories);
+
+        // Without a build only the paths are resolved
+        if (run == null) {
+            this.progress = null;
+            this.runCache = null;
+            return;
+        }
+
+        // Several Ranorex build steps in one build share the progress view
+        RanorexProgressAction existingProgress = run.getAction(RanorexProgressAction.class);
+        if (existingProgress == null) {
+            existingProgress = new RanorexProgressAction();
+            run.addAction(existingProgress);
+        }
+        this.progress = existingProgress;
+
+        // Run cache
+        if (builder.getRxRunCache()) {
+            this.runCache = RanorexRunCache.create(workspace, workingDirectory, executableFile, builder.getRxRunCacheInputs(), reportDirectories);
+            if (runCache == null) {
+                logger.println("The root directory of the agent is not known, the run cache is not used");
+            }
+        } else {
+            this.runCache = null;
+        }
+    }
+
+    private static String resolveReportFile(String configuredFile, String defaultFile) throws AbortException {
+        if (StringUtil.isNullOrSpace(configuredFile)) {
+            return defaultFile;
+        }
+        if (FileUtil.isAbsolutePath(configuredFile)) {
+            throw new AbortException("'" + configuredFile + "' is not a valid Ranorex Report filename");
+        }
+        return FileUtil.removeFileExtension(configuredFile);
+    }
+
+    /**
+     * Appends the run configuration to a report file name if several run configurations are executed,
+     * so they do not overwrite each others report
+     *
+     * @param fileName         The report file name without extension
+     * @param runConfiguration The run configuration or null
+     * @return The file name to use for the given run configuration
+     */
+    String getReportFileName(String fileName, String runConfiguration) {
+        if (runConfigurations.size() > 1 && ! StringUtil.isNullOrSpace(runConfiguration)) {
+            return fileName + "_" + FileUtil.toValidFileName(runConfiguration);
+        }
+        return fileName;
+    }
+
+    Run<?, ?> getRun() {
+        return run;
+    }
+
+    FilePath getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * @return The directory containing the Ranorex test suite, used as working directory of the test exe file
+     */
+    FilePath getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    Launcher getLauncher() {
+        return launcher;
+    }
+
+    TaskListener getListener() {
+        return listener;
+    }
+
+    PrintStream getLogger() {
+        return listener.getLogger();
+    }
+
+    EnvVars getEnv() {
+        return env;
+    }
+
+    /**
+     * @return The remote path of the working directory, ending with a backslash
+     */
+    String getWorkSpace() {
+        return workSpace;
+    }
+
+    String getExecutableFile() {
+        return executableFile;
+    }
+
+    /**
+     * @return The full path of the test exe file in the working directory
+     */
+    String getExecutablePath() {
+        return workSpace + executableFile;
+    }
+
+    List<String> getRunConfigurations() {
+        return runConfigurations;
+    }
+
+    String getReportDirectory() {
+        return reportDirectory;
+    }
+
+    String getReportFile() {
+        return reportFile;
+    }
+
+    /**
+     * @return The extension of the Ranorex report without the dot
+     */
+    String getReportExtension() {
+        return reportExtension;
+    }
+
+    String getZippedReportDirectory() {
+        return zippedReportDirectory;
+    }
+
+    /**
+     * @return The report directory, followed by the directory of the compressed report if it is a different one
+     */
+    List<String> getReportDirectories() {
+        return reportDirectories;
+    }
+
+    String getZippedReportFile() {
+        return zippedReportFile;
+    }
+
+    /**
+     * @return The live test case progress of the build
+     */
+    RanorexProgressAction getProgress() {
+        return progress;
+    }
+
+    /**
+     * @return The merged results of the reruns of failed test cases, added to the build on first use
+     */
+    synchronized RanorexRerunAction getReruns() {
+        RanorexRerunAction reruns = run.getAction(RanorexRerunAction.class);
+        if (reruns == null) {
+            reruns = new RanorexRerunAction();
+            run.addAction(reruns);
+        }
+        return reruns;
+    }
+
+    /**
+     * @return The test case results of this build step only, the summary action of the build may contain
+     * the results of other build steps too
+     */
+    ReportSummary getStepResults() {
+        return stepResults;
+    }
+
+    /**
+     * @return The summary of the Ranorex reports, added to the build on first use
+     */
+    synchronized RanorexReportSummaryAction getReportSummary() {
+        RanorexReportSummaryAction summary = run.getAction(RanorexReportSummaryAction.class);
+        if (summary == null) {
+            summary = new RanorexReportSummaryAction(reportDirectory);
+            run.addAction(summary);
+        }
+        return summary;
+    }
+
+    /**
+     * @return The run cache or null if it is disabled
+     */
+    RanorexRunCache getRunCache() {
+        return runCache;
+    }
+
+    /**
+     * @return The collector archiving the report files while Ranorex is running or null if the report is not archived
+     */
+    RanorexReportCollector getReportCollector() {
+        return reportCollector;
+    }
+
+    void setReportCollector(RanorexReportCollector reportCollector) {
+        this.reportCollector = reportCollector;
+    }
+
+    /**
+     * @return The publisher sending the results to TestRail in the background or null if Ranorex publishes them
+     */
+    TestRailPublisher getTestRailPublisher() {
+        return testRailPublisher;
+    }
+
+    void setTestRailPublisher(TestRailPublisher testRailPublisher) {
+        this.testRailPublisher = testRailPublisher;
+    }
+
+    /**
+     * @return The names of the reports of every run configuration of this build step, in the order they were written
+     */
+    LinkedHashMap<String, List<String>> getRunReports() {
+        return runReports;
+    }
+
+    /**
+     * @param runConfiguration The run configuration which was executed or null
+     * @param reports          The names of the reports of the run configuration including its reruns
+     */
+    void addRunReports(String runConfiguration, List<String> reports) {
+        String group = runConfiguration == null ? "" : runConfiguration;
+        List<String> groupReports = runReports.get(group);
+        if (groupReports == null) {
+            groupReports = new ArrayList<>();
+            runReports.put(group, groupReports);
+        }
+        groupReports.addAll(reports);
+    }
+
+    /**
+     * @return The file with the global parameters of this build step or null if they are passed on the command line
+     */
+    FilePath getParameterFile() {
+        return parameterFile;
+    }
+
+    void setParameterFile(FilePath parameterFile) {
+        this.parameterFile = parameterFile;
+    }
+}
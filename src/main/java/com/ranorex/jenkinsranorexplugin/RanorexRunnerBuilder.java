@@ -1,34 +1,55 @@
 package com.ranorex.jenkinsranorexplugin;
 
-import com.ranorex.jenkinsranorexplugin.util.CmdArgument;
+import com.ranorex.jenkinsranorexplugin.util.ExecutionWatchdog;
+import com.ranorex.jenkinsranorexplugin.util.FailFastPolicy;
 import com.ranorex.jenkinsranorexplugin.util.FileUtil;
-import com.ranorex.jenkinsranorexplugin.util.RanorexParameter;
+import com.ranorex.jenkinsranorexplugin.util.RanorexCommandPlan;
+import com.ranorex.jenkinsranorexplugin.util.ReportSummary;
 import com.ranorex.jenkinsranorexplugin.util.StringUtil;
-import hudson.EnvVars;
+import com.ranorex.jenkinsranorexplugin.util.TestRailClient;
+import com.ranorex.jenkinsranorexplugin.util.TestRailPublisher;
+import com.ranorex.jenkinsranorexplugin.util.WindowsCommandLine;
+import hudson.AbortException;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
-import hudson.model.AbstractBuild;
+import hudson.Proc;
+import hudson.Util;
 import hudson.model.AbstractProject;
-import hudson.model.BuildListener;
 import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
 import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Builder;
 import hudson.util.ArgumentListBuilder;
 import hudson.util.FormValidation;
+import jenkins.tasks.SimpleBuildStep;
 import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 
+import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 
-public class RanorexRunnerBuilder extends Builder {
+public class RanorexRunnerBuilder extends Builder implements SimpleBuildStep {
 
-    private static final String ZIPPED_REPORT_EXTENSION = ".rxzlog";
+    static final String ZIPPED_REPORT_EXTENSION = ".rxzlog";
     private static final String ARGUMENT_SEPARATOR = "\t\r\n;";
-    private static PrintStream LOGGER;
+    private static final long POLL_INTERVAL = 1000;
+    private static final int MAX_RERUN_PASSES = 2;
+    private static final int MAX_RERUN_TEST_CASES = 50;
+    private static final long TESTRAIL_PUBLISH_TIMEOUT = 10 * 60 * 1000L;
+    static final String PARAMETER_FILE_PARAMETER = "RanorexParameterFile";
+    static final String MERGED_REPORT_PREFIX = "RanorexMerged_";
     /*
      * Builder GUI Fields
      */
@@ -48,24 +69,33 @@ public class RanorexRunnerBuilder extends Builder {
     private final String rxTestRailPassword;
     private final String rxTestRailRID;
     private final String rxTestRailRunName;
-
     /*
-     * Other Variables
+     * Optional settings, not part of the constructor so existing Pipeline scripts keep working
      */
-    private String rxExecuteableFile;
-    private String WorkSpace;
-    private String usedRxReportDirectory;
-    private String usedRxReportFile;
-    private String usedRxZippedReportDirectory;
-    private String usedRxZippedReportFile;
-    private ArgumentListBuilder jArguments;
+    private int rxFailFastCount;
+    private int rxFailFastPercentage;
+    private int rxFailFastWindow;
+    private int rxTimeout;
+    private int rxInactivityTimeout;
+    private boolean rxRunCache;
+    private String rxRunCacheInputs = "";
+    private int rxRerunFailed;
+    private boolean rxDirectLaunch;
+    private boolean rxParameterFile;
+    private boolean rxArchiveReport;
+    private boolean rxCompressReport;
+    private boolean rxMergeReports;
+    private String rxTestRailUrl = "";
+
+    private transient volatile RanorexCommandPlan commandPlan;
 
     /**
      * When this builder is created in the project configuration step, the
-     * builder object will be created from the strings below
+     * builder object will be created from the strings below. In a Pipeline
+     * all arguments except the test suite file may be omitted.
      *
      * @param rxTestSuiteFilePath     The name/location of the Ranorex Test Suite / Ranorex Test Exe File
-     * @param rxRunConfiguration      The Ranorex Run configuration which will be executed
+     * @param rxRunConfiguration      The Ranorex Run configurations which will be executed, separated by semicolon or newline
      * @param rxReportDirectory       The directory where the Ranorex Report should be saved
      * @param rxReportFile            The name of the Ranorex Report
      * @param rxReportExtension       The extension of your Ranorex Report
@@ -77,25 +107,24 @@ public class RanorexRunnerBuilder extends Builder {
      * @param cmdLineArgs             Additional CMD line arguments
      */
     @DataBoundConstructor
-
     public RanorexRunnerBuilder(String rxTestSuiteFilePath, String rxRunConfiguration, String rxReportDirectory, String rxReportFile, String rxReportExtension, Boolean rxJUnitReport, Boolean rxZippedReport, String rxZippedReportDirectory, String rxZippedReportFile, Boolean rxTestRail, String rxTestRailUser, String rxTestRailPassword, String rxTestRailRID, String rxTestRailRunName, String rxGlobalParameter, String cmdLineArgs) {
-        this.rxTestSuiteFilePath = rxTestSuiteFilePath.trim();
-        this.rxRunConfiguration = rxRunConfiguration.trim();
-        this.rxReportDirectory = rxReportDirectory.trim();
-        this.rxReportFile = rxReportFile.trim();
-        this.rxReportExtension = rxReportExtension.trim();
-        this.rxJUnitReport = rxJUnitReport;
-        this.rxZippedReport = rxZippedReport;
-        this.rxZippedReportDirectory = rxZippedReportDirectory.trim();
-        this.rxZippedReportFile = rxZippedReportFile.trim();
-        this.rxTestRail = rxTestRail;
-        this.rxTestRailUser = rxTestRailUser.trim();
-        this.rxTestRailPassword = rxTestRailPassword.trim();
-        this.rxTestRailRID = rxTestRailRID.trim();
-        this.rxTestRailRunName = rxTestRailRunName.trim();
-        this.rxGlobalParameter = rxGlobalParameter.trim();
-        this.cmdLineArgs = cmdLineArgs.trim();
-
+        this.rxTestSuiteFilePath = Util.fixNull(rxTestSuiteFilePath).trim();
+        this.rxRunConfiguration = Util.fixNull(rxRunConfiguration).trim();
+        this.rxReportDirectory = Util.fixNull(rxReportDirectory).trim();
+        this.rxReportFile = Util.fixNull(rxReportFile).trim();
+        this.rxReportExtension = StringUtil.isNullOrSpace(rxReportExtension) ? "rxlog" : rxReportExtension.trim();
+        this.rxJUnitReport = Boolean.TRUE.equals(rxJUnitReport);
+        this.rxZippedReport = Boolean.TRUE.equals(rxZippedReport);
+        this.rxZippedReportDirectory = Util.fixNull(rxZippedReportDirectory).trim();
+        this.rxZippedReportFile = Util.fixNull(rxZippedReportFile).trim();
+        this.rxTestRail = Boolean.TRUE.equals(rxTestRail);
+        this.rxTestRailUser = Util.fixNull(rxTestRailUser).trim();
+        this.rxTestRailPassword = Util.fixNull(rxTestRailPassword).trim();
+        this.rxTestRailRID = Util.fixNull(rxTestRailRID).trim();
+        this.rxTestRailRunName = Util.fixNull(rxTestRailRunName).trim();
+        this.rxGlobalParameter = Util.fixNull(rxGlobalParameter).trim();
+        this.cmdLineArgs = Util.fixNull(cmdLineArgs).trim();
+        this.commandPlan = new RanorexCommandPlan(this.rxGlobalParameter, this.cmdLineArgs, ARGUMENT_SEPARATOR);
     }
 
     public String getRxTestSuiteFilePath() {
@@ -162,230 +191,924 @@ public class RanorexRunnerBuilder extends Builder {
         return this.cmdLineArgs;
     }
 
-    // public String getRxExecuteableFile()
-    // {
-    // return this.rxExecuteableFile;
-    // }
+    public int getRxFailFastCount() {
+        return this.rxFailFastCount;
+    }
+
+    /**
+     * @param rxFailFastCount The number of failed test cases after which Ranorex is stopped, 0 to disable
+     */
+    @DataBoundSetter
+    public void setRxFailFastCount(int rxFailFastCount) {
+        this.rxFailFastCount = Math.max(0, rxFailFastCount);
+    }
+
+    public int getRxFailFastPercentage() {
+        return this.rxFailFastPercentage;
+    }
+
+    /**
+     * @param rxFailFastPercentage The percentage of failed test cases within the window after which Ranorex is stopped, 0 to disable
+     */
+    @DataBoundSetter
+    public void setRxFailFastPercentage(int rxFailFastPercentage) {
+        this.rxFailFastPercentage = Math.max(0, Math.min(100, rxFailFastPercentage));
+    }
+
+    public int getRxFailFastWindow() {
+        return this.rxFailFastWindow;
+    }
+
+    /**
+     * @param rxFailFastWindow The number of most recently completed test cases the percentage is calculated on, at most 10000
+     */
+    @DataBoundSetter
+    public void setRxFailFastWindow(int rxFailFastWindow) {
+        this.rxFailFastWindow = Math.max(0, Math.min(FailFastPolicy.MAX_WINDOW, rxFailFastWindow));
+    }
+
+    public int getRxTimeout() {
+        return this.rxTimeout;
+    }
+
+    /**
+     * @param rxTimeout The maximum duration of a Ranorex run in minutes, 0 to disable
+     */
+    @DataBoundSetter
+    public void setRxTimeout(int rxTimeout) {
+        this.rxTimeout = Math.max(0, rxTimeout);
+    }
+
+    public int getRxInactivityTimeout() {
+        return this.rxInactivityTimeout;
+    }
+
+    /**
+     * @param rxInactivityTimeout The maximum time in minutes Ranorex may run without writing any output, 0 to disable
+     */
+    @DataBoundSetter
+    public void setRxInactivityTimeout(int rxInactivityTimeout) {
+        this.rxInactivityTimeout = Math.max(0, rxInactivityTimeout);
+    }
+
+    public boolean getRxRunCache() {
+        return this.rxRunCache;
+    }
+
+    /**
+     * @param rxRunCache If true, the results of runs with unchanged test exe file, inputs and arguments are reused
+     */
+    @DataBoundSetter
+    public void setRxRunCache(boolean rxRunCache) {
+        this.rxRunCache = rxRunCache;
+    }
+
+    public boolean getRxArchiveReport() {
+        return this.rxArchiveReport;
+    }
+
+    /**
+     * @param rxArchiveReport If true, the report files are archived in the deduplicating blob store of the job
+     */
+    @DataBoundSetter
+    public void setRxArchiveReport(boolean rxArchiveReport) {
+        this.rxArchiveReport = rxArchiveReport;
+    }
+
+    public boolean getRxCompressReport() {
+        return this.rxCompressReport;
+    }
+
+    /**
+     * @param rxCompressReport If true, the plugin creates the compressed report while Ranorex is running
+     *                         instead of Ranorex at the end of the run
+     */
+    @DataBoundSetter
+    public void setRxCompressReport(boolean rxCompressReport) {
+        this.rxCompressReport = rxCompressReport;
+    }
+
+    public String getRxTestRailUrl() {
+        return this.rxTestRailUrl;
+    }
+
+    /**
+     * @param rxTestRailUrl The address of TestRail the plugin publishes the results to after every run, empty to
+     *                      let Ranorex publish them during the test
+     */
+    @DataBoundSetter
+    public void setRxTestRailUrl(String rxTestRailUrl) {
+        this.rxTestRailUrl = Util.fixNull(rxTestRailUrl).trim();
+    }
+
+    public boolean getRxMergeReports() {
+        return this.rxMergeReports;
+    }
+
+    /**
+     * @param rxMergeReports If true, the reports of all run configurations and reruns are merged into one JUnit report
+     */
+    @DataBoundSetter
+    public void setRxMergeReports(boolean rxMergeReports) {
+        this.rxMergeReports = rxMergeReports;
+    }
+
+    public String getRxRunCacheInputs() {
+        return this.rxRunCacheInputs;
+    }
+
+    /**
+     * @param rxRunCacheInputs Ant patterns of additional files the test result depends on, relative to the workspace
+     */
+    @DataBoundSetter
+    public void setRxRunCacheInputs(String rxRunCacheInputs) {
+        this.rxRunCacheInputs = Util.fixNull(rxRunCacheInputs).trim();
+    }
+
+    public int getRxRerunFailed() {
+        return this.rxRerunFailed;
+    }
+
+    /**
+     * @param rxRerunFailed How often failed test cases are executed again, 0 to disable, at most 2
+     */
+    @DataBoundSetter
+    public void setRxRerunFailed(int rxRerunFailed) {
+        this.rxRerunFailed = Math.max(0, Math.min(MAX_RERUN_PASSES, rxRerunFailed));
+    }
+
+    public boolean getRxDirectLaunch() {
+        return this.rxDirectLaunch;
+    }
+
+    /**
+     * @param rxDirectLaunch If true, the test exe file is started directly instead of through cmd.exe
+     */
+    @DataBoundSetter
+    public void setRxDirectLaunch(boolean rxDirectLaunch) {
+        this.rxDirectLaunch = rxDirectLaunch;
+    }
+
+    public boolean getRxParameterFile() {
+        return this.rxParameterFile;
+    }
+
+    /**
+     * @param rxParameterFile If true, the global parameters are passed in a file if the command line is too long
+     */
+    @DataBoundSetter
+    public void setRxParameterFile(boolean rxParameterFile) {
+        this.rxParameterFile = rxParameterFile;
+    }
+
 
 
     /**
      * Runs the step over the given build and reports the progress to the
-     * listener
+     * listener. Used by freestyle jobs as well as by Pipeline jobs.
      *
-     * @param build
-     * @param launcher Starts a process
-     * @param listener Receives events that happen during a build
-     * @return Receives events that happen during a build
-     * @throws IOException          - If the build is interrupted by the user (in an
-     *                              attempt to abort the build.) Normally the BuildStep implementations may
-     *                              simply forward the exception it got from its lower-level functions.
-     * @throws InterruptedException - If the implementation wants to abort the
-     *                              processing when an IOException happens, it can simply propagate the
-     *                              exception to the caller. This will cause the build to fail, with the
-     *                              default error message. Implementations are encouraged to catch
-     *                              IOException on its own to provide a better error message, if it can do
-     *                              so, so that users have better understanding on why it failed.
+     * @param run       The current build
+     * @param workspace The workspace of the build on the node executing the step
+     * @param launcher  Starts a process
+     * @param listener  Receives events that happen during a build
+     * @throws IOException          If the configuration is not valid or the test exe file could not be started.
+     *                              An AbortException is used for invalid configurations to fail the build
+     *                              with a message instead of a stack trace.
+     * @throws InterruptedException If the build is aborted by the user while Ranorex is running
      */
     @Override
-    public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException {
-        jArguments = new ArgumentListBuilder("cmd.exe", "/C");
-        WorkSpace = FileUtil.getRanorexWorkingDirectory(build.getWorkspace(), rxTestSuiteFilePath).getRemote();
-        WorkSpace = StringUtil.appendBackslash(WorkSpace);
-        LOGGER = listener.getLogger();
-        EnvVars env = build.getEnvironment(listener);
-        boolean r = false;
-
-        if (! StringUtil.isNullOrSpace(rxTestSuiteFilePath)) {
-            rxExecuteableFile = FileUtil.getExecutableFromTestSuite(rxTestSuiteFilePath);
-            jArguments.add(rxExecuteableFile);
-            // Ranorex Run Configuration
-            if (! StringUtil.isNullOrSpace(rxRunConfiguration)) {
-                jArguments.add("/runconfig:" + rxRunConfiguration);
-            }
-
-            // Ranorex Reportdirectory
-            if (! StringUtil.isNullOrSpace(rxReportDirectory)) {
-                LOGGER.println("Reportpath to merge. Base: " + WorkSpace + " Relative: " + rxReportDirectory);
-                usedRxReportDirectory = FileUtil.getAbsoluteReportDirectory(WorkSpace, rxReportDirectory);
-                LOGGER.println("Merged path: " + usedRxReportDirectory);
+    public void perform(@Nonnull Run<?, ?> run, @Nonnull FilePath workspace, @Nonnull Launcher launcher, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        if (StringUtil.isNullOrSpace(rxTestSuiteFilePath)) {
+            throw new AbortException("No TestSuite file given");
+        }
+        //Test Rail
+        if (rxTestRail && (StringUtil.isNullOrSpace(rxTestRailUser) || StringUtil.isNullOrSpace(rxTestRailPassword))) {
+            throw new AbortException("Testrail username and password are required");
+        }
+        if (isPublishingToTestRail() && StringUtil.isNullOrSpace(rxTestRailRID)) {
+            throw new AbortException("A Testrail run ID is required to publish the results from the plugin");
+        }
+
+        // Ranorex Run Configurations, the test suite is executed once for each of them
+        List<String> runConfigurations = StringUtil.splitBy(rxRunConfiguration, ARGUMENT_SEPARATOR);
+        RanorexRunContext context = new RanorexRunContext(this, runConfigurations, run, workspace, launcher, listener);
+        if (isPublishingToTestRail()) {
+            context.setTestRailPublisher(new TestRailPublisher(new TestRailClient(rxTestRailUrl, rxTestRailUser, rxTestRailPassword), rxTestRailRID));
+        }
+
+        // Summarize Output
+        if (getDescriptor().isUseSummarize()) {
+            printSummary(context);
+        }
+
+        // Check the agent in a single call before Ranorex is started
+        runPreflight(context);
+
+        if (rxArchiveReport) {
+            context.setReportCollector(new RanorexReportCollector(context, RanorexReportArchive.startHashing(context)));
+        }
+        long start = System.currentTimeMillis();
+        RanorexDurationAction durations = new RanorexDurationAction();
+        boolean finished = false;
+        try {
+            if (runConfigurations.isEmpty()) {
+                runTests(context, null); // Start the given exe file with all arguments added before
             } else {
-                usedRxReportDirectory = WorkSpace;
+                /*Every run configuration gets its own Ranorex process and report. The exit codes
+                are merged into the build result, so one failing run configuration fails the build*/
+                run.addAction(durations);
+                for (String runConfiguration : runConfigurations) {
+                    context.getLogger().println("Starting run configuration '" + runConfiguration + "'");
+                    long runStart = System.currentTimeMillis();
+                    boolean completed = runTests(context, runConfiguration);
+                    durations.addDuration(runConfiguration, System.currentTimeMillis() - runStart);
+                    if (! completed) {
+                        context.getLogger().println("Skipping the remaining run configurations");
+                        break;
+                    }
+                }
             }
-            usedRxReportDirectory = StringUtil.appendBackslash(usedRxReportDirectory);
+            finished = true;
+        } finally {
+            deleteParameterFile(context);
+            if (! finished && context.getTestRailPublisher() != null) {
+                //The results published so far stay in TestRail, the workers must not outlive the build step
+                context.getTestRailPublisher().cancel();
+            }
+        }
+        recordHistory(context);
+        recordTrend(context, System.currentTimeMillis() - start, durations);
+        if (rxMergeReports) {
+            mergeReports(context);
+        }
+        if (context.getTestRailPublisher() != null) {
+            finishTestRail(context);
+        }
+        if (context.getReportCollector() != null) {
+            try {
+                context.getReportCollector().archive();
+            } catch (IOException e) {
+                context.getLogger().println("The Ranorex report could not be archived: " + e.getMessage());
+            }
+        }
+    }
 
-            // ReportFilename
-            if (! StringUtil.isNullOrSpace(rxReportFile)) {
-                if (! FileUtil.isAbsolutePath(rxReportFile)) {
-                    usedRxReportFile = FileUtil.removeFileExtension(rxReportFile);
-                } else {
-                    LOGGER.println("'" + rxReportFile + "' is not a valid Ranorex Report filename");
-                    return false;
+    /**
+     * Every build step is independent of the previous build, so concurrent builds
+     * of the same job do not have to wait for each other
+     */
+    @Override
+    public BuildStepMonitor getRequiredMonitorService() {
+        return BuildStepMonitor.NONE;
+    }
+
+    /**
+     * Appends the test case results of this build step to the test history of the job
+     *
+     * @param context The current execution
+     */
+    private void recordHistory(RanorexRunContext context) {
+        ReportSummary results = context.getStepResults();
+        if (results.getTotal() == 0) {
+            return;
+        }
+        Run<?, ?> run = context.getRun();
+        try {
+            RanorexTestHistoryAction.getIndex(run.getParent()).append(run.getNumber(), run.getTimeInMillis(), results);
+        } catch (IOException e) {
+            context.getLogger().println("The test history could not be updated: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds this build step to the trend of the job
+     *
+     * @param context   The current execution
+     * @param duration  The duration of all Ranorex runs in milliseconds
+     * @param durations The durations of the run configurations
+     */
+    private void recordTrend(RanorexRunContext context, long duration, RanorexDurationAction durations) {
+        ReportSummary results = context.getStepResults();
+        Run<?, ?> run = context.getRun();
+        try {
+            RanorexTrendAction.getTrend(run.getParent()).addBuild(run.getNumber(), results.getPassed(), results.getFailed(),
+                    results.getSkipped(), duration, durations.getDurations());
+        } catch (IOException e) {
+            context.getLogger().println("The Ranorex trend could not be updated: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if the plugin publishes the results to TestRail instead of Ranorex
+     */
+    private boolean isPublishingToTestRail() {
+        return rxTestRail && ! StringUtil.isNullOrSpace(rxTestRailUrl);
+    }
+
+    /**
+     * Waits until the results queued after every run are published to TestRail
+     *
+     * @param context The current execution
+     * @throws InterruptedException If the build is aborted while waiting
+     */
+    private void finishTestRail(RanorexRunContext context) throws InterruptedException {
+        TestRailPublisher publisher = context.getTestRailPublisher();
+        publisher.finish(TESTRAIL_PUBLISH_TIMEOUT);
+        PrintStream logger = context.getLogger();
+        logger.println("Published " + publisher.getPublished() + " results to TestRail run " + rxTestRailRID);
+        if (publisher.getWithoutCaseId() > 0) {
+            logger.println(publisher.getWithoutCaseId() + " test cases have no TestRail case ID like C1234 in their name and were not published");
+        }
+        for (String error : publisher.getErrors()) {
+            logger.println("TestRail: " + error);
+        }
+    }
+
+    /**
+     * Merges the reports of all run configurations and reruns of this build step into one JUnit report in the
+     * report directory. The reports are streamed on the agent, so only the summary is sent to the controller.
+     *
+     * @param context The current execution
+     * @throws InterruptedException If the build is aborted
+     */
+    private void mergeReports(RanorexRunContext context) throws InterruptedException {
+        if (context.getRunReports().isEmpty()) {
+            return;
+        }
+        String mergedReport = MERGED_REPORT_PREFIX + context.getRun().getNumber() + ".xml";
+        ReportSummary summary;
+        try {
+            summary = RanorexReportFiles.merge(context.getWorkingDirectory(), context.getReportDirectory(), context.getRunReports(), mergedReport);
+        } catch (IOException e) {
+            context.getLogger().println("The Ranorex reports could not be merged: " + e.getMessage());
+            return;
+        }
+        context.getLogger().println("Merged JUnit report '" + mergedReport + "': " + summary.getPassed() + " passed, "
+                + summary.getFailed() + " failed, " + summary.getSkipped() + " skipped");
+    }
+
+    /**
+     * Prints all entered and resolved settings to the console output
+     *
+     * @param context The current execution
+     */
+    private void printSummary(RanorexRunContext context) {
+        PrintStream logger = context.getLogger();
+        logger.println("\n*************Start of Ranorex Summary*************");
+        logger.println("Current Plugin version:\t\t" + getClass().getPackage().getImplementationVersion());
+        logger.println("Ranorex Working Directory:\t" + context.getWorkSpace());
+        logger.println("Ranorex test suite file:\t" + rxTestSuiteFilePath);
+        logger.println("Ranorex test exe file:\t\t" + context.getExecutableFile());
+        logger.println("Start without cmd.exe:\t\t" + rxDirectLaunch);
+        logger.println("Parameter file if too long:\t" + rxParameterFile);
+        logger.println("Ranorex run configuration:\t" + StringUtil.join(context.getRunConfigurations(), ", "));
+        logger.println("Ranorex report directory:\t" + context.getReportDirectory());
+        logger.println("Ranorex report filename:\t" + context.getReportFile());
+        logger.println("Ranorex report extension:\t" + rxReportExtension);
+        logger.println("Junit-compatible report:\t" + (rxJUnitReport || rxRerunFailed > 0));
+        logger.println("Ranorex report compression:\t" + rxZippedReport);
+        if (rxZippedReport) {
+            logger.println("\tRanorex zipped report dir:\t" + context.getZippedReportDirectory());
+            logger.println("\tRanorex zipped report file:\t" + context.getZippedReportFile());
+            logger.println("\tCompressed by the plugin:\t" + rxCompressReport);
+        }
+        if (rxFailFastCount > 0 || rxFailFastPercentage > 0) {
+            logger.println("Fail fast after failed tests:\t" + (rxFailFastCount > 0 ? String.valueOf(rxFailFastCount) : "-"));
+            logger.println("Fail fast failure percentage:\t" + (rxFailFastPercentage > 0 ? rxFailFastPercentage + "% of the last " + (rxFailFastWindow > 0 ? rxFailFastWindow : FailFastPolicy.DEFAULT_WINDOW) + " tests" : "-"));
+        }
+        if (rxTimeout > 0 || rxInactivityTimeout > 0) {
+            logger.println("Ranorex timeout:\t\t" + (rxTimeout > 0 ? rxTimeout + " minutes" : "-"));
+            logger.println("Ranorex inactivity timeout:\t" + (rxInactivityTimeout > 0 ? rxInactivityTimeout + " minutes" : "-"));
+        }
+        logger.println("Rerun failed test cases:\t" + rxRerunFailed);
+        logger.println("Archive Ranorex report:\t\t" + rxArchiveReport);
+        logger.println("Merge Ranorex reports:\t\t" + rxMergeReports);
+        logger.println("Ranorex run cache:\t\t" + rxRunCache);
+        if (rxRunCache && ! StringUtil.isNullOrSpace(rxRunCacheInputs)) {
+            logger.println("\tRanorex run cache inputs:\t" + rxRunCacheInputs);
+        }
+        logger.println("Ranorex Test Rail Integration:\t" + rxTestRail);
+        if (rxTestRail) {
+            logger.println("\tRanorex Test Rail User:\t\t" + rxTestRailUser);
+            logger.println("\tRanorex Test Rail Password:\t" + "*****************");
+            logger.println("\tRanorex Test Rail Run ID:\t" + rxTestRailRID);
+            logger.println("\tRanorex Test Rail Run Name:\t" + rxTestRailRunName);
+            logger.println("\tPublished by the plugin to:\t" + (isPublishingToTestRail() ? rxTestRailUrl : "-"));
+        }
+        RanorexCommandPlan commandPlan = getCommandPlan();
+        logger.println("Ranorex global parameters:");
+        if (commandPlan.getGlobalParameters().isEmpty() && commandPlan.getIgnoredGlobalParameters().isEmpty()) {
+            logger.println("\t*No global parameters entered");
+        }
+        for (String param : commandPlan.getGlobalParameters()) {
+            logger.println("\t*" + param);
+        }
+        for (String param : commandPlan.getIgnoredGlobalParameters()) {
+            logger.println("\t!" + param + " will be ignored");
+        }
+        logger.println("Command line arguments:");
+        if (commandPlan.getCommandLineArguments().isEmpty() && commandPlan.getIgnoredCommandLineArguments().isEmpty()) {
+            logger.println("\t*No command line arguments entered");
+        }
+        for (String argument : commandPlan.getCommandLineArguments()) {
+            logger.println("\t*" + argument);
+        }
+        for (String argument : commandPlan.getIgnoredCommandLineArguments()) {
+            logger.println("\t!" + argument + " will be ignored ");
+        }
+        logger.println("*************End of Ranorex Summary*************\n");
+    }
+
+    /**
+     * Checks the test exe file, the report directories, the free disk space and locked report files on the agent
+     *
+     * @param context The current execution
+     * @throws AbortException       If Ranorex can not be started successfully
+     * @throws IOException          If the agent could not be reached
+     * @throws InterruptedException If the build is aborted
+     */
+    private void runPreflight(RanorexRunContext context) throws IOException, InterruptedException {
+        List<String> runConfigurations = context.getRunConfigurations().isEmpty()
+                ? Collections.<String>singletonList(null) : context.getRunConfigurations();
+        List<String> reportFiles = new ArrayList<>();
+        for (String runConfiguration : runConfigurations) {
+            // Files with placeholders get a new name in every run
+            String reportFile = context.getReportFileName(context.getReportFile(), runConfiguration);
+            if (! reportFile.contains("%")) {
+                reportFiles.add(context.getReportDirectory() + reportFile + "." + rxReportExtension);
+                reportFiles.add(context.getReportDirectory() + reportFile + "." + rxReportExtension + ".data");
+            }
+            if (rxZippedReport) {
+                String zippedReportFile = context.getReportFileName(context.getZippedReportFile(), runConfiguration);
+                if (! zippedReportFile.contains("%")) {
+                    reportFiles.add(context.getZippedReportDirectory() + zippedReportFile + ZIPPED_REPORT_EXTENSION);
                 }
-            } else {
-                usedRxReportFile = "%S_%Y%M%D_%T";
             }
-            jArguments.add("/reportfile:" + usedRxReportDirectory + usedRxReportFile + "." + rxReportExtension);
+        }
+        RanorexPreflight preflight = new RanorexPreflight(context.getWorkSpace(), context.getExecutablePath(), context.getReportDirectories(), reportFiles, RanorexPreflight.MIN_FREE_SPACE);
+        List<String> problems = context.getWorkspace().act(preflight);
+        if (! problems.isEmpty()) {
+            throw new AbortException("Ranorex can not be started:\n\t" + StringUtil.join(problems, "\n\t"));
+        }
+    }
+
+    /**
+     * The global parameters and command line arguments only change with the job configuration,
+     * so they are parsed on first use and shared by all following builds
+     *
+     * @return The parsed global parameters and command line arguments
+     */
+    private RanorexCommandPlan getCommandPlan() {
+        RanorexCommandPlan plan = commandPlan;
+        if (plan == null) {
+            plan = new RanorexCommandPlan(rxGlobalParameter, cmdLineArgs, ARGUMENT_SEPARATOR);
+            commandPlan = plan;
+        }
+        return plan;
+    }
 
-            // JUnit compatible Report
-            if (rxJUnitReport) {
-                jArguments.add("/junit");
+    /**
+     * Assembles the command line for a single run of the Ranorex test exe file. If the command line is too
+     * long for cmd.exe, the test exe file is started directly. If it is still too long for Windows, the
+     * global parameters are passed in a file if allowed; otherwise the build is aborted.
+     *
+     * @param context          The current execution
+     * @param runConfiguration The run configuration to execute or null to use the one selected in the test suite
+     * @param testCase         The only test case to execute in a rerun or null to execute all test cases
+     * @param pass             The number of the rerun, 0 for the first execution
+     * @return The arguments for the given run configuration
+     * @throws AbortException       If the command line is too long
+     * @throws IOException          If the parameter file could not be written
+     * @throws InterruptedException If the build is aborted
+     */
+    ArgumentListBuilder buildArguments(RanorexRunContext context, String runConfiguration, String testCase, int pass) throws IOException, InterruptedException {
+        ArgumentListBuilder arguments = buildRanorexArguments(context, runConfiguration, testCase, pass, null);
+        boolean directLaunch = rxDirectLaunch;
+        ArgumentListBuilder commandLine = toCommandLine(context, arguments, directLaunch);
+        int length = WindowsCommandLine.length(commandLine.toList());
+        if (! directLaunch && length > WindowsCommandLine.CMD_MAX_LENGTH) {
+            directLaunch = true;
+            commandLine = toCommandLine(context, arguments, directLaunch);
+            length = WindowsCommandLine.length(commandLine.toList());
+            if (length <= WindowsCommandLine.MAX_LENGTH) {
+                context.getLogger().println("The command line is longer than the " + WindowsCommandLine.CMD_MAX_LENGTH + " characters cmd.exe accepts, starting the test exe file without cmd.exe");
             }
+        }
+        if (length > WindowsCommandLine.MAX_LENGTH) {
+            if (! rxParameterFile) {
+                throw new AbortException("The command line has " + length + " characters, but Windows accepts at most " + WindowsCommandLine.MAX_LENGTH
+                        + ". Reduce the global parameters or pass them in a file.");
+            }
+            FilePath parameterFile = writeParameterFile(context);
+            context.getLogger().println("The command line is too long, the global parameters are passed in " + parameterFile.getRemote());
+            arguments = buildRanorexArguments(context, runConfiguration, testCase, pass, parameterFile.getRemote());
+            commandLine = toCommandLine(context, arguments, directLaunch);
+            length = WindowsCommandLine.length(commandLine.toList());
+            if (length > WindowsCommandLine.MAX_LENGTH) {
+                throw new AbortException("The command line has " + length + " characters without the global parameters, but Windows accepts at most " + WindowsCommandLine.MAX_LENGTH);
+            }
+        }
+        return commandLine;
+    }
 
-            // Compressed copy of Ranorex report
-            if (rxZippedReport) {
-                jArguments.add("/zipreport");
-                // Zipped Ranorex Reportdirectory
-                if (! StringUtil.isNullOrSpace(rxZippedReportDirectory)) {
-                    usedRxZippedReportDirectory = FileUtil.getAbsoluteReportDirectory(WorkSpace, rxZippedReportDirectory);
-                } else {
-                    usedRxZippedReportDirectory = WorkSpace;
-                }
-                usedRxZippedReportDirectory = StringUtil.appendBackslash(usedRxZippedReportDirectory);
-
-                // Zipped Report File Name
-                if (! StringUtil.isNullOrSpace(rxZippedReportFile)) {
-                    if (! FileUtil.isAbsolutePath(rxZippedReportFile)) {
-                        usedRxZippedReportFile = FileUtil.removeFileExtension(rxZippedReportFile);
-                    } else {
-                        LOGGER.println("'" + rxZippedReportFile + "' is not a valid Ranorex Report filename");
-                        return false;
-                    }
-                } else {
-                    usedRxZippedReportFile = usedRxReportFile;
-                }
+    /**
+     * Collects the arguments passed to the Ranorex test exe file
+     *
+     * @param context          The current execution
+     * @param runConfiguration The run configuration to execute or null to use the one selected in the test suite
+     * @param testCase         The only test case to execute in a rerun or null to execute all test cases
+     * @param pass             The number of the rerun, 0 for the first execution
+     * @param parameterFile    The file containing the global parameters or null to pass them on the command line
+     * @return The arguments without the program
+     */
+    private ArgumentListBuilder buildRanorexArguments(RanorexRunContext context, String runConfiguration, String testCase, int pass, String parameterFile) {
+        ArgumentListBuilder arguments = new ArgumentListBuilder();
+        // Ranorex Run Configuration
+        if (! StringUtil.isNullOrSpace(runConfiguration)) {
+            arguments.add("/runconfig:" + runConfiguration);
+        }
+        // Rerun of a single test case
+        if (testCase != null) {
+            arguments.add("/testcase:" + testCase);
+        }
+        String reportFile = context.getReportFileName(context.getReportFile(), runConfiguration) + getRerunSuffix(testCase, pass);
+        arguments.add("/reportfile:" + context.getReportDirectory() + reportFile + "." + rxReportExtension);
+
+        // JUnit compatible Report, required to find the failed test cases for a rerun
+        if (rxJUnitReport || rxRerunFailed > 0) {
+            arguments.add("/junit");
+        }
+
+        // Compressed copy of Ranorex report, unless the plugin creates it
+        if (rxZippedReport && ! rxCompressReport) {
+            arguments.add("/zipreport");
+            arguments.add("/zipreportfile:" + getZippedReportPath(context, runConfiguration, testCase, pass));
+        }
 
-                jArguments.add("/zipreportfile:" + usedRxZippedReportDirectory + usedRxZippedReportFile + ZIPPED_REPORT_EXTENSION);
+        //Test Rail, unless the plugin publishes the results after the run
+        if (rxTestRail && ! isPublishingToTestRail()) {
+            arguments.add("/testrail");
+            arguments.addMasked("/truser=" + rxTestRailUser);
+            arguments.addMasked("/trpass=" + rxTestRailPassword);
+            if (! StringUtil.isNullOrSpace(rxTestRailRID)) {
+                arguments.add("/trrunid=" + rxTestRailRID);
             }
+            if (! StringUtil.isNullOrSpace(rxTestRailRunName)) {
+                arguments.add("/trrunname=" + rxTestRailRunName);
+            }
+        }
 
-            //Test Rail
-            if (rxTestRail) {
-                jArguments.add("/testrail");
-                if (! StringUtil.isNullOrSpace(rxTestRailUser) && ! StringUtil.isNullOrSpace(rxTestRailPassword)) {
-                    jArguments.addMasked("/truser=" + rxTestRailUser);
-                    jArguments.addMasked("/trpass=" + rxTestRailPassword);
-                } else {
-                    LOGGER.println("Testrail username and password are required");
-                    return false;
-                }
-                if (! StringUtil.isNullOrSpace(rxTestRailRID)) {
-                    jArguments.add("/trrunid=" + rxTestRailRID);
-                }
-                if (! StringUtil.isNullOrSpace(rxTestRailRunName)) {
-                    jArguments.add("/trrunname=" + rxTestRailRunName);
-                }
+        // Global Parameters
+        if (parameterFile != null) {
+            arguments.add("/pa:" + PARAMETER_FILE_PARAMETER + "=" + parameterFile);
+        } else {
+            for (String param : getCommandPlan().getGlobalParameters()) {
+                arguments.add(param);
             }
+        }
 
-            // Parse Global Parameters
-            if (! StringUtil.isNullOrSpace(rxGlobalParameter)) {
-                for (String param : StringUtil.splitBy(rxGlobalParameter, ARGUMENT_SEPARATOR)) {
-                    try {
-                        RanorexParameter rxParam = new RanorexParameter(param);
-                        rxParam.trim();
-                        jArguments.add(rxParam.toString());
-                    } catch (Exception e) {
-                        System.out.println("[INFO] [RanorexRunnerBuilder] Parameter '" + param + "' will be ignored");
-                    }
-                }
+        // Additional cmd arguments
+        for (String argument : getCommandPlan().getCommandLineArguments()) {
+            arguments.add(argument);
+        }
+        return arguments;
+    }
+
+    /**
+     * @param testCase The only test case to execute in a rerun or null to execute all test cases
+     * @param pass     The number of the rerun, 0 for the first execution
+     * @return The suffix of the report file names of a rerun, empty for the first execution
+     */
+    private static String getRerunSuffix(String testCase, int pass) {
+        return testCase == null ? "" : "_rerun" + pass + "_" + FileUtil.toValidFileName(testCase);
+    }
+
+    /**
+     * @param context          The current execution
+     * @param runConfiguration The run configuration to execute or null to use the one selected in the test suite
+     * @param testCase         The only test case to execute in a rerun or null to execute all test cases
+     * @param pass             The number of the rerun, 0 for the first execution
+     * @return The path of the compressed report on the agent
+     */
+    private static String getZippedReportPath(RanorexRunContext context, String runConfiguration, String testCase, int pass) {
+        return context.getZippedReportDirectory() + context.getReportFileName(context.getZippedReportFile(), runConfiguration)
+                + getRerunSuffix(testCase, pass) + ZIPPED_REPORT_EXTENSION;
+    }
+
+    /**
+     * @param context          The current execution
+     * @param runConfiguration The run configuration to execute or null to use the one selected in the test suite
+     * @param testCase         The only test case to execute in a rerun or null to execute all test cases
+     * @param pass             The number of the rerun, 0 for the first execution
+     * @return The path of the compressed report the plugin creates or null if Ranorex creates it
+     */
+    private String getCompressedReport(RanorexRunContext context, String runConfiguration, String testCase, int pass) {
+        return rxZippedReport && rxCompressReport ? getZippedReportPath(context, runConfiguration, testCase, pass) : null;
+    }
+
+    /**
+     * Puts the program in front of the Ranorex arguments. Without cmd.exe every argument is quoted the way the
+     * test exe file splits its command line. Masked arguments stay masked.
+     *
+     * @param context      The current execution
+     * @param arguments    The arguments for the test exe file
+     * @param directLaunch If true, the test exe file is started without cmd.exe
+     * @return The command line to execute
+     */
+    private static ArgumentListBuilder toCommandLine(RanorexRunContext context, ArgumentListBuilder arguments, boolean directLaunch) {
+        ArgumentListBuilder commandLine;
+        if (directLaunch) {
+            // Without a shell the working directory is not searched, so the full path is required
+            commandLine = new ArgumentListBuilder(WindowsCommandLine.quote(context.getExecutablePath()));
+        } else {
+            commandLine = new ArgumentListBuilder("cmd.exe", "/C");
+            commandLine.add(context.getExecutableFile());
+        }
+        List<String> values = arguments.toList();
+        boolean[] masks = arguments.toMaskArray();
+        for (int i = 0; i < values.size(); i++) {
+            commandLine.add(directLaunch ? WindowsCommandLine.quote(values.get(i)) : values.get(i), masks[i]);
+        }
+        return commandLine;
+    }
+
+    /**
+     * Writes the global parameters as name=value lines to a file, once per build step. The file is created in the
+     * temporary directory next to the workspace, so it is never part of an archived report, and deleted at the
+     * end of the build step.
+     *
+     * @param context The current execution
+     * @return The written file
+     * @throws IOException          If the file could not be written
+     * @throws InterruptedException If the build is aborted
+     */
+    private FilePath writeParameterFile(RanorexRunContext context) throws IOException, InterruptedException {
+        if (context.getParameterFile() != null) {
+            return context.getParameterFile();
+        }
+        StringBuilder content = new StringBuilder();
+        for (String param : getCommandPlan().getGlobalParameters()) {
+            // Every parameter is formatted as /flag:name=value
+            content.append(param, param.indexOf(':') + 1, param.length()).append("\r\n");
+        }
+        FilePath tempDirectory = context.getWorkspace().sibling(context.getWorkspace().getName() + "@tmp");
+        tempDirectory.mkdirs();
+        FilePath parameterFile = tempDirectory.createTempFile("RanorexParameters_" + context.getRun().getNumber() + "_", ".txt");
+        parameterFile.write(content.toString(), "UTF-8");
+        context.setParameterFile(parameterFile);
+        return parameterFile;
+    }
+
+    /**
+     * Deletes the file with the global parameters written for this build step
+     *
+     * @param context The current execution
+     * @throws InterruptedException If the build is aborted
+     */
+    private static void deleteParameterFile(RanorexRunContext context) throws InterruptedException {
+        FilePath parameterFile = context.getParameterFile();
+        if (parameterFile == null) {
+            return;
+        }
+        try {
+            parameterFile.delete();
+        } catch (IOException e) {
+            context.getLogger().println("The parameter file " + parameterFile.getRemote() + " could not be deleted: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The path of the parameter file is different in every build step, so the argument passing it is replaced
+     * by the global parameters themselves. The key then covers the content of the file and stays the same
+     * across builds.
+     *
+     * @param context   The current execution
+     * @param arguments The command line of the run
+     * @return The arguments the key of the run cache is computed from
+     */
+    private List<String> getCacheKeyArguments(RanorexRunContext context, ArgumentListBuilder arguments) {
+        List<String> values = arguments.toList();
+        FilePath parameterFile = context.getParameterFile();
+        if (parameterFile == null) {
+            return values;
+        }
+        String fileArgument = "/pa:" + PARAMETER_FILE_PARAMETER + "=" + parameterFile.getRemote();
+        List<String> keyArguments = new ArrayList<>();
+        for (String value : values) {
+            if (value.equals(fileArgument) || value.equals(WindowsCommandLine.quote(fileArgument))) {
+                keyArguments.addAll(getCommandPlan().getGlobalParameters());
+            } else {
+                keyArguments.add(value);
             }
+        }
+        return keyArguments;
+    }
 
-            // Additional cmd arguments
-            if (! StringUtil.isNullOrSpace(cmdLineArgs)) {
-                for (String argument : StringUtil.splitBy(cmdLineArgs, ARGUMENT_SEPARATOR)) {
-                    try {
-                        CmdArgument arg = new CmdArgument(argument);
-                        jArguments.add(arg.toString());
-                    } catch (Exception e) {
-                        System.out.println("[INFO] [RanorexRunnerBuilder] Argument '" + argument + "' will be ignored ");
-                    }
-                }
+    /**
+     * Executes the test suite once for the given run configuration. If failed test cases should be rerun, their
+     * names are read from the JUnit report and they are executed again one by one, up to the configured number
+     * of passes. A test case passes if one of its reruns passes, so the build only fails if a test case failed
+     * in every pass.
+     *
+     * @param context          The current execution
+     * @param runConfiguration The run configuration to execute or null to use the one selected in the test suite
+     * @return true if Ranorex ran to its end, false if it was stopped early
+     * @throws InterruptedException If the build is aborted while Ranorex is running
+     * @throws IOException          If the process could not be started or a report could not be read
+     */
+    private boolean runTests(RanorexRunContext context, String runConfiguration) throws IOException, InterruptedException {
+        PrintStream logger = context.getLogger();
+        HashMap<String, Long> runReports = RanorexReportFiles.snapshot(context.getWorkingDirectory(), context.getReportDirectory());
+        HashMap<String, Long> junitReports = runReports;
+        Result result = exec(context, runConfiguration, buildArguments(context, runConfiguration, null, 0), getCompressedReport(context, runConfiguration, null, 0));
+
+        for (int pass = 1; pass <= rxRerunFailed && result == Result.FAILURE; pass++) {
+            List<String> failedTestCases = RanorexReportFiles.readFailedTestCases(context.getWorkingDirectory(), context.getReportDirectory(), junitReports);
+            if (failedTestCases.isEmpty()) {
+                logger.println("No failed test cases found in the JUnit report, nothing to rerun");
+                break;
             }
-            // Summarize Output
-            if (getDescriptor().isUseSummarize()) {
-                LOGGER.println("\n*************Start of Ranorex Summary*************");
-                LOGGER.println("Current Plugin version:\t\t" + getClass().getPackage().getImplementationVersion());
-                LOGGER.println("Ranorex Working Directory:\t" + WorkSpace);
-                LOGGER.println("Ranorex test suite file:\t" + rxTestSuiteFilePath);
-                LOGGER.println("Ranorex test exe file:\t\t" + rxExecuteableFile);
-                LOGGER.println("Ranorex run configuration:\t" + rxRunConfiguration);
-                LOGGER.println("Ranorex report directory:\t" + usedRxReportDirectory);
-                LOGGER.println("Ranorex report filename:\t" + usedRxReportFile);
-                LOGGER.println("Ranorex report extension:\t" + rxReportExtension);
-                LOGGER.println("Junit-compatible report:\t" + rxJUnitReport);
-                LOGGER.println("Ranorex report compression:\t" + rxZippedReport);
-                if (rxZippedReport) {
-                    LOGGER.println("\tRanorex zipped report dir:\t" + usedRxZippedReportDirectory);
-                    LOGGER.println("\tRanorex zipped report file:\t" + usedRxZippedReportFile);
-                }
-                LOGGER.println("Ranorex Test Rail Integration:\t" + rxTestRail);
-                if (rxTestRail) {
-                    LOGGER.println("\tRanorex Test Rail User:\t\t" + rxTestRailUser);
-                    LOGGER.println("\tRanorex Test Rail Password:\t" + "*****************");
-                    LOGGER.println("\tRanorex Test Rail Run ID:\t" + rxTestRailRID);
-                    LOGGER.println("\tRanorex Test Rail Run Name:\t" + rxTestRailRunName);
+            if (failedTestCases.size() > MAX_RERUN_TEST_CASES) {
+                logger.println(failedTestCases.size() + " test cases failed, only up to " + MAX_RERUN_TEST_CASES + " failed test cases are rerun");
+                break;
+            }
+            RanorexRerunAction reruns = context.getReruns();
+            if (pass == 1) {
+                for (String testCase : failedTestCases) {
+                    reruns.addResult(runConfiguration, testCase, false);
                 }
-                LOGGER.println("Ranorex global parameters:");
-                if (! StringUtil.isNullOrSpace(rxGlobalParameter)) {
-                    for (String param : StringUtil.splitBy(rxGlobalParameter, ARGUMENT_SEPARATOR)) {
-                        try {
-                            RanorexParameter rxParam = new RanorexParameter(param);
-                            rxParam.trim();
-                            LOGGER.println("\t*" + rxParam.toString());
-                        } catch (Exception e) {
-                            LOGGER.println("\t!" + param + " will be ignored");
-                        }
-                    }
-                } else {
-                    LOGGER.println("\t*No global parameters entered");
+            }
+            logger.println("Rerun " + pass + " of " + rxRerunFailed + ": " + StringUtil.join(failedTestCases, ", "));
+            junitReports = RanorexReportFiles.snapshot(context.getWorkingDirectory(), context.getReportDirectory());
+            result = Result.SUCCESS;
+            for (String testCase : failedTestCases) {
+                Result testCaseResult = exec(context, runConfiguration, buildArguments(context, runConfiguration, testCase, pass),
+                        getCompressedReport(context, runConfiguration, testCase, pass));
+                if (testCaseResult == null) {
+                    summarizeReports(context, runConfiguration, runReports);
+                    return false;
                 }
-                LOGGER.println("Command line arguments:");
-                if (! StringUtil.isNullOrSpace(cmdLineArgs)) {
-                    for (String argument : StringUtil.splitBy(cmdLineArgs, ARGUMENT_SEPARATOR)) {
-                        try {
-                            CmdArgument arg = new CmdArgument(argument);
-                            arg.trim();
-                            LOGGER.println("\t*" + arg.toString());
-                        } catch (Exception e) {
-                            LOGGER.println("\t!" + argument + " will be ignored ");
-                        }
-                    }
-                } else {
-                    LOGGER.println("\t*No command line arguments entered");
+                reruns.addResult(runConfiguration, testCase, testCaseResult == Result.SUCCESS);
+                if (testCaseResult != Result.SUCCESS) {
+                    result = Result.FAILURE;
                 }
-                LOGGER.println("*************End of Ranorex Summary*************\n");
             }
-            r = exec(build, launcher, listener, env); // Start the given exe file with all arguments added before
-        } else {
-            LOGGER.println("No TestSuite file given");
         }
-        return r;
-    }
 
+        summarizeReports(context, runConfiguration, runReports);
+        if (result == null) {
+            return false;
+        }
+        if (result != Result.SUCCESS) {
+            context.getRun().setResult(result);
+        }
+        return true;
+    }
 
     /**
-     * Starts the given executeable file with all arguments and parameters
+     * Summarizes the reports written by a run on the agent and adds the result to the build,
+     * so only the summary is transferred to the controller
      *
-     * @param build
-     * @param launcher Starts a process
-     * @param listener Receives events that happen during a build
-     * @param env      Environmental variables to be used for launching processes for this build.
-     * @return true if execution was succesfull; otherwise false
-     * @throws InterruptedException
-     * @throws IOException
-     */
-    private boolean exec(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener, EnvVars env) {
-        FilePath currentWorkspace = FileUtil.getRanorexWorkingDirectory(build.getWorkspace(), rxTestSuiteFilePath);
-        LOGGER.println("Executing : " + jArguments.toString());
+     * @param context          The current execution
+     * @param runConfiguration The run configuration which was executed or null
+     * @param snapshot         The reports before the run
+     * @throws InterruptedException If the build is aborted
+     */
+    private void summarizeReports(RanorexRunContext context, String runConfiguration, HashMap<String, Long> snapshot) throws InterruptedException {
+        String prefix = runConfiguration == null ? "" : runConfiguration + " / ";
+        ReportSummary summary;
         try {
-            int r = launcher.launch().cmds(jArguments).envs(env).stdout(listener).pwd(currentWorkspace).join();
+            summary = RanorexReportFiles.summarize(context.getWorkingDirectory(), context.getReportDirectory(), snapshot, prefix);
+        } catch (IOException e) {
+            context.getLogger().println("The Ranorex report could not be summarized: " + e.getMessage());
+            return;
+        }
+        if (summary.getTotal() == 0) {
+            context.getLogger().println("No Ranorex report found in '" + context.getReportDirectory() + "'");
+            return;
+        }
+        if (context.getTestRailPublisher() != null) {
+            context.getTestRailPublisher().publish(summary);
+        }
+        if (rxMergeReports) {
+            try {
+                context.addRunReports(runConfiguration, RanorexReportFiles.listRunReports(context.getWorkingDirectory(), context.getReportDirectory(), snapshot));
+            } catch (IOException e) {
+                context.getLogger().println("The Ranorex reports of this run are not merged: " + e.getMessage());
+            }
+        }
+        context.getReportSummary().add(summary);
+        context.getStepResults().addAll(summary);
+        context.getLogger().println("Ranorex test cases: " + summary.getPassed() + " passed, " + summary.getFailed()
+                + " failed, " + summary.getSkipped() + " skipped");
+    }
+
+    /**
+     * Starts the given executeable file with all arguments and parameters. The console output
+     * is passed to the build log and the test case markers are reported to the progress action.
+     * If too many test cases fail or Ranorex exceeds a timeout, the process tree is killed;
+     * the report written so far is kept. If the plugin creates the compressed report, the
+     * report files are compressed on the agent while Ranorex is running. If the report is
+     * archived, finished report files are transferred to the controller during the run.
+     *
+     * @param context          The current execution
+     * @param runConfiguration The run configuration which is executed or null
+     * @param arguments        The command line to execute
+     * @param zippedReport     The compressed report the plugin creates during the run or null
+     * @return SUCCESS or FAILURE depending on the exit code, or null if Ranorex was stopped early and the
+     * build result is already set
+     * @throws InterruptedException If the build is aborted while Ranorex is running
+     * @throws IOException          If the process could not be started
+     */
+    private Result exec(RanorexRunContext context, String runConfiguration, ArgumentListBuilder arguments, String zippedReport) throws IOException, InterruptedException {
+        RanorexRunCache runCache = context.getRunCache();
+        String cacheKey = null;
+        HashMap<String, Long> reportSnapshot = null;
+        if (runCache != null) {
+            cacheKey = runCache.computeKey(getCacheKeyArguments(context, arguments));
+            Integer cachedExitCode = runCache.restore(cacheKey);
+            if (cachedExitCode != null) {
+                context.getLogger().println("Ranorex run cache hit " + cacheKey + ", the reports and the result of the cached run are used");
+                return cachedExitCode == 0 ? Result.SUCCESS : Result.FAILURE;
+            }
+            context.getLogger().println("Ranorex run cache miss " + cacheKey);
+            reportSnapshot = runCache.snapshot();
+        }
 
-            if (r != 0) {
-                build.setResult(Result.FAILURE);
+        context.getLogger().println("Executing : " + arguments.toString());
+        RanorexProgressAction progress = context.getProgress();
+        FailFastPolicy failFast = new FailFastPolicy(rxFailFastCount, rxFailFastPercentage, rxFailFastWindow);
+        ExecutionWatchdog watchdog = new ExecutionWatchdog(rxTimeout, rxInactivityTimeout, System.currentTimeMillis());
+        RanorexProgressOutputStream output = new RanorexProgressOutputStream(context.getLogger(), context.getRun().getCharset(), progress, runConfiguration, failFast, watchdog);
+        RanorexReportCompressor compressor = null;
+        if (zippedReport != null) {
+            compressor = RanorexReportCompressor.start(context.getWorkspace(), context.getReportDirectory(), rxReportExtension, zippedReport, rxTimeout);
+        }
+        // The report files are archived while Ranorex is still writing the report
+        RanorexReportCollector collector = context.getReportCollector();
+        if (collector != null) {
+            collector.start();
+        }
+        int r;
+        Result stopResult = null;
+        try {
+            Proc proc = context.getLauncher().launch().cmds(arguments).envs(context.getEnv()).stdout(output).pwd(context.getWorkingDirectory()).start();
+            if (failFast.isEnabled() || watchdog.isEnabled()) {
+                while (proc.isAlive()) {
+                    String timeout = watchdog.check(System.currentTimeMillis());
+                    if (failFast.isTriggered()) {
+                        context.getLogger().println("Stopping Ranorex, " + failFast.getReason());
+                        stopResult = Result.FAILURE;
+                    } else if (timeout != null) {
+                        context.getLogger().println("Stopping Ranorex, " + timeout);
+                        stopResult = Result.ABORTED;
+                    }
+                    if (stopResult != null) {
+                        // Kills the whole process tree, including the children of cmd.exe
+                        proc.kill();
+                        context.getLogger().println("The report written so far is kept in " + context.getReportDirectory());
+                        break;
+                    }
+                    Thread.sleep(POLL_INTERVAL);
+                }
             }
-            return true;
-        } catch (Exception e) {
-            e.printStackTrace(listener.fatalError("execution failed"));
-            return false;
+            r = proc.join();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (compressor != null) {
+                compressor.cancel();
+            }
+            if (collector != null) {
+                collector.cancel();
+            }
+            throw e;
+        } finally {
+            output.close();
+            progress.finish(System.currentTimeMillis());
+        }
+        if (collector != null) {
+            collector.stop();
+        }
+        // The report written so far is compressed as well if Ranorex was stopped early
+        if (compressor != null) {
+            try {
+                int files = compressor.finish();
+                context.getLogger().println("Compressed " + files + " report files into " + zippedReport);
+            } catch (IOException e) {
+                context.getLogger().println("The Ranorex report could not be compressed: " + e.getMessage());
+            }
+        }
+
+        if (stopResult != null) {
+            context.getRun().setResult(stopResult);
+            return null;
+        }
+        // Only successful runs which were not stopped early are cached, a failure may be flaky
+        // and would otherwise be restored in every build until an input changes
+        if (runCache != null && r == 0) {
+            int cachedFiles = runCache.store(cacheKey, reportSnapshot, r);
+            context.getLogger().println("Stored " + cachedFiles + " report files in the Ranorex run cache");
         }
+        return r == 0 ? Result.SUCCESS : Result.FAILURE;
     }
 
     // Overridden for better type safety.
@@ -397,6 +1120,7 @@ public class RanorexRunnerBuilder extends Builder {
 
     }
 
+    @Symbol ("ranorex")
     @Extension // This indicates to Jenkins that this is an implementation of an extension point.
     public static final class DescriptorImpl extends BuildStepDescriptor<Builder> {
 
@@ -454,6 +1178,38 @@ public class RanorexRunnerBuilder extends Builder {
             }
         }
 
+        // Check Fail Fast Percentage
+        public FormValidation doCheckRxFailFastPercentage(@QueryParameter String value) {
+            if (StringUtil.isNullOrSpace(value)) {
+                return FormValidation.ok();
+            }
+            try {
+                int percentage = Integer.parseInt(value.trim());
+                if (percentage >= 0 && percentage <= 100) {
+                    return FormValidation.ok();
+                }
+            } catch (NumberFormatException e) {
+                //reported below
+            }
+            return FormValidation.error("The percentage must be a number between 0 and 100");
+        }
+
+        // Check Fail Fast Window
+        public FormValidation doCheckRxFailFastWindow(@QueryParameter String value) {
+            if (StringUtil.isNullOrSpace(value)) {
+                return FormValidation.ok();
+            }
+            try {
+                int window = Integer.parseInt(value.trim());
+                if (window >= 0 && window <= FailFastPolicy.MAX_WINDOW) {
+                    return FormValidation.ok();
+                }
+            } catch (NumberFormatException e) {
+                //reported below
+            }
+            return FormValidation.error("The window must be a number between 0 and " + FailFastPolicy.MAX_WINDOW);
+        }
+
         // Check Test Rail Username
         public FormValidation doCheckRxTestRailUser(@QueryParameter String value) {
             if (! StringUtil.isNullOrSpace(value)) {
@@ -471,6 +1227,24 @@ public class RanorexRunnerBuilder extends Builder {
             return FormValidation.error("Password is required");
         }
 
+        // Check Global Parameters
+        public FormValidation doCheckRxGlobalParameter(@QueryParameter String value) {
+            RanorexCommandPlan plan = new RanorexCommandPlan(value, null, ARGUMENT_SEPARATOR);
+            if (plan.getIgnoredGlobalParameters().isEmpty()) {
+                return FormValidation.ok();
+            }
+            return FormValidation.warning("The following parameters are not valid and will be ignored: " + StringUtil.join(plan.getIgnoredGlobalParameters(), ", "));
+        }
+
+        // Check Command Line Arguments
+        public FormValidation doCheckCmdLineArgs(@QueryParameter String value) {
+            RanorexCommandPlan plan = new RanorexCommandPlan(null, value, ARGUMENT_SEPARATOR);
+            if (plan.getIgnoredCommandLineArguments().isEmpty()) {
+                return FormValidation.ok();
+            }
+            return FormValidation.warning("The following arguments are not valid or set by the plugin and will be ignored: " + StringUtil.join(plan.getIgnoredCommandLineArguments(), ", "));
+        }
+
         @SuppressWarnings ("rawtypes")
         @Override
         public boolean isApplicable(Class<? extends AbstractProject> aClass) {
@@ -0,0 +1,152 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.StringUtil;
+import com.ranorex.jenkinsranorexplugin.util.TestHistoryIndex;
+import com.ranorex.jenkinsranorexplugin.util.TrendHistory;
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import jenkins.model.TransientActionFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches the test case history of a job by test case, failure signature or time range. The
+ * results come from the test history index in the job directory, no report is opened.
+ */
+public class RanorexTestHistoryAction implements Action {
+    static final String HISTORY_DIRECTORY = "ranorex-history";
+    static final int MAX_ENTRIES = 500;
+
+    private final Job<?, ?> job;
+
+    RanorexTestHistoryAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    /**
+     * @param job The job
+     * @return The test history index of the job
+     */
+    static TestHistoryIndex getIndex(Job<?, ?> job) {
+        return TestHistoryIndex.get(new File(job.getRootDir(), HISTORY_DIRECTORY));
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    /**
+     * Runs the first query given
+     *
+     * @param testCase  The name of a test case or null
+     * @param signature A failure message or null
+     * @param days      The number of days back from now or null
+     * @return The latest matching results, the newest first
+     * @throws IOException If the index could not be read
+     */
+    public List<TestHistoryIndex.Entry> find(String testCase, String signature, String days) throws IOException {
+        TestHistoryIndex index = getIndex(job);
+        if (! StringUtil.isNullOrSpace(testCase)) {
+            return index.findByTestCase(testCase.trim(), MAX_ENTRIES);
+        }
+        if (! StringUtil.isNullOrSpace(signature)) {
+            return index.findBySignature(signature, MAX_ENTRIES);
+        }
+        if (! StringUtil.isNullOrSpace(days)) {
+            try {
+                long to = System.currentTimeMillis();
+                return index.findByTime(to - TimeUnit.DAYS.toMillis(Long.parseLong(days.trim())), to, MAX_ENTRIES);
+            } catch (NumberFormatException e) {
+                return new ArrayList<>();
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "search.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Ranorex Test History";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ranorexHistory";
+    }
+
+    /**
+     * Adds the action to every job with a test history
+     */
+    @Extension
+    @SuppressWarnings ("rawtypes")
+    public static class Factory extends TransientActionFactory<Job> {
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @Override
+        public Collection<? extends Action> createFor(Job target) {
+            if (! getIndex(target).exists()) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new RanorexTestHistoryAction(target));
+        }
+    }
+
+    /**
+     * Removes the results of deleted builds from the test history
+     */
+    @Extension
+    @SuppressWarnings ("rawtypes")
+    public static class Cleanup extends RunListener<Run> {
+        @Override
+        public void onDeleted(Run run) {
+            TestHistoryIndex index = getIndex(run.getParent());
+            if (! index.exists()) {
+                return;
+            }
+            try {
+                index.remove(run.getNumber());
+            } catch (IOException e) {
+                //The results stay in the history
+            }
+        }
+    }
+
+    /**
+     * Drops the cached test history and trend of jobs which are deleted, renamed or moved
+     */
+    @Extension
+    public static class Eviction extends ItemListener {
+        @Override
+        public void onDeleted(Item item) {
+            evict(item);
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            evict(item);
+        }
+
+        private static void evict(Item item) {
+            TestHistoryIndex.evict(item.getRootDir());
+            TrendHistory.evict(item.getRootDir());
+        }
+    }
+}
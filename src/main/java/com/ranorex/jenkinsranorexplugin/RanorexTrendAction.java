@@ -0,0 +1,114 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import com.ranorex.jenkinsranorexplugin.util.TrendChart;
+import com.ranorex.jenkinsranorexplugin.util.TrendHistory;
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Job;
+import jenkins.model.TransientActionFactory;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows the Ranorex trend of a job. The charts are loaded by the browser after the job page, and they
+ * are drawn from the pre-aggregated buckets of the trend, so neither depends on the number of builds.
+ */
+public class RanorexTrendAction implements Action {
+    private final Job<?, ?> job;
+
+    RanorexTrendAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    /**
+     * @param job The job
+     * @return The trend of the job
+     */
+    static TrendHistory getTrend(Job<?, ?> job) {
+        return TrendHistory.get(new File(job.getRootDir(), RanorexTestHistoryAction.HISTORY_DIRECTORY));
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    /**
+     * @return The buckets of the trend, the oldest first
+     * @throws IOException If the trend could not be read
+     */
+    public List<TrendHistory.Bucket> getBuckets() throws IOException {
+        return getTrend(job).getBuckets();
+    }
+
+    /**
+     * Sends the chart of the test case counts
+     *
+     * @param req The request
+     * @param rsp The response
+     * @throws IOException If the trend could not be read
+     */
+    public void doCounts(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        sendSvg(rsp, TrendChart.renderCounts(getBuckets()));
+    }
+
+    /**
+     * Sends the chart of the durations
+     *
+     * @param req The request
+     * @param rsp The response
+     * @throws IOException If the trend could not be read
+     */
+    public void doDurations(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        sendSvg(rsp, TrendChart.renderDurations(getBuckets()));
+    }
+
+    private static void sendSvg(StaplerResponse rsp, String svg) throws IOException {
+        rsp.setContentType("image/svg+xml;charset=UTF-8");
+        try (OutputStream out = rsp.getOutputStream()) {
+            out.write(svg.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "graph.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Ranorex Trend";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ranorexTrend";
+    }
+
+    /**
+     * Adds the action to every job with a trend
+     */
+    @Extension
+    @SuppressWarnings ("rawtypes")
+    public static class Factory extends TransientActionFactory<Job> {
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @Override
+        public Collection<? extends Action> createFor(Job target) {
+            if (! getTrend(target).exists()) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new RanorexTrendAction(target));
+        }
+    }
+}
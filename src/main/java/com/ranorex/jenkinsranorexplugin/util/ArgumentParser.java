@@ -0,0 +1,265 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.util.Collection;
+
+/**
+ * Single pass parser for Ranorex command line arguments of the form [/]flag[:name[=value]].
+ * The parser only remembers the positions of flag, name and value inside the input string,
+ * substrings are created when a part is requested. Invalid input is reported by the return
+ * value of the parse methods, no exceptions are thrown.
+ * <p>
+ * An instance can be reused for any number of arguments but must not be shared between threads.
+ */
+public final class ArgumentParser {
+    private static final int NONE = - 1;
+    private String input;
+    private int flagStart;
+    private int flagEnd;
+    private int nameStart;
+    private int nameEnd;
+    private int valueStart;
+    private int valueEnd;
+
+    /**
+     * Parses a command line argument. Everything in front of the first ':' is the flag, the rest is the name
+     * which is followed by an optional value separated by '='. Without ':' the whole input is the flag.
+     *
+     * @param input The string containing the argument
+     * @param start The index of the first character of the argument
+     * @param end   The index after the last character of the argument
+     * @return true if the argument contains a flag; otherwise false
+     */
+    public boolean parseArgument(String input, int start, int end) {
+        reset(input);
+        int separator = NONE;
+        int equals = NONE;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == ':' && separator == NONE) {
+                separator = i;
+            } else if (c == '=' && separator != NONE && equals == NONE) {
+                equals = i;
+            }
+        }
+        flagStart = start;
+        if (separator > start) {
+            flagEnd = separator;
+            nameStart = separator + 1;
+            if (equals == NONE) {
+                nameEnd = end;
+            } else {
+                nameEnd = equals;
+                valueStart = equals + 1;
+                valueEnd = end;
+            }
+        } else {
+            flagEnd = end;
+        }
+        return ! isBlankFlag();
+    }
+
+    /**
+     * Parses a global parameter of the form [[/]flag:]name=value. A ':' is only treated as the end of the
+     * flag if it occurs before the first '=', so values may contain ':'.
+     *
+     * @param input The string containing the parameter
+     * @param start The index of the first character of the parameter
+     * @param end   The index after the last character of the parameter
+     * @return true if the parameter contains a name and a value; otherwise false
+     */
+    public boolean parseParameter(String input, int start, int end) {
+        reset(input);
+        int separator = NONE;
+        int equals = NONE;
+        for (int i = start; i < end && equals == NONE; i++) {
+            char c = input.charAt(i);
+            if (c == '=') {
+                equals = i;
+            } else if (c == ':' && separator == NONE) {
+                separator = i;
+            }
+        }
+        if (separator > start) {
+            flagStart = start;
+            flagEnd = separator;
+            if (isBlankFlag()) {
+                flagStart = NONE;
+                flagEnd = NONE;
+            }
+        }
+        if (equals == NONE) {
+            return false;
+        }
+        nameStart = separator != NONE ? separator + 1 : start;
+        nameEnd = equals;
+        valueStart = equals + 1;
+        valueEnd = end;
+        return ! isBlank(nameStart, nameEnd) && ! isBlank(valueStart, valueEnd);
+    }
+
+    public boolean hasFlag() {
+        return flagStart != NONE;
+    }
+
+    public boolean hasName() {
+        return nameStart != NONE;
+    }
+
+    public boolean hasValue() {
+        return valueStart != NONE;
+    }
+
+    /**
+     * Compares the flag with the given flags. Slashes are ignored, surrounding whitespace as well.
+     *
+     * @param flags The flags to compare with
+     * @return true if the flag equals one of the given flags; otherwise false
+     */
+    public boolean isFlagOneOf(Collection<String> flags) {
+        if (! hasFlag()) {
+            return false;
+        }
+        for (String flag : flags) {
+            if (flagEquals(flag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The flag without slashes or null if there is none
+     */
+    public String getFlag() {
+        if (! hasFlag()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(flagEnd - flagStart);
+        appendFlag(sb, flagStart, flagEnd);
+        return sb.toString();
+    }
+
+    /**
+     * @return The name or null if there is none
+     */
+    public String getName() {
+        return hasName() ? input.substring(nameStart, nameEnd) : null;
+    }
+
+    /**
+     * @return The value or null if there is none
+     */
+    public String getValue() {
+        return hasValue() ? input.substring(valueStart, valueEnd) : null;
+    }
+
+    /**
+     * Appends the argument in the form /flag:name=value. Name and value are left out if they are empty.
+     *
+     * @param sb          The target
+     * @param trim        If true, whitespace around flag, name and value is removed
+     * @param defaultFlag The flag to use if the argument does not contain one
+     */
+    public void appendTo(StringBuilder sb, boolean trim, String defaultFlag) {
+        sb.append('/');
+        if (hasFlag()) {
+            int start = flagStart;
+            int end = flagEnd;
+            if (trim) {
+                while (start < end && isBlankOrSlash(input.charAt(start))) {
+                    start++;
+                }
+                while (end > start && isBlankOrSlash(input.charAt(end - 1))) {
+                    end--;
+                }
+            }
+            appendFlag(sb, start, end);
+        } else {
+            sb.append(defaultFlag);
+        }
+        if (hasName() && ! isBlank(nameStart, nameEnd)) {
+            sb.append(':');
+            appendSpan(sb, nameStart, nameEnd, trim);
+        }
+        if (hasValue() && ! isBlank(valueStart, valueEnd)) {
+            sb.append('=');
+            appendSpan(sb, valueStart, valueEnd, trim);
+        }
+    }
+
+    private void reset(String input) {
+        this.input = input;
+        flagStart = NONE;
+        flagEnd = NONE;
+        nameStart = NONE;
+        nameEnd = NONE;
+        valueStart = NONE;
+        valueEnd = NONE;
+    }
+
+    private boolean flagEquals(String flag) {
+        int start = flagStart;
+        int end = flagEnd;
+        while (start < end && isBlankOrSlash(input.charAt(start))) {
+            start++;
+        }
+        while (end > start && isBlankOrSlash(input.charAt(end - 1))) {
+            end--;
+        }
+        int position = 0;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '/') {
+                continue;
+            }
+            if (position >= flag.length() || flag.charAt(position) != c) {
+                return false;
+            }
+            position++;
+        }
+        return position == flag.length();
+    }
+
+    private boolean isBlankFlag() {
+        for (int i = flagStart; i < flagEnd; i++) {
+            if (! isBlankOrSlash(input.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (input.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendFlag(StringBuilder sb, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c != '/') {
+                sb.append(c);
+            }
+        }
+    }
+
+    private void appendSpan(StringBuilder sb, int start, int end, boolean trim) {
+        if (trim) {
+            while (start < end && input.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && input.charAt(end - 1) <= ' ') {
+                end--;
+            }
+        }
+        sb.append(input, start, end);
+    }
+
+    private static boolean isBlankOrSlash(char c) {
+        return c <= ' ' || c == '/';
+    }
+}
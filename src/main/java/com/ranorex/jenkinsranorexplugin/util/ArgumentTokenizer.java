@@ -0,0 +1,80 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+/**
+ * Walks over the entries of a separated input string without creating substrings.
+ * After each successful call of {@link #next()} the bounds of the current entry can be read.
+ * Entries containing only whitespace are skipped.
+ */
+public final class ArgumentTokenizer {
+    private final String input;
+    private final String separators;
+    private int position;
+    private int start;
+    private int end;
+
+    /**
+     * @param input      The string which should be split, may be null
+     * @param separators Every character of this string separates two entries
+     */
+    public ArgumentTokenizer(String input, String separators) {
+        this.input = input;
+        this.separators = separators;
+        this.position = 0;
+    }
+
+    /**
+     * Moves to the next entry which is not empty or whitespace only
+     *
+     * @return true if there is a next entry; otherwise false
+     */
+    public boolean next() {
+        if (input == null) {
+            return false;
+        }
+        int length = input.length();
+        while (position < length) {
+            //Skip separators
+            while (position < length && isSeparator(input.charAt(position))) {
+                position++;
+            }
+            start = position;
+            boolean blank = true;
+            while (position < length && ! isSeparator(input.charAt(position))) {
+                if (input.charAt(position) > ' ') {
+                    blank = false;
+                }
+                position++;
+            }
+            end = position;
+            if (! blank) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The index of the first character of the current entry
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return The index after the last character of the current entry
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return The current entry as string
+     */
+    public String getToken() {
+        return input.substring(start, end);
+    }
+
+    private boolean isSeparator(char c) {
+        return separators.indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,192 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transfers many report files as a few large chunks instead of one request per file. A chunk is a plain
+ * stream of files, each written as the number of remaining bytes followed by the content from the resume
+ * offset on. The receiver appends the content to the partial files of a {@link BlobStore}, which verifies
+ * the SHA-256 hash of every file, so a chunk that is cut off is resumed from the partial files.
+ */
+public final class BlobChunks {
+    public static final long CHUNK_SIZE = 64L * 1024 * 1024;
+    static final int MAX_FILES = 5000;
+
+    private BlobChunks() {
+    }
+
+    /**
+     * Splits the files into chunks of about the same size. Files larger than the chunk size get a chunk
+     * of their own.
+     *
+     * @param entries   The files to transfer
+     * @param chunkSize The maximum size of a chunk in bytes
+     * @return The chunks, every file is part of exactly one chunk
+     */
+    public static List<List<ReportManifest.Entry>> plan(List<ReportManifest.Entry> entries, long chunkSize) {
+        List<List<ReportManifest.Entry>> chunks = new ArrayList<>();
+        List<ReportManifest.Entry> chunk = new ArrayList<>();
+        long size = 0;
+        for (ReportManifest.Entry entry : entries) {
+            if (! chunk.isEmpty() && (size + entry.getSize() > chunkSize || chunk.size() >= MAX_FILES)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                size = 0;
+            }
+            chunk.add(entry);
+            size += entry.getSize();
+        }
+        if (! chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * @param store The blob store receiving the file
+     * @param entry The file
+     * @return The number of bytes already received, partial files larger than the file are discarded
+     */
+    public static long resumeOffset(BlobStore store, ReportManifest.Entry entry) {
+        File partial = store.getPartial(entry.getHash());
+        long length = partial.length();
+        if (length > entry.getSize()) {
+            partial.delete();
+            return 0;
+        }
+        return length;
+    }
+
+    /**
+     * Writes a chunk, called on the agent
+     *
+     * @param files   The files of the chunk
+     * @param offsets The number of bytes of every file the receiver already has
+     * @param out     The stream to the receiver, not closed by this method
+     * @throws IOException If a file could not be read or the stream is broken
+     */
+    public static void write(List<File> files, List<Long> offsets, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        byte[] buffer = new byte[64 * 1024];
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            long offset = offsets.get(i);
+            try (FileInputStream in = new FileInputStream(file)) {
+                long remaining = Math.max(0, in.getChannel().size() - offset);
+                in.getChannel().position(offset);
+                data.writeLong(remaining);
+                copy(in, data, remaining, buffer, file);
+            }
+        }
+        data.flush();
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length, byte[] buffer, File file) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == - 1) {
+                throw new EOFException("The file '" + file + "' was truncated while it was transferred");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    /**
+     * Receives a chunk on the controller and stores every complete file as blob. Files which are cut off
+     * are kept as partial files, so the next attempt continues at their {@link #resumeOffset}.
+     */
+    public static final class Receiver extends OutputStream {
+        private final BlobStore store;
+        private final List<ReportManifest.Entry> entries;
+        private final byte[] header = new byte[8];
+        private int headerLength;
+        private int received;
+        private long remaining;
+        private OutputStream partial;
+        private boolean closed;
+
+        /**
+         * @param store   The blob store
+         * @param entries The files of the chunk in the order they are written
+         */
+        public Receiver(BlobStore store, List<ReportManifest.Entry> entries) {
+            this.store = store;
+            this.entries = entries;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("The chunk receiver is closed");
+            }
+            int offset = off;
+            int length = len;
+            while (length > 0) {
+                if (received >= entries.size()) {
+                    throw new IOException("The chunk contains more than " + entries.size() + " files");
+                }
+                if (partial == null) {
+                    int count = Math.min(length, header.length - headerLength);
+                    System.arraycopy(b, offset, header, headerLength, count);
+                    headerLength += count;
+                    offset += count;
+                    length -= count;
+                    if (headerLength < header.length) {
+                        return;
+                    }
+                    headerLength = 0;
+                    remaining = ByteBuffer.wrap(header).getLong();
+                    partial = store.appendPartial(entries.get(received).getHash());
+                } else {
+                    int count = (int) Math.min(length, remaining);
+                    partial.write(b, offset, count);
+                    offset += count;
+                    length -= count;
+                    remaining -= count;
+                }
+                if (remaining == 0) {
+                    partial.close();
+                    partial = null;
+                    store.addPartial(entries.get(received).getHash());
+                    received++;
+                }
+            }
+        }
+
+        /**
+         * Checks that the whole chunk arrived
+         *
+         * @throws IOException If the chunk was cut off
+         */
+        public synchronized void finish() throws IOException {
+            if (received < entries.size()) {
+                throw new IOException("The chunk was cut off after " + received + " of " + entries.size() + " files");
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            closed = true;
+            if (partial != null) {
+                partial.close();
+                partial = null;
+            }
+        }
+    }
+}
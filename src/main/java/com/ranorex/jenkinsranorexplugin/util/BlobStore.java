@@ -0,0 +1,254 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Content-addressed file store: every file is stored once under the SHA-256 hash of its content, no matter
+ * how many reports contain it. Blobs are written to a temporary file and verified before they are renamed,
+ * so a blob is either complete or missing. Content received in pieces is collected in a partial file first,
+ * which survives an interrupted transfer and is only moved into the store once the hash matches.
+ */
+public final class BlobStore {
+    static final String INCOMING_DIRECTORY = "incoming";
+    static final String GARBAGE_MARK = "garbage";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final File root;
+
+    /**
+     * @param root The directory of the store, created on the first blob
+     */
+    public BlobStore(File root) {
+        this.root = root;
+    }
+
+    /**
+     * @param hash The SHA-256 hash of the content
+     * @return The file of the blob, it may not exist
+     */
+    public File getBlob(String hash) {
+        if (! isHash(hash)) {
+            throw new IllegalArgumentException("Not a SHA-256 hash: " + hash);
+        }
+        return new File(new File(root, hash.substring(0, 2)), hash);
+    }
+
+    /**
+     * Checks for a blob and marks it as used, so it is not collected while a build still refers to it
+     *
+     * @param hash The SHA-256 hash of the content
+     * @return True if the blob is stored
+     */
+    public boolean contains(String hash) {
+        File blob = getBlob(hash);
+        return blob.isFile() && blob.setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * @param hash The expected SHA-256 hash of the content
+     * @param in   The content, not closed by this method
+     * @throws IOException If the blob could not be written or the content does not match the hash
+     */
+    public void add(String hash, InputStream in) throws IOException {
+        File blob = getBlob(hash);
+        File directory = blob.getParentFile();
+        if (! directory.isDirectory() && ! directory.mkdirs()) {
+            throw new IOException("The directory '" + directory + "' could not be created");
+        }
+        File temp = new File(directory, hash + "." + UUID.randomUUID() + ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            try (OutputStream out = new FileOutputStream(temp)) {
+                copy(new DigestInputStream(in, digest), out);
+            }
+            String actual = toHex(digest.digest());
+            if (! actual.equals(hash)) {
+                throw new IOException("The content of blob " + hash + " has the hash " + actual);
+            }
+            //Another build may have stored the same content in the meantime
+            if (! temp.renameTo(blob) && ! blob.isFile()) {
+                throw new IOException("The blob '" + blob + "' could not be written");
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * @param hash The SHA-256 hash of the content
+     * @return The partially received content of the blob, it may not exist
+     */
+    public File getPartial(String hash) {
+        if (! isHash(hash)) {
+            throw new IllegalArgumentException("Not a SHA-256 hash: " + hash);
+        }
+        return new File(new File(root, INCOMING_DIRECTORY), hash);
+    }
+
+    /**
+     * @param hash The SHA-256 hash of the content
+     * @return A stream appending to the partial file of the blob
+     * @throws IOException If the partial file could not be opened
+     */
+    public OutputStream appendPartial(String hash) throws IOException {
+        File partial = getPartial(hash);
+        File directory = partial.getParentFile();
+        if (! directory.isDirectory() && ! directory.mkdirs()) {
+            throw new IOException("The directory '" + directory + "' could not be created");
+        }
+        return new FileOutputStream(partial, true);
+    }
+
+    /**
+     * Moves a completely received partial file into the store
+     *
+     * @param hash The expected SHA-256 hash of the content
+     * @throws IOException If the partial file could not be moved or the content does not match the hash, in
+     *                     that case the partial file is deleted
+     */
+    public void addPartial(String hash) throws IOException {
+        File partial = getPartial(hash);
+        String actual = hash(partial);
+        if (! actual.equals(hash)) {
+            partial.delete();
+            throw new IOException("The content of blob " + hash + " has the hash " + actual);
+        }
+        File blob = getBlob(hash);
+        File directory = blob.getParentFile();
+        if (! directory.isDirectory() && ! directory.mkdirs()) {
+            throw new IOException("The directory '" + directory + "' could not be created");
+        }
+        //Another build may have stored the same content in the meantime
+        if (! partial.renameTo(blob) && ! blob.isFile()) {
+            throw new IOException("The blob '" + blob + "' could not be written");
+        }
+        partial.delete();
+    }
+
+    /**
+     * Records that blobs may not be referenced any more, e.g. because a build was deleted, so the next
+     * garbage collection looks at this store
+     *
+     * @throws IOException If the mark could not be written
+     */
+    public void markGarbage() throws IOException {
+        if (! root.isDirectory() && ! root.mkdirs()) {
+            throw new IOException("The directory '" + root + "' could not be created");
+        }
+        File mark = new File(root, GARBAGE_MARK);
+        if (! mark.createNewFile() && ! mark.setLastModified(System.currentTimeMillis())) {
+            throw new IOException("The file '" + mark + "' could not be written");
+        }
+    }
+
+    /**
+     * Removes the garbage mark if it was set before the given time
+     *
+     * @param olderThan Only a mark set before this time in milliseconds is taken, so builds deleted just now
+     *                  are removed from disk before the store is collected
+     * @return True if the store was marked and the mark was removed
+     */
+    public boolean takeGarbageMark(long olderThan) {
+        File mark = new File(root, GARBAGE_MARK);
+        return mark.isFile() && mark.lastModified() < olderThan && mark.delete();
+    }
+
+    /**
+     * Deletes all blobs which are not referenced any more and partial files of abandoned transfers
+     *
+     * @param referenced The hashes of all blobs still in use
+     * @param olderThan  Only blobs last used before this time in milliseconds are deleted, so blobs of running
+     *                   builds are kept
+     * @return The number of deleted blobs
+     */
+    public int collectGarbage(Set<String> referenced, long olderThan) {
+        int deleted = 0;
+        File[] directories = root.listFiles();
+        if (directories == null) {
+            return 0;
+        }
+        for (File directory : directories) {
+            File[] blobs = directory.listFiles();
+            if (blobs == null) {
+                continue;
+            }
+            boolean incoming = directory.getName().equals(INCOMING_DIRECTORY);
+            for (File blob : blobs) {
+                if ((incoming || ! referenced.contains(blob.getName())) && blob.lastModified() < olderThan && blob.delete() && ! incoming) {
+                    deleted++;
+                }
+            }
+            //Only succeeds if the directory is empty
+            directory.delete();
+        }
+        return deleted;
+    }
+
+    /**
+     * @param file The file
+     * @return The SHA-256 hash of the content as lower case hex string
+     * @throws IOException If the file could not be read
+     */
+    public static String hash(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != - 1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @param hash Any string
+     * @return True if the string is a lower case SHA-256 hex string, so it can be used as file name
+     */
+    public static boolean isHash(String hash) {
+        if (hash == null || hash.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != - 1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -1,11 +1,13 @@
 package com.ranorex.jenkinsranorexplugin.util;
 
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 public class CmdArgument extends BaseArgument {
-    private static final ArrayList<String> IGNORE_ARGUMENTS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> IGNORE_ARGUMENTS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
             "param", "pa",
             "listconfigparams", "lcp",
             "reportfile", "rf",
@@ -19,47 +21,43 @@ public class CmdArgument extends BaseArgument {
             "trpass",
             "trrunid",
             "trrunname"
-    ));
-    private static final String SEPARATOR = ":";
+    )));
 
     public CmdArgument(String argumentString) {
         if (StringUtil.isNullOrSpace(argumentString)) {
             throw new IllegalArgumentException("Argument must be not null or empty!");
         }
-        //isValid(argumentString) &&
-        if (! isIgnored(argumentString)) {
-            try {
-                String splitArgument[] = trySplitArgument(argumentString);
-                switch (splitArgument.length) {
-                    case 3:
-                        this.value = splitArgument[2];
-                    case 2:
-                        this.name = splitArgument[1];
-                    case 1:
-                        this.flag = splitArgument[0];
-                        break;
-                }
-            } catch (InvalidParameterException e) {
-                throw e;
-            }
-        } else {
+        ArgumentParser parser = new ArgumentParser();
+        if (! parse(parser, argumentString, 0, argumentString.length())) {
             throw new InvalidParameterException("Argument '" + argumentString + "' will be ignored");
         }
+        this.flag = parser.getFlag();
+        this.name = parser.getName();
+        this.value = parser.getValue();
+    }
+
+    /**
+     * Parses the argument and checks that it is not one of the arguments which are set by the plugin itself
+     *
+     * @param parser The parser to use
+     * @param input  The string containing the argument
+     * @param start  The index of the first character of the argument
+     * @param end    The index after the last character of the argument
+     * @return true if the argument can be passed to Ranorex; otherwise false
+     */
+    public static boolean parse(ArgumentParser parser, String input, int start, int end) {
+        return parser.parseArgument(input, start, end) && ! parser.isFlagOneOf(IGNORE_ARGUMENTS);
     }
 
     public static String tryExtractFlag(String argumentString) {
         if (StringUtil.isNullOrSpace(argumentString)) {
             throw new IllegalArgumentException("Argument must not be null or empty");
         }
-        int separatorPosition = argumentString.indexOf(SEPARATOR);
-        String flag;
-        if (separatorPosition > 0) {
-            flag = argumentString.substring(0, separatorPosition);
-        } else {
-            flag = argumentString;
+        ArgumentParser parser = new ArgumentParser();
+        if (! parser.parseArgument(argumentString, 0, argumentString.length())) {
+            throw new InvalidParameterException("Argument is empty");
         }
-        flag = StringUtil.removeHeadingSlash(flag);
-        return flag;
+        return parser.getFlag();
     }
 
     //Tested
@@ -67,43 +65,22 @@ public class CmdArgument extends BaseArgument {
         if (StringUtil.isNullOrSpace(argumentString)) {
             throw new IllegalArgumentException("Argument must be not null or empty!");
         }
-        try {
-            String flag = tryExtractFlag(argumentString);
-            return IGNORE_ARGUMENTS.contains(flag);
-        } catch (IllegalArgumentException e) {
-            return true;
-        }
+        return ! parse(new ArgumentParser(), argumentString, 0, argumentString.length());
     }
 
     protected static String[] trySplitArgument(String argumentString) {
         if (StringUtil.isNullOrSpace(argumentString)) {
             throw new InvalidParameterException("Cannot split empty string");
         }
-        String flag;
-        String[] splitArgument;
-
-        int separatorPosition = argumentString.indexOf(SEPARATOR);
-        if (separatorPosition > 0) {
-            int equalsPosition = argumentString.indexOf("=");
-            if (equalsPosition < 0) {//No equal sign
-                splitArgument = new String[2];
-                splitArgument[1] = argumentString.substring(separatorPosition + 1, argumentString.length());
-            } else {
-                splitArgument = new String[3];
-                splitArgument[1] = argumentString.substring(separatorPosition + 1, equalsPosition);
-                splitArgument[2] = argumentString.substring(equalsPosition + 1, argumentString.length());
-            }
-            flag = argumentString.substring(0, separatorPosition);
-        } else {//no separator
-            splitArgument = new String[1];
-            flag = argumentString;
+        ArgumentParser parser = new ArgumentParser();
+        if (! parser.parseArgument(argumentString, 0, argumentString.length())) {
+            throw new InvalidParameterException("Argument '" + argumentString + "' is not valid");
         }
-        try {
-            flag = StringUtil.removeHeadingSlash(flag);
-        } catch (InvalidParameterException e) {
-            throw e;
+        if (parser.hasValue()) {
+            return new String[]{parser.getFlag(), parser.getName(), parser.getValue()};
+        } else if (parser.hasName()) {
+            return new String[]{parser.getFlag(), parser.getName()};
         }
-        splitArgument[0] = flag;
-        return splitArgument;
+        return new String[]{parser.getFlag()};
     }
 }
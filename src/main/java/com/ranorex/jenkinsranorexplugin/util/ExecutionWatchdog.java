@@ -0,0 +1,59 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+/**
+ * Detects a Ranorex run which takes too long in total or has not written any output for too long,
+ * e.g. because it waits for a modal dialog. A limit of 0 disables the check.
+ * <p>
+ * Output is reported by the thread reading the process output, while the thread waiting for the
+ * process calls {@link #check(long)}, so the time of the last output is volatile.
+ */
+public final class ExecutionWatchdog {
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+
+    private final long start;
+    private final long timeout;
+    private final long inactivityTimeout;
+    private volatile long lastActivity;
+
+    /**
+     * @param timeoutMinutes           The maximum duration of the run in minutes, 0 to disable
+     * @param inactivityTimeoutMinutes The maximum time without any output in minutes, 0 to disable
+     * @param start                    The time the process was started in milliseconds
+     */
+    public ExecutionWatchdog(int timeoutMinutes, int inactivityTimeoutMinutes, long start) {
+        this.timeout = Math.max(0, timeoutMinutes) * MILLIS_PER_MINUTE;
+        this.inactivityTimeout = Math.max(0, inactivityTimeoutMinutes) * MILLIS_PER_MINUTE;
+        this.start = start;
+        this.lastActivity = start;
+    }
+
+    /**
+     * @return true if at least one of the timeouts is set; otherwise false
+     */
+    public boolean isEnabled() {
+        return timeout > 0 || inactivityTimeout > 0;
+    }
+
+    /**
+     * Records that the process has written output
+     *
+     * @param now The current time in milliseconds
+     */
+    public void activity(long now) {
+        lastActivity = now;
+    }
+
+    /**
+     * @param now The current time in milliseconds
+     * @return A description of the exceeded timeout or null if the run may continue
+     */
+    public String check(long now) {
+        if (timeout > 0 && now - start >= timeout) {
+            return "the timeout of " + timeout / MILLIS_PER_MINUTE + " minutes is exceeded";
+        }
+        if (inactivityTimeout > 0 && now - lastActivity >= inactivityTimeout) {
+            return "there was no output for " + inactivityTimeout / MILLIS_PER_MINUTE + " minutes";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,93 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+/**
+ * Decides when a Ranorex run has failed so badly that waiting for the remaining test cases is a waste of time.
+ * The run is stopped once the total number of failed test cases reaches a limit, or once the share of failed
+ * test cases among the most recently completed ones reaches a percentage. A limit of 0 disables the check.
+ * <p>
+ * Test case results are reported by the thread reading the process output, while the thread waiting for the
+ * process asks {@link #isTriggered()}, so the state is guarded.
+ */
+public final class FailFastPolicy {
+    public static final int DEFAULT_WINDOW = 20;
+    public static final int MAX_WINDOW = 10000;
+
+    private final int maxFailures;
+    private final int maxFailurePercentage;
+    private final boolean[] window;
+    private int position;
+    private int completed;
+    private int failures;
+    private int windowFailures;
+    private volatile String reason;
+
+    /**
+     * @param maxFailures          The number of failed test cases which stops the run, 0 to disable
+     * @param maxFailurePercentage The percentage of failed test cases within the window which stops the run, 0 to disable
+     * @param windowSize           The number of most recently completed test cases the percentage is calculated on,
+     *                             0 to use the default of {@value #DEFAULT_WINDOW}, at most {@value #MAX_WINDOW}
+     */
+    public FailFastPolicy(int maxFailures, int maxFailurePercentage, int windowSize) {
+        this.maxFailures = Math.max(0, maxFailures);
+        this.maxFailurePercentage = Math.max(0, Math.min(100, maxFailurePercentage));
+        this.window = new boolean[windowSize > 0 ? Math.min(MAX_WINDOW, windowSize) : DEFAULT_WINDOW];
+    }
+
+    /**
+     * @return true if at least one of the limits is set; otherwise false
+     */
+    public boolean isEnabled() {
+        return maxFailures > 0 || maxFailurePercentage > 0;
+    }
+
+    /**
+     * Records the result of a completed test case
+     *
+     * @param failed If true, the test case failed
+     * @return true if the run should be stopped; otherwise false
+     */
+    public synchronized boolean testCaseCompleted(boolean failed) {
+        if (! isEnabled() || reason != null) {
+            return reason != null;
+        }
+        if (completed >= window.length && window[position]) {
+            windowFailures--;
+        }
+        window[position] = failed;
+        position = (position + 1) % window.length;
+        completed++;
+        if (failed) {
+            failures++;
+            windowFailures++;
+        }
+
+        if (maxFailures > 0 && failures >= maxFailures) {
+            reason = failures + " test cases failed";
+        } else if (maxFailurePercentage > 0 && completed >= window.length && windowFailures * 100 >= maxFailurePercentage * window.length) {
+            reason = windowFailures + " of the last " + window.length + " test cases failed";
+        }
+        return reason != null;
+    }
+
+    /**
+     * @return true if a limit has been reached; otherwise false
+     */
+    public boolean isTriggered() {
+        return reason != null;
+    }
+
+    /**
+     * @return A description of the reached limit or null if the run should continue
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @param status The status of a test case as reported by Ranorex
+     * @return true if the status is a failure; otherwise false
+     */
+    public static boolean isFailure(String status) {
+        return "Failed".equalsIgnoreCase(status) || "Error".equalsIgnoreCase(status);
+    }
+}
@@ -143,4 +143,14 @@ public abstract class FileUtil {
         }
         return fileName;
     }
+
+    /**
+     * Replaces all characters which are not allowed in a windows filename
+     *
+     * @param value The string which should be used as part of a filename
+     * @return The string with every invalid character replaced by '_'
+     */
+    public static String toValidFileName(String value) {
+        return value.trim().replaceAll("[\\\\/:*?\"<>|\\s]", "_");
+    }
 }
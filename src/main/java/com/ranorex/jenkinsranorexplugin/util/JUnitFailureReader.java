@@ -0,0 +1,35 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the names of the failed test cases from a JUnit compatible report written by Ranorex.
+ * The report is streamed, so large reports do not have to fit into memory.
+ */
+public final class JUnitFailureReader {
+    private JUnitFailureReader() {
+    }
+
+    /**
+     * @param in The JUnit report, not closed by this method
+     * @return The names of all test cases containing a failure or an error, in report order without duplicates
+     * @throws IOException If the report is not valid XML
+     */
+    public static List<String> readFailedTestCases(InputStream in) throws IOException {
+        final Set<String> failed = new LinkedHashSet<>();
+        RanorexReportParser.parseJUnit(in, new TestCaseConsumer() {
+            @Override
+            public void testCaseCompleted(String className, String name, String status, long duration, String message) {
+                if (ReportSummary.FAILED.equals(status) || ReportSummary.ERROR.equals(status)) {
+                    failed.add(name);
+                }
+            }
+        });
+        return new ArrayList<>(failed);
+    }
+}
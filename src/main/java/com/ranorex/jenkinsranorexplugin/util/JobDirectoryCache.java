@@ -0,0 +1,33 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Eviction of the caches which share the files of a job between builds, keyed by a directory in the root
+ * directory of the job
+ */
+final class JobDirectoryCache {
+    private JobDirectoryCache() {
+    }
+
+    /**
+     * Removes the entries of a deleted or moved item, so a new job at the same path starts from its own files.
+     * The caller holds the lock of the cache.
+     *
+     * @param cache The cached objects by their directory
+     * @param root  The root directory of the item
+     */
+    static void evict(Map<File, ?> cache, File root) {
+        String prefix = root.getPath() + File.separator;
+        for (Iterator<File> directories = cache.keySet().iterator(); directories.hasNext(); ) {
+            File directory = directories.next();
+            File job = directory.getParentFile();
+            //Items moved away are gone from their old directory
+            if (directory.getPath().startsWith(prefix) || job == null || ! job.isDirectory()) {
+                directories.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The global parameters and additional command line arguments of a build step, parsed and validated once.
+ * Instances are immutable and can be shared by all builds of a job.
+ */
+public final class RanorexCommandPlan {
+    private final List<String> globalParameters;
+    private final List<String> ignoredGlobalParameters;
+    private final List<String> commandLineArguments;
+    private final List<String> ignoredCommandLineArguments;
+
+    /**
+     * Parses the global parameters and command line arguments as they are entered in the job configuration
+     *
+     * @param rxGlobalParameter Global test suite parameters
+     * @param cmdLineArgs       Additional CMD line arguments
+     * @param separators        The characters separating two entries
+     */
+    public RanorexCommandPlan(String rxGlobalParameter, String cmdLineArgs, String separators) {
+        List<String> parameters = new ArrayList<>();
+        List<String> ignoredParameters = new ArrayList<>();
+        List<String> arguments = new ArrayList<>();
+        List<String> ignoredArguments = new ArrayList<>();
+
+        ArgumentParser parser = new ArgumentParser();
+        StringBuilder sb = new StringBuilder();
+
+        ArgumentTokenizer params = new ArgumentTokenizer(rxGlobalParameter, separators);
+        while (params.next()) {
+            if (RanorexParameter.parse(parser, rxGlobalParameter, params.getStart(), params.getEnd())) {
+                sb.setLength(0);
+                RanorexParameter.appendTo(parser, sb);
+                parameters.add(sb.toString());
+            } else {
+                ignoredParameters.add(params.getToken());
+            }
+        }
+
+        ArgumentTokenizer args = new ArgumentTokenizer(cmdLineArgs, separators);
+        while (args.next()) {
+            if (CmdArgument.parse(parser, cmdLineArgs, args.getStart(), args.getEnd())) {
+                sb.setLength(0);
+                parser.appendTo(sb, false, null);
+                arguments.add(sb.toString());
+            } else {
+                ignoredArguments.add(args.getToken());
+            }
+        }
+
+        this.globalParameters = Collections.unmodifiableList(parameters);
+        this.ignoredGlobalParameters = Collections.unmodifiableList(ignoredParameters);
+        this.commandLineArguments = Collections.unmodifiableList(arguments);
+        this.ignoredCommandLineArguments = Collections.unmodifiableList(ignoredArguments);
+    }
+
+    /**
+     * @return The valid global parameters, formatted as Ranorex command line arguments
+     */
+    public List<String> getGlobalParameters() {
+        return globalParameters;
+    }
+
+    /**
+     * @return The global parameters which are not valid and will not be passed to Ranorex
+     */
+    public List<String> getIgnoredGlobalParameters() {
+        return ignoredGlobalParameters;
+    }
+
+    /**
+     * @return The valid additional command line arguments
+     */
+    public List<String> getCommandLineArguments() {
+        return commandLineArguments;
+    }
+
+    /**
+     * @return The command line arguments which are not valid or are set by the plugin itself
+     */
+    public List<String> getIgnoredCommandLineArguments() {
+        return ignoredCommandLineArguments;
+    }
+}
@@ -1,51 +1,63 @@
 package com.ranorex.jenkinsranorexplugin.util;
 
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 public class RanorexParameter extends BaseArgument {
-    private static final ArrayList<String> WHITELIST_PARAM_FLAGS = new ArrayList<>(Arrays.asList(
+    private static final Set<String> WHITELIST_PARAM_FLAGS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
             "pa", "param"
-    ));
-    private static final String SEPARATOR = ":";
+    )));
+    private static final String DEFAULT_FLAG = "pa";
 
 
     public RanorexParameter(String parameterString) {
-        if (isValid(parameterString)) {
-            try {
-                String[] splitParam = trySplitArgument(parameterString);
-                this.flag = splitParam[0];
-                this.name = splitParam[1];
-                this.value = splitParam[2];
-            } catch (InvalidParameterException e) {
-                throw e;
-            }
-        } else {
+        ArgumentParser parser = new ArgumentParser();
+        if (parameterString == null || ! parse(parser, parameterString, 0, parameterString.length())) {
             throw new InvalidParameterException("'" + parameterString + "' is not a valid Parameter");
         }
+        this.flag = parser.hasFlag() ? parser.getFlag() : DEFAULT_FLAG;
+        this.name = parser.getName();
+        this.value = parser.getValue();
+    }
+
+    /**
+     * Parses the parameter and checks that it contains a name, a value and either no flag or a parameter flag
+     *
+     * @param parser The parser to use
+     * @param input  The string containing the parameter
+     * @param start  The index of the first character of the parameter
+     * @param end    The index after the last character of the parameter
+     * @return true if the parameter is valid; otherwise false
+     */
+    public static boolean parse(ArgumentParser parser, String input, int start, int end) {
+        return parser.parseParameter(input, start, end) && (! parser.hasFlag() || parser.isFlagOneOf(WHITELIST_PARAM_FLAGS));
+    }
+
+    /**
+     * Appends the parsed parameter in the form /pa:name=value
+     *
+     * @param parser A parser which successfully parsed a parameter
+     * @param sb     The target
+     */
+    public static void appendTo(ArgumentParser parser, StringBuilder sb) {
+        parser.appendTo(sb, true, DEFAULT_FLAG);
     }
 
     protected static String[] trySplitArgument(String parameterString) {
         if (StringUtil.isNullOrSpace(parameterString)) {
             throw new InvalidParameterException("Cannot split empty string");
         }
-
-        String splitParam[] = new String[3];
-        try {
-            splitParam[0] = tryExtractFlag(parameterString);
-        } catch (InvalidParameterException e) {
-            System.out.println("[INFO] [RanorexParameter]: Method tryExtractFlag() threw an InvalidParameterException \n\t" + e.getMessage() + "\n\tParameterflag 'pa' will be used as default");
-            splitParam[0] = "pa";
-        }
-        if (containsValidNameValuePair(parameterString)) {
-            int equalsPosition = parameterString.indexOf("=");
-            int separatorPosition = parameterString.indexOf(SEPARATOR);
-            splitParam[1] = parameterString.substring(separatorPosition + 1, equalsPosition);
-            splitParam[2] = parameterString.substring(equalsPosition + 1, parameterString.length());
-        } else {
+        ArgumentParser parser = new ArgumentParser();
+        if (! parser.parseParameter(parameterString, 0, parameterString.length())) {
             throw new InvalidParameterException("Parameter is not valid");
         }
+        String[] splitParam = new String[3];
+        splitParam[0] = parser.hasFlag() ? parser.getFlag() : DEFAULT_FLAG;
+        splitParam[1] = parser.getName();
+        splitParam[2] = parser.getValue();
         return splitParam;
     }
 
@@ -54,29 +66,19 @@ public class RanorexParameter extends BaseArgument {
     }
 
     public static boolean containsValidNameValuePair(String parameterString) {
-        int equalPosition = parameterString.indexOf("=");
-        return equalPosition > 0 && equalPosition < parameterString.length() - 1;
+        return parameterString != null && new ArgumentParser().parseParameter(parameterString, 0, parameterString.length());
     }
 
     public static boolean isValid(String parameterString) {
-        String flag = "";
-        try {
-            flag = tryExtractFlag(parameterString);
-        } catch (Exception e) {
-        }
-        boolean isValidNameValuePair = containsValidNameValuePair(parameterString);
-        return isValidFlag(flag) && isValidNameValuePair
-                || StringUtil.isNullOrSpace(flag) && isValidNameValuePair;
+        return parameterString != null && parse(new ArgumentParser(), parameterString, 0, parameterString.length());
     }
 
     public static String tryExtractFlag(String parameterString) {
-        int separatorPosition = parameterString.indexOf(SEPARATOR);
-        if (separatorPosition > 0) {
-            String flag = parameterString.substring(0, separatorPosition);
-            flag = StringUtil.removeHeadingSlash(flag);
-            return flag;
-        } else {
+        ArgumentParser parser = new ArgumentParser();
+        parser.parseParameter(parameterString, 0, parameterString.length());
+        if (! parser.hasFlag()) {
             throw new InvalidParameterException("Parameter '" + parameterString + "' does not contain a separator!");
         }
+        return parser.getFlag();
     }
 }
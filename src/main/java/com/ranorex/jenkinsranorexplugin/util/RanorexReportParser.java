@@ -0,0 +1,266 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Streams the reports written by Ranorex and passes every test case to a {@link TestCaseConsumer}.
+ * Both the JUnit compatible report (/junit) and the report data file next to the Ranorex report
+ * (*.rxlog.data) are read with StAX, so only the currently open elements are kept in memory and
+ * reports of any size can be processed. Nothing is resolved from outside the report.
+ */
+public final class RanorexReportParser {
+    static final int MAX_MESSAGE_LENGTH = 1024;
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private RanorexReportParser() {
+    }
+
+    /**
+     * Reads the testcase elements of a JUnit compatible report
+     *
+     * @param in       The JUnit report, not closed by this method
+     * @param consumer Receives every test case
+     * @throws IOException If the report is not valid XML
+     */
+    public static void parseJUnit(InputStream in, TestCaseConsumer consumer) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+            String className = null;
+            String testCase = null;
+            long duration = 0;
+            String status = null;
+            String message = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if ("testcase".equals(element)) {
+                        className = reader.getAttributeValue(null, "classname");
+                        testCase = reader.getAttributeValue(null, "name");
+                        duration = parseDuration(reader.getAttributeValue(null, "time"));
+                        status = ReportSummary.PASSED;
+                        message = null;
+                    } else if (testCase != null && "failure".equals(element)) {
+                        status = ReportSummary.FAILED;
+                        message = truncate(reader.getAttributeValue(null, "message"));
+                    } else if (testCase != null && "error".equals(element)) {
+                        status = ReportSummary.ERROR;
+                        message = truncate(reader.getAttributeValue(null, "message"));
+                    } else if (testCase != null && "skipped".equals(element) && ReportSummary.PASSED.equals(status)) {
+                        status = ReportSummary.SKIPPED;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "testcase".equals(reader.getLocalName())) {
+                    if (testCase != null) {
+                        consumer.testCaseCompleted(className, testCase, status, duration, message);
+                    }
+                    testCase = null;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("The JUnit report could not be read: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    /**
+     * Reads the test case activities of a Ranorex report data file. Test cases may be nested, each one
+     * is reported when its activity ends. The message of the first failure or error item inside a failed
+     * test case is used as failure message and the enclosing test suite as class name.
+     *
+     * @param in       The report data file, not closed by this method
+     * @param consumer Receives every test case
+     * @throws IOException If the report is not valid XML
+     */
+    public static void parseReportData(InputStream in, TestCaseConsumer consumer) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+            Deque<Activity> activities = new ArrayDeque<>();
+            boolean failureItem = false;
+            StringBuilder message = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if ("activity".equals(element)) {
+                        activities.push(new Activity(reader));
+                    } else if ("item".equals(element)) {
+                        String level = reader.getAttributeValue(null, "level");
+                        failureItem = "Failure".equalsIgnoreCase(level) || "Error".equalsIgnoreCase(level);
+                    } else if ("message".equals(element) && failureItem) {
+                        message = new StringBuilder();
+                    }
+                } else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) && message != null) {
+                    int length = Math.min(reader.getTextLength(), MAX_MESSAGE_LENGTH - message.length());
+                    if (length > 0) {
+                        message.append(reader.getTextCharacters(), reader.getTextStart(), length);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if ("message".equals(element) && message != null) {
+                        Activity testCase = innermostTestCase(activities);
+                        if (testCase != null && testCase.message == null) {
+                            testCase.message = message.toString().trim();
+                        }
+                        message = null;
+                    } else if ("item".equals(element)) {
+                        failureItem = false;
+                    } else if ("activity".equals(element) && ! activities.isEmpty()) {
+                        Activity activity = activities.pop();
+                        if (activity.testCase != null) {
+                            String status = reportDataStatus(activity.result);
+                            consumer.testCaseCompleted(enclosingTestSuite(activities), activity.testCase, status, activity.duration,
+                                    ReportSummary.FAILED.equals(status) || ReportSummary.ERROR.equals(status) ? activity.message : null);
+                        }
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("The Ranorex report data file could not be read: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    /**
+     * @param duration A duration in seconds like "1.5" or "1,5", or in Ranorex notation like "1m 2.5s" or "350ms"
+     * @return The duration in milliseconds, 0 if it can not be parsed
+     */
+    static long parseDuration(String duration) {
+        if (StringUtil.isNullOrSpace(duration)) {
+            return 0;
+        }
+        try {
+            double milliseconds = 0;
+            for (String part : duration.trim().replace(',', '.').split("\\s+")) {
+                if (part.endsWith("ms")) {
+                    milliseconds += Double.parseDouble(part.substring(0, part.length() - 2));
+                } else if (part.endsWith("h")) {
+                    milliseconds += Double.parseDouble(part.substring(0, part.length() - 1)) * 3600000;
+                } else if (part.endsWith("m")) {
+                    milliseconds += Double.parseDouble(part.substring(0, part.length() - 1)) * 60000;
+                } else if (part.endsWith("s")) {
+                    milliseconds += Double.parseDouble(part.substring(0, part.length() - 1)) * 1000;
+                } else {
+                    milliseconds += Double.parseDouble(part) * 1000;
+                }
+            }
+            return Math.round(milliseconds);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @param result The result of a test case activity
+     * @return The status of the test case, unknown results count as failed
+     */
+    static String reportDataStatus(String result) {
+        if (result == null || "Success".equalsIgnoreCase(result) || "Passed".equalsIgnoreCase(result)) {
+            return ReportSummary.PASSED;
+        }
+        if ("Ignored".equalsIgnoreCase(result) || "Blocked".equalsIgnoreCase(result) || "Skipped".equalsIgnoreCase(result)) {
+            return ReportSummary.SKIPPED;
+        }
+        if ("Error".equalsIgnoreCase(result) || "Aborted".equalsIgnoreCase(result)) {
+            return ReportSummary.ERROR;
+        }
+        return ReportSummary.FAILED;
+    }
+
+    private static String enclosingTestSuite(Deque<Activity> activities) {
+        for (Activity activity : activities) {
+            if (activity.testSuite != null) {
+                return activity.testSuite;
+            }
+        }
+        return null;
+    }
+
+    private static Activity innermostTestCase(Deque<Activity> activities) {
+        for (Activity activity : activities) {
+            if (activity.testCase != null) {
+                return activity;
+            }
+        }
+        return null;
+    }
+
+    static String truncate(String message) {
+        if (message == null || message.length() <= MAX_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                //nothing left to read
+            }
+        }
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        //Reports never need external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * An open activity element, only test suite and test case activities have a name
+     */
+    private static final class Activity {
+        private final String testSuite;
+        private final String testCase;
+        private final String result;
+        private final long duration;
+        private String message;
+
+        Activity(XMLStreamReader reader) {
+            String type = reader.getAttributeValue(null, "type");
+            if ("testcase".equalsIgnoreCase(type) || "test-case".equalsIgnoreCase(type)) {
+                String name = reader.getAttributeValue(null, "testcasename");
+                if (StringUtil.isNullOrSpace(name)) {
+                    name = reader.getAttributeValue(null, "displayName");
+                }
+                if (StringUtil.isNullOrSpace(name)) {
+                    name = reader.getAttributeValue(null, "name");
+                }
+                this.testCase = name == null ? "" : name;
+            } else {
+                this.testCase = null;
+            }
+            if ("testsuite".equalsIgnoreCase(type) || "test-suite".equalsIgnoreCase(type)) {
+                String name = reader.getAttributeValue(null, "testsuitename");
+                this.testSuite = StringUtil.isNullOrSpace(name) ? reader.getAttributeValue(null, "name") : name;
+            } else {
+                this.testSuite = null;
+            }
+            this.result = reader.getAttributeValue(null, "result");
+            String durationMs = reader.getAttributeValue(null, "durationms");
+            this.duration = StringUtil.isNullOrSpace(durationMs) ? parseDuration(reader.getAttributeValue(null, "duration")) : parseMilliseconds(durationMs);
+        }
+
+        private static long parseMilliseconds(String milliseconds) {
+            try {
+                return Math.round(Double.parseDouble(milliseconds.trim()));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+}
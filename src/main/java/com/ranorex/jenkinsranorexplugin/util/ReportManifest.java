@@ -0,0 +1,139 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The files of an archived report: the relative path, the size and the hash of the blob holding the content.
+ * The manifest is stored as text, one file per line: {@code <hash> <size> <path>}. Paths always use '/'.
+ */
+public final class ReportManifest implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * @param path The relative path of the file, separated by '/'
+     * @param hash The SHA-256 hash of the content
+     * @param size The size in bytes
+     */
+    public void add(String path, String hash, long size) {
+        entries.put(path, new Entry(path, hash, size));
+    }
+
+    /**
+     * Adds all files of another manifest, files with the same path are replaced
+     *
+     * @param other The other manifest
+     */
+    public void addAll(ReportManifest other) {
+        entries.putAll(other.entries);
+    }
+
+    /**
+     * @param path The relative path of the file
+     * @return The file or null if it is not part of the report
+     */
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries.values()));
+    }
+
+    /**
+     * @return The size of all files in bytes, counting files with the same content once per file
+     */
+    public long getSize() {
+        long size = 0;
+        for (Entry entry : entries.values()) {
+            size += entry.getSize();
+        }
+        return size;
+    }
+
+    /**
+     * @param file The manifest file
+     * @throws IOException If the file could not be written
+     */
+    public void write(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            for (Entry entry : entries.values()) {
+                out.write(entry.getHash() + " " + entry.getSize() + " " + entry.getPath() + "\n");
+            }
+        }
+        if (file.exists() && ! file.delete() || ! temp.renameTo(file)) {
+            throw new IOException("The report manifest '" + file + "' could not be written");
+        }
+    }
+
+    /**
+     * @param file The manifest file
+     * @return The manifest, empty if the file does not exist
+     * @throws IOException If the file could not be read or is damaged
+     */
+    public static ReportManifest read(File file) throws IOException {
+        ReportManifest manifest = new ReportManifest();
+        if (! file.isFile()) {
+            return manifest;
+        }
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split(" ", 3);
+                if (parts.length != 3 || ! BlobStore.isHash(parts[0])) {
+                    throw new IOException("The report manifest '" + file + "' is damaged: " + line);
+                }
+                try {
+                    manifest.add(parts[2], parts[0], Long.parseLong(parts[1]));
+                } catch (NumberFormatException e) {
+                    throw new IOException("The report manifest '" + file + "' is damaged: " + line, e);
+                }
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * A single file of the report
+     */
+    public static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String path;
+        private final String hash;
+        private final long size;
+
+        Entry(String path, String hash, long size) {
+            this.path = path;
+            this.hash = hash;
+            this.size = size;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Merges the JUnit reports and report data files of several runs, e.g. run configurations and reruns,
+ * into one JUnit report. A test case is identified by its group, class name, name and iteration, i.e. how
+ * often it occurred before in the same report, so the iterations of a data driven test case are kept
+ * apart while the same test case in a later report is a rerun. The attempt read last wins and the failures
+ * of earlier attempts are kept as {@code rerunFailure} or {@code flakyFailure} elements like Maven Surefire
+ * writes them.
+ * <p>
+ * The reports are streamed twice: the first pass finds the last attempt of every test case, the second
+ * pass copies these test cases including their output. Only one small record per distinct test case is
+ * kept in memory, never the content of a report.
+ */
+public final class ReportMerger {
+    private static final String DATA_SUFFIX = ".data";
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final Map<String, List<File>> groups = new LinkedHashMap<>();
+
+    /**
+     * @param group  The group of the report, e.g. the run configuration, empty for none. Every group becomes
+     *               a test suite of the merged report.
+     * @param report A JUnit report or a report data file (*.data). Reports are added in the order they were
+     *               written, so the attempt of a later report wins.
+     */
+    public void add(String group, File report) {
+        List<File> reports = groups.get(group);
+        if (reports == null) {
+            reports = new ArrayList<>();
+            groups.put(group, reports);
+        }
+        reports.add(report);
+    }
+
+    /**
+     * @param out The merged JUnit report, not closed by this method
+     * @return The summary of the last attempt of every test case, named like the test cases of the summary of a run
+     * @throws IOException If a report could not be read or the merged report could not be written
+     */
+    public ReportSummary merge(OutputStream out) throws IOException {
+        Map<String, GroupIndex> indexes = new LinkedHashMap<>();
+        for (Map.Entry<String, List<File>> group : groups.entrySet()) {
+            indexes.put(group.getKey(), index(group.getValue()));
+        }
+        ReportSummary summary = new ReportSummary();
+        XMLStreamWriter writer = null;
+        try {
+            writer = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("testsuites");
+            for (Map.Entry<String, List<File>> group : groups.entrySet()) {
+                GroupIndex index = indexes.get(group.getKey());
+                writer.writeStartElement("testsuite");
+                writer.writeAttribute("name", group.getKey().isEmpty() ? "Ranorex" : group.getKey());
+                writer.writeAttribute("tests", Integer.toString(index.testCases.size()));
+                writer.writeAttribute("failures", Integer.toString(index.count(ReportSummary.FAILED)));
+                writer.writeAttribute("errors", Integer.toString(index.count(ReportSummary.ERROR)));
+                writer.writeAttribute("skipped", Integer.toString(index.count(ReportSummary.SKIPPED)));
+                writer.writeAttribute("time", formatSeconds(index.duration()));
+                String prefix = group.getKey().isEmpty() ? "" : group.getKey() + " / ";
+                List<File> reports = group.getValue();
+                for (int i = 0; i < reports.size(); i++) {
+                    copyLastAttempts(reports.get(i), i, index, prefix, writer, summary);
+                }
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException("The merged JUnit report could not be written: " + e.getMessage(), e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (XMLStreamException e) {
+                    //Already failed or complete
+                }
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * First pass: finds the last attempt of every test case of a group
+     */
+    private static GroupIndex index(List<File> reports) throws IOException {
+        final GroupIndex index = new GroupIndex();
+        for (int i = 0; i < reports.size(); i++) {
+            final int report = i;
+            File file = reports.get(i);
+            if (isReportData(file)) {
+                final int[] position = {0};
+                try (InputStream in = open(file)) {
+                    RanorexReportParser.parseReportData(in, new TestCaseConsumer() {
+                        @Override
+                        public void testCaseCompleted(String className, String name, String status, long duration, String message) {
+                            index.addAttempt(className, name, report, position[0]++, status, duration, message);
+                        }
+                    });
+                }
+                continue;
+            }
+            try (InputStream in = open(file)) {
+                XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+                try {
+                    int position = 0;
+                    String className = null;
+                    String name = null;
+                    long duration = 0;
+                    String status = null;
+                    String message = null;
+                    while (reader.hasNext()) {
+                        int event = reader.next();
+                        if (event == XMLStreamConstants.START_ELEMENT) {
+                            String element = reader.getLocalName();
+                            if ("testcase".equals(element)) {
+                                className = reader.getAttributeValue(null, "classname");
+                                name = reader.getAttributeValue(null, "name");
+                                duration = RanorexReportParser.parseDuration(reader.getAttributeValue(null, "time"));
+                                status = ReportSummary.PASSED;
+                                message = null;
+                            } else if (name != null && ("failure".equals(element) || "error".equals(element))) {
+                                status = "failure".equals(element) ? ReportSummary.FAILED : ReportSummary.ERROR;
+                                message = RanorexReportParser.truncate(reader.getAttributeValue(null, "message"));
+                            } else if (name != null && "skipped".equals(element) && ReportSummary.PASSED.equals(status)) {
+                                status = ReportSummary.SKIPPED;
+                            }
+                        } else if (event == XMLStreamConstants.END_ELEMENT && "testcase".equals(reader.getLocalName()) && name != null) {
+                            index.addAttempt(className, name, report, position++, status, duration, message);
+                            name = null;
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("The JUnit report '" + file + "' could not be read: " + e.getMessage(), e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Second pass: copies the test cases of a report which are the last attempt
+     */
+    private static void copyLastAttempts(File file, final int report, final GroupIndex index, final String prefix,
+                                         final XMLStreamWriter writer, final ReportSummary summary) throws IOException, XMLStreamException {
+        if (isReportData(file)) {
+            final int[] position = {0};
+            final XMLStreamException[] failure = {null};
+            try (InputStream in = open(file)) {
+                RanorexReportParser.parseReportData(in, new TestCaseConsumer() {
+                    @Override
+                    public void testCaseCompleted(String className, String name, String status, long duration, String message) {
+                        TestCase testCase = index.lastAttempt(report, position[0]++);
+                        if (testCase == null || failure[0] != null) {
+                            return;
+                        }
+                        summary.addTestCase(className, prefix + name, testCase.iteration, status, duration, message);
+                        try {
+                            writer.writeStartElement("testcase");
+                            writer.writeAttribute("classname", className == null ? "" : className);
+                            writer.writeAttribute("name", name);
+                            writer.writeAttribute("time", formatSeconds(duration));
+                            if (ReportSummary.FAILED.equals(status) || ReportSummary.ERROR.equals(status)) {
+                                writer.writeStartElement(ReportSummary.FAILED.equals(status) ? "failure" : "error");
+                                writer.writeAttribute("message", message == null ? "" : message);
+                                writer.writeEndElement();
+                            } else if (ReportSummary.SKIPPED.equals(status)) {
+                                writer.writeEmptyElement("skipped");
+                            }
+                            writeEarlierAttempts(writer, testCase);
+                            writer.writeEndElement();
+                        } catch (XMLStreamException e) {
+                            failure[0] = e;
+                        }
+                    }
+                });
+            }
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            return;
+        }
+        try (InputStream in = open(file)) {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                int position = 0;
+                int depth = 0;
+                TestCase copied = null;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (copied == null) {
+                        if (event == XMLStreamConstants.START_ELEMENT && "testcase".equals(reader.getLocalName())) {
+                            copied = index.lastAttempt(report, position++);
+                            if (copied == null) {
+                                skipElement(reader);
+                            } else {
+                                summary.addTestCase(copied.className, prefix + reader.getAttributeValue(null, "name"), copied.iteration,
+                                        copied.status, copied.duration, copied.message);
+                                depth = 1;
+                                copyStartElement(reader, writer);
+                            }
+                        }
+                        continue;
+                    }
+                    switch (event) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            depth++;
+                            copyStartElement(reader, writer);
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            depth--;
+                            if (depth == 0) {
+                                writeEarlierAttempts(writer, copied);
+                                copied = null;
+                            }
+                            writer.writeEndElement();
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.SPACE:
+                            writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                            break;
+                        case XMLStreamConstants.CDATA:
+                            writer.writeCData(reader.getText());
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("The JUnit report '" + file + "' could not be read: " + e.getMessage(), e);
+        }
+    }
+
+    private static void copyStartElement(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(reader.getLocalName());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static void writeEarlierAttempts(XMLStreamWriter writer, TestCase testCase) throws XMLStreamException {
+        boolean passed = ! ReportSummary.FAILED.equals(testCase.status) && ! ReportSummary.ERROR.equals(testCase.status);
+        for (Attempt attempt : testCase.earlierFailures) {
+            String kind = ReportSummary.ERROR.equals(attempt.status) ? "Error" : "Failure";
+            writer.writeStartElement((passed ? "flaky" : "rerun") + kind);
+            writer.writeAttribute("message", attempt.message == null ? "" : attempt.message);
+            writer.writeEndElement();
+        }
+    }
+
+    private static String identity(String className, String name) {
+        return (className == null ? "" : className) + '\u0000' + (name == null ? "" : name);
+    }
+
+    private static boolean isReportData(File file) {
+        return file.getName().endsWith(DATA_SUFFIX);
+    }
+
+    private static InputStream open(File file) throws IOException {
+        return new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+    }
+
+    static String formatSeconds(long milliseconds) {
+        return String.format(Locale.ROOT, "%.3f", milliseconds / 1000.0);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    /**
+     * The last attempt of every test case of a group. The attempts are referenced by the index of the
+     * report and the position of the test case in the report. The reports are added in order, one after
+     * the other.
+     */
+    private static final class GroupIndex {
+        private final Map<String, TestCase> testCases = new HashMap<>();
+        private final Map<Long, TestCase> lastAttempts = new HashMap<>();
+        private final Map<String, Integer> iterations = new HashMap<>();
+        private int report = - 1;
+
+        void addAttempt(String className, String name, int report, int position, String status, long duration, String message) {
+            //A test case repeated within a report is another iteration, not a rerun
+            if (report != this.report) {
+                iterations.clear();
+                this.report = report;
+            }
+            String identity = identity(className, name);
+            Integer iteration = iterations.get(identity);
+            iteration = iteration == null ? 1 : iteration + 1;
+            iterations.put(identity, iteration);
+            String key = identity + '\u0000' + iteration;
+            TestCase testCase = testCases.get(key);
+            if (testCase == null) {
+                testCase = new TestCase(className, iteration);
+                testCases.put(key, testCase);
+            } else {
+                lastAttempts.remove(testCase.position);
+                if (ReportSummary.FAILED.equals(testCase.status) || ReportSummary.ERROR.equals(testCase.status)) {
+                    testCase.earlierFailures.add(new Attempt(testCase.status, testCase.message));
+                }
+            }
+            testCase.position = position(report, position);
+            testCase.status = status;
+            testCase.duration = duration;
+            testCase.message = message;
+            lastAttempts.put(testCase.position, testCase);
+        }
+
+        TestCase lastAttempt(int report, int position) {
+            return lastAttempts.get(position(report, position));
+        }
+
+        int count(String status) {
+            int count = 0;
+            for (TestCase testCase : testCases.values()) {
+                if (status.equals(testCase.status)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        long duration() {
+            long duration = 0;
+            for (TestCase testCase : testCases.values()) {
+                duration += testCase.duration;
+            }
+            return duration;
+        }
+
+        private static long position(int report, int position) {
+            return (long) report << 32 | position & 0xffffffffL;
+        }
+    }
+
+    private static final class TestCase {
+        private final String className;
+        private final int iteration;
+        private long position;
+        private String status;
+        private long duration;
+        private String message;
+        private final List<Attempt> earlierFailures = new ArrayList<>(0);
+
+        TestCase(String className, int iteration) {
+            this.className = className;
+            this.iteration = iteration;
+        }
+    }
+
+    private static final class Attempt {
+        private final String status;
+        private final String message;
+
+        Attempt(String status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+}
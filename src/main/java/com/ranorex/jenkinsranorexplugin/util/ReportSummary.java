@@ -0,0 +1,249 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact result of the reports of a Ranorex run: the result and duration of every test case, but no
+ * screenshots or log entries. It is built on the agent next to the reports and only the summary is sent
+ * to the controller. A test case is identified by its class name, its name and its iteration, i.e. how often
+ * it occurred before in the same report, so equally named test cases of different suites and the iterations
+ * of a data driven test case are all counted. If a test case is added more than once, e.g. by a rerun, the
+ * last result counts.
+ */
+public final class ReportSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_MESSAGE_LENGTH = 500;
+
+    public static final String PASSED = "Passed";
+    public static final String FAILED = "Failed";
+    public static final String ERROR = "Error";
+    public static final String SKIPPED = "Skipped";
+
+    private final Map<String, TestCaseResult> testCases = new LinkedHashMap<>();
+
+    /**
+     * Adds a test case without class name as first iteration
+     *
+     * @param name     The name of the test case
+     * @param status   One of {@link #PASSED}, {@link #FAILED}, {@link #ERROR} or {@link #SKIPPED}
+     * @param duration The duration in milliseconds
+     * @param message  The failure message or null
+     */
+    public void addTestCase(String name, String status, long duration, String message) {
+        addTestCase(null, name, 1, status, duration, message);
+    }
+
+    /**
+     * @param className The class name or test suite of the test case, null if unknown
+     * @param name      The name of the test case
+     * @param iteration The occurrence of the test case within its report, starting at 1
+     * @param status    One of {@link #PASSED}, {@link #FAILED}, {@link #ERROR} or {@link #SKIPPED}
+     * @param duration  The duration in milliseconds
+     * @param message   The failure message or null
+     */
+    public synchronized void addTestCase(String className, String name, int iteration, String status, long duration, String message) {
+        if (message != null && message.length() > MAX_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_MESSAGE_LENGTH) + "...";
+        }
+        TestCaseResult result = new TestCaseResult(className, name, iteration, status, duration, message);
+        //Remove first, so a rerun test case moves to the end
+        testCases.remove(result.getKey());
+        testCases.put(result.getKey(), result);
+    }
+
+    /**
+     * @param prefix Put in front of every test case name, e.g. the run configuration
+     * @return A consumer adding the test cases of one report, repeated test cases within the report are
+     * added as further iterations
+     */
+    public TestCaseConsumer report(final String prefix) {
+        return new TestCaseConsumer() {
+            private final Map<String, Integer> iterations = new HashMap<>();
+
+            @Override
+            public void testCaseCompleted(String className, String name, String status, long duration, String message) {
+                String key = key(className, prefix + name, 0);
+                Integer iteration = iterations.get(key);
+                iteration = iteration == null ? 1 : iteration + 1;
+                iterations.put(key, iteration);
+                addTestCase(className, prefix + name, iteration, status, duration, message);
+            }
+        };
+    }
+
+    /**
+     * Adds all test cases of another summary, results in the other summary win
+     *
+     * @param other The summary to add
+     */
+    public synchronized void addAll(ReportSummary other) {
+        for (TestCaseResult result : other.getTestCases()) {
+            testCases.remove(result.getKey());
+            testCases.put(result.getKey(), result);
+        }
+    }
+
+    public synchronized List<TestCaseResult> getTestCases() {
+        return Collections.unmodifiableList(new ArrayList<>(testCases.values()));
+    }
+
+    public synchronized int getTotal() {
+        return testCases.size();
+    }
+
+    public int getPassed() {
+        return count(PASSED);
+    }
+
+    /**
+     * @return The number of failed test cases including errors
+     */
+    public int getFailed() {
+        return count(FAILED) + count(ERROR);
+    }
+
+    public int getSkipped() {
+        return count(SKIPPED);
+    }
+
+    /**
+     * @return The sum of all test case durations in milliseconds
+     */
+    public synchronized long getDuration() {
+        long duration = 0;
+        for (TestCaseResult result : testCases.values()) {
+            duration += result.getDuration();
+        }
+        return duration;
+    }
+
+    /**
+     * @return The failed test cases including errors, in report order
+     */
+    public synchronized List<TestCaseResult> getFailures() {
+        List<TestCaseResult> failures = new ArrayList<>();
+        for (TestCaseResult result : testCases.values()) {
+            if (result.isFailed()) {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * @param count The maximum number of test cases
+     * @return The slowest test cases, the slowest first
+     */
+    public synchronized List<TestCaseResult> getSlowest(int count) {
+        List<TestCaseResult> slowest = new ArrayList<>(testCases.values());
+        Collections.sort(slowest, new Comparator<TestCaseResult>() {
+            @Override
+            public int compare(TestCaseResult first, TestCaseResult second) {
+                return Long.compare(second.getDuration(), first.getDuration());
+            }
+        });
+        return slowest.subList(0, Math.min(count, slowest.size()));
+    }
+
+    private static String key(String className, String name, int iteration) {
+        return (className == null ? "" : className) + '\u0000' + name + '\u0000' + iteration;
+    }
+
+    private synchronized int count(String status) {
+        int count = 0;
+        for (TestCaseResult result : testCases.values()) {
+            if (status.equals(result.getStatus())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The result of a single test case
+     */
+    public static final class TestCaseResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String className;
+        private final String name;
+        private final int iteration;
+        private final String status;
+        private final long duration;
+        private final String message;
+
+        TestCaseResult(String className, String name, int iteration, String status, long duration, String message) {
+            this.className = className == null ? "" : className;
+            this.name = name;
+            this.iteration = iteration;
+            this.status = status;
+            this.duration = duration;
+            this.message = message;
+        }
+
+        /**
+         * @return The class name or test suite of the test case, empty if unknown
+         */
+        public String getClassName() {
+            //Empty for results stored before the class name was kept
+            return className == null ? "" : className;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The occurrence of the test case within its report, starting at 1
+         */
+        public int getIteration() {
+            return Math.max(iteration, 1);
+        }
+
+        /**
+         * @return The name followed by the class name and, from the second iteration on, the iteration
+         */
+        public String getDisplayName() {
+            StringBuilder displayName = new StringBuilder(name);
+            if (! getClassName().isEmpty()) {
+                displayName.append(" (").append(getClassName()).append(')');
+            }
+            if (getIteration() > 1) {
+                displayName.append(" #").append(getIteration());
+            }
+            return displayName.toString();
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        /**
+         * @return The duration in milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return The failure message or null
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        String getKey() {
+            return key(getClassName(), name, getIteration());
+        }
+
+        public boolean isFailed() {
+            return FAILED.equals(status) || ERROR.equals(status);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a zip archive whose entries are compressed in parallel, each into a part file of its own, while
+ * other entries are still being added. The archive is assembled from the part files at the end, which only
+ * copies bytes. Files that are already compressed, like screenshots, are stored without compressing them
+ * again. An entry added again after its file changed is compressed again.
+ */
+public final class ReportZip implements Closeable {
+    static final long MAX_SIZE = 0xFFFFFFFFL;
+    static final int MAX_ENTRIES = 0xFFFF;
+    private static final String[] STORED_EXTENSIONS = {".png", ".jpg", ".jpeg", ".gif", ".zip", ".rxzlog"};
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int VERSION = 20;
+    private static final int UTF8_NAMES = 0x800;
+
+    private final File partsDirectory;
+    private final ExecutorService executor;
+    private final Map<String, Pending> entries = new TreeMap<>();
+    private final AtomicInteger partNumber = new AtomicInteger();
+
+    /**
+     * @param partsDirectory The directory for the compressed entries, deleted when the zip is closed
+     * @param threads        The number of entries compressed at the same time
+     */
+    public ReportZip(File partsDirectory, int threads) {
+        this.partsDirectory = partsDirectory;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    }
+
+    /**
+     * Compresses a file in the background, unless it was added before and did not change since
+     *
+     * @param name The name of the entry, separated by '/'
+     * @param file The file
+     * @return True if the file is compressed, false if the entry is up to date
+     * @throws IOException If the parts directory could not be created
+     */
+    public synchronized boolean add(String name, final File file) throws IOException {
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        Pending pending = entries.get(name);
+        if (pending != null) {
+            if (pending.length == length && pending.lastModified == lastModified) {
+                return false;
+            }
+            pending.compression.cancel(true);
+        }
+        if (! partsDirectory.isDirectory() && ! partsDirectory.mkdirs()) {
+            throw new IOException("The directory '" + partsDirectory + "' could not be created");
+        }
+        final File part = new File(partsDirectory, Integer.toString(partNumber.incrementAndGet()));
+        final boolean stored = isStored(name);
+        Future<Entry> compression = executor.submit(new Callable<Entry>() {
+            @Override
+            public Entry call() throws IOException {
+                return compress(file, part, stored, lastModified);
+            }
+        });
+        entries.put(name, new Pending(length, lastModified, compression));
+        return true;
+    }
+
+    /**
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Waits for all entries and writes the zip, replacing an existing file
+     *
+     * @param zip The zip file
+     * @throws IOException          If an entry could not be compressed or the zip could not be written
+     * @throws InterruptedException If the thread is interrupted while waiting for the entries
+     */
+    public synchronized void write(File zip) throws IOException, InterruptedException {
+        if (entries.size() > MAX_ENTRIES) {
+            throw new IOException("A zip file holds at most " + MAX_ENTRIES + " files, the report has " + entries.size());
+        }
+        Map<String, Entry> completed = new TreeMap<>();
+        for (Map.Entry<String, Pending> pending : entries.entrySet()) {
+            try {
+                completed.put(pending.getKey(), pending.getValue().compression.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("The file '" + pending.getKey() + "' could not be compressed", e.getCause());
+            }
+        }
+        File temp = new File(zip.getPath() + ".tmp");
+        try (CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            List<Long> offsets = new ArrayList<>();
+            byte[] buffer = new byte[64 * 1024];
+            for (Map.Entry<String, Entry> entry : completed.entrySet()) {
+                offsets.add(checkSize(out.count));
+                writeHeader(out, LOCAL_HEADER, entry.getKey(), entry.getValue(), 0);
+                entry.getValue().copyTo(out, buffer);
+            }
+            long centralDirectory = checkSize(out.count);
+            int i = 0;
+            for (Map.Entry<String, Entry> entry : completed.entrySet()) {
+                writeHeader(out, CENTRAL_HEADER, entry.getKey(), entry.getValue(), offsets.get(i++));
+            }
+            long centralDirectorySize = checkSize(out.count - centralDirectory);
+            writeInt(out, END_OF_CENTRAL_DIRECTORY);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeShort(out, completed.size());
+            writeShort(out, completed.size());
+            writeInt(out, centralDirectorySize);
+            writeInt(out, centralDirectory);
+            writeShort(out, 0);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (zip.exists() && ! zip.delete() || ! temp.renameTo(zip)) {
+            temp.delete();
+            throw new IOException("The zip file '" + zip + "' could not be written");
+        }
+    }
+
+    /**
+     * Stops the compression and deletes the part files
+     */
+    @Override
+    public synchronized void close() {
+        executor.shutdownNow();
+        File[] parts = partsDirectory.listFiles();
+        if (parts != null) {
+            for (File part : parts) {
+                part.delete();
+            }
+        }
+        partsDirectory.delete();
+    }
+
+    static boolean isStored(String name) {
+        String lowerCase = name.toLowerCase(Locale.ROOT);
+        for (String extension : STORED_EXTENSIONS) {
+            if (lowerCase.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entry compress(File file, File part, boolean stored, long lastModified) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            if (stored) {
+                int read;
+                while ((read = in.read(buffer)) != - 1) {
+                    crc.update(buffer, 0, read);
+                    size += read;
+                }
+                //Stored entries are copied from the file itself when the zip is written
+                return new Entry(file, null, crc.getValue(), size, size, lastModified);
+            }
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try (OutputStream out = new DeflaterOutputStream(new FileOutputStream(part), deflater, buffer.length)) {
+                int read;
+                while ((read = in.read(buffer)) != - 1) {
+                    if (Thread.interrupted()) {
+                        throw new IOException("The compression of '" + file + "' was cancelled");
+                    }
+                    crc.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            } finally {
+                deflater.end();
+            }
+        } catch (IOException e) {
+            part.delete();
+            throw e;
+        }
+        return new Entry(file, part, crc.getValue(), size, part.length(), lastModified);
+    }
+
+    private static void writeHeader(OutputStream out, int signature, String name, Entry entry, long offset) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        boolean central = signature == CENTRAL_HEADER;
+        writeInt(out, signature);
+        if (central) {
+            writeShort(out, VERSION);
+        }
+        writeShort(out, VERSION);
+        writeShort(out, UTF8_NAMES);
+        writeShort(out, entry.part == null ? 0 : 8);
+        writeInt(out, entry.dosTime);
+        writeInt(out, entry.crc);
+        writeInt(out, checkSize(entry.compressedSize));
+        writeInt(out, checkSize(entry.size));
+        writeShort(out, nameBytes.length);
+        writeShort(out, 0);
+        if (central) {
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeInt(out, 0);
+            writeInt(out, offset);
+        }
+        out.write(nameBytes);
+    }
+
+    private static long checkSize(long size) throws IOException {
+        if (size >= MAX_SIZE) {
+            throw new IOException("The report is too large for a zip file without ZIP64 extensions");
+        }
+        return size;
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+    }
+
+    private static void writeInt(OutputStream out, long value) throws IOException {
+        writeShort(out, (int) (value & 0xffff));
+        writeShort(out, (int) ((value >>> 16) & 0xffff));
+    }
+
+    static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (long) (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21 | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11 | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    private static final class Pending {
+        private final long length;
+        private final long lastModified;
+        private final Future<Entry> compression;
+
+        Pending(long length, long lastModified, Future<Entry> compression) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.compression = compression;
+        }
+    }
+
+    private static final class Entry {
+        private final File file;
+        private final File part;
+        private final long crc;
+        private final long size;
+        private final long compressedSize;
+        private final long dosTime;
+
+        Entry(File file, File part, long crc, long size, long compressedSize, long lastModified) {
+            this.file = file;
+            this.part = part;
+            this.crc = crc;
+            this.size = size;
+            this.compressedSize = compressedSize;
+            this.dosTime = toDosTime(lastModified);
+        }
+
+        void copyTo(OutputStream out, byte[] buffer) throws IOException {
+            CRC32 check = part == null ? new CRC32() : null;
+            try (InputStream in = new FileInputStream(part == null ? file : part)) {
+                long remaining = compressedSize;
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read == - 1) {
+                        throw new EOFException("The file '" + file + "' changed while it was compressed");
+                    }
+                    if (check != null) {
+                        check.update(buffer, 0, read);
+                    }
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+            if (check != null && check.getValue() != crc) {
+                throw new IOException("The file '" + file + "' changed while it was compressed");
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
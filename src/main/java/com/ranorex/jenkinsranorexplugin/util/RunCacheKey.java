@@ -0,0 +1,126 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds a SHA-256 hash over everything which determines the outcome of a Ranorex run: the test exe file
+ * and its assemblies, the input files declared by the user and the command line. Every entry is added
+ * together with its name and length, so moving content from one entry to another changes the key.
+ * <p>
+ * An instance must not be shared between threads.
+ */
+public final class RunCacheKey {
+    /**
+     * The files of the bin directory which belong to the compiled test suite. Reports written to the
+     * same directory must not change the key.
+     */
+    public static final Set<String> BINARY_EXTENSIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "exe", "dll", "config", "rxtst", "rxtmg", "rxrep")));
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final MessageDigest digest;
+    private final byte[] buffer = new byte[64 * 1024];
+
+    public RunCacheKey() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @param name  The kind of the value, e.g. "argument"
+     * @param value The value
+     */
+    public void addString(String name, String value) {
+        addEntry(name);
+        addEntry(value == null ? "" : value);
+    }
+
+    /**
+     * Adds the name and the content of a file
+     *
+     * @param name The name identifying the file, e.g. the path relative to the workspace
+     * @param file The file
+     * @throws IOException If the file could not be read
+     */
+    public void addFile(String name, File file) throws IOException {
+        addEntry(name);
+        updateLength(file.length());
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != - 1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Adds all files of a directory and its subdirectories with one of the {@link #BINARY_EXTENSIONS},
+     * ordered by their relative path
+     *
+     * @param directory The bin directory of the test suite
+     * @throws IOException If a file could not be read
+     */
+    public void addBinaries(File directory) throws IOException {
+        addBinaries(directory, "");
+    }
+
+    private void addBinaries(File directory, String prefix) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = prefix + file.getName();
+            if (file.isDirectory()) {
+                addBinaries(file, name + "/");
+            } else if (BINARY_EXTENSIONS.contains(getExtension(file.getName()))) {
+                addFile(name, file);
+            }
+        }
+    }
+
+    /**
+     * @return The key as lower case hex string, the instance must not be used afterwards
+     */
+    public String toHex() {
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    private void addEntry(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateLength(bytes.length);
+        digest.update(bytes);
+    }
+
+    private void updateLength(long length) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            digest.update((byte) (length >>> shift));
+        }
+    }
+
+    private static String getExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ENGLISH);
+    }
+}
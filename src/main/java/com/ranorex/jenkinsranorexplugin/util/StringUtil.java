@@ -3,7 +3,6 @@ package com.ranorex.jenkinsranorexplugin.util;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.StringTokenizer;
 
 public abstract class StringUtil {
 
@@ -27,7 +26,16 @@ public abstract class StringUtil {
      * @return True if the String is null or Space
      */
     public static boolean isNullOrSpace(String value) {
-        return (value == null || value.trim().length() == 0);
+        if (value == null) {
+            return true;
+        }
+        //Same characters as String.trim() removes, without creating a new string
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -60,17 +68,38 @@ public abstract class StringUtil {
     }
 
 
+    /**
+     * Splits the input string by each of the given delimiters, empty entries are left out
+     *
+     * @param input      The string which should be split
+     * @param delimiters Every character of this string separates two entries
+     * @return List of entries
+     */
     public static List<String> splitBy(String input, String delimiters) {
-        StringTokenizer valuesToknzr = new StringTokenizer(input, delimiters);
+        ArgumentTokenizer tokenizer = new ArgumentTokenizer(input, delimiters);
         ArrayList<String> splitInput = new ArrayList<>();
-        while (valuesToknzr.hasMoreTokens()) {
-            String value = valuesToknzr.nextToken();
-            if (! StringUtil.isNullOrSpace(value)) {
-                splitInput.add(value);
-            }
+        while (tokenizer.next()) {
+            splitInput.add(tokenizer.getToken());
         }
         return splitInput;
+    }
 
+    /**
+     * Joins the given values with the separator
+     *
+     * @param values    The values which should be joined
+     * @param separator The separator placed between two values
+     * @return The joined string
+     */
+    public static String join(List<String> values, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(separator);
+            }
+            sb.append(value);
+        }
+        return sb.toString();
     }
 
     /**
@@ -84,9 +113,17 @@ public abstract class StringUtil {
             throw new InvalidParameterException("Argument is empty");
         }
         int positionOfSlash = value.indexOf('/');
-        if (positionOfSlash >= 0) {
-            return value.replace("/", "");
+        if (positionOfSlash < 0) {
+            return value;
         }
-        return value;
+        StringBuilder sb = new StringBuilder(value.length() - 1);
+        sb.append(value, 0, positionOfSlash);
+        for (int i = positionOfSlash + 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '/') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
     }
 }
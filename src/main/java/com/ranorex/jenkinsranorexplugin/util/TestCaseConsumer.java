@@ -0,0 +1,16 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+/**
+ * Receives the test cases found by {@link RanorexReportParser}, one call per completed test case
+ */
+public interface TestCaseConsumer {
+    /**
+     * @param className The class name of the test case in a JUnit report or the test suite in a report data file, null if unknown
+     * @param name      The name of the test case
+     * @param status    One of {@link ReportSummary#PASSED}, {@link ReportSummary#FAILED}, {@link ReportSummary#ERROR}
+     *                  or {@link ReportSummary#SKIPPED}
+     * @param duration  The duration in milliseconds, 0 if unknown
+     * @param message   The first failure message or null
+     */
+    void testCaseCompleted(String className, String name, String status, long duration, String message);
+}
@@ -0,0 +1,74 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes the test case markers in the console output of a Ranorex test exe file, e.g.
+ * <pre>
+ * [2018/05/02 10:15:01.123][Info    ][Test]: Test Case 'Login' started.
+ * [2018/05/02 10:15:09.456][Success ][Test]: Test Case 'Login' completed with status 'Success'.
+ * </pre>
+ * The parser is fed one line at a time and keeps the result of the last line until the next one is parsed.
+ * An instance must not be shared between threads.
+ */
+public final class TestCaseOutputParser {
+    private static final String MARKER = "Test Case '";
+    private static final Pattern STARTED = Pattern.compile("Test Case '(.+?)'[^']*\\bstarted\\b");
+    private static final Pattern COMPLETED = Pattern.compile("Test Case '(.+?)'[^']*\\bcompleted with status '(\\w+)'");
+
+    public enum Event {
+        NONE, STARTED, COMPLETED
+    }
+
+    private Event event = Event.NONE;
+    private String testCase;
+    private String status;
+
+    /**
+     * Parses a single line of the console output
+     *
+     * @param line The line without line terminator
+     * @return The kind of marker found in the line, NONE for all other output
+     */
+    public Event parseLine(String line) {
+        event = Event.NONE;
+        testCase = null;
+        status = null;
+        //Most lines are no markers, so avoid running the regular expressions on them
+        if (line == null || ! line.contains(MARKER)) {
+            return event;
+        }
+        Matcher completed = COMPLETED.matcher(line);
+        if (completed.find()) {
+            event = Event.COMPLETED;
+            testCase = completed.group(1);
+            status = completed.group(2);
+            return event;
+        }
+        Matcher started = STARTED.matcher(line);
+        if (started.find()) {
+            event = Event.STARTED;
+            testCase = started.group(1);
+        }
+        return event;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * @return The name of the test case of the last marker or null
+     */
+    public String getTestCase() {
+        return testCase;
+    }
+
+    /**
+     * @return The status of a completed test case, e.g. Success or Failed, otherwise null
+     */
+    public String getStatus() {
+        return status;
+    }
+}
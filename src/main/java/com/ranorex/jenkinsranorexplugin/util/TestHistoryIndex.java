@@ -0,0 +1,449 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append-only history of the test case results of a job. Every build appends one fixed size record per
+ * test case, the names of test cases and failure signatures are stored once in a separate name table.
+ * Queries scan the records backwards from the newest one without touching any report and stop as soon as
+ * enough entries are found. A record cut off by a crash is ignored and overwritten by the next build.
+ * Deleted builds are listed separately and skipped by queries; their records are removed once enough
+ * builds were deleted.
+ *
+ * <pre>
+ * names.dat   modified UTF-8 strings, the position of a string is its id
+ * records.dat build (int), timestamp (long), test case id (int), status (byte), duration in ms (int),
+ *             failure signature id (int, -1 if none)
+ * deleted.dat build (int) of every deleted build whose records are not removed yet
+ * </pre>
+ */
+public final class TestHistoryIndex {
+    static final String NAMES_FILE = "names.dat";
+    static final String RECORDS_FILE = "records.dat";
+    static final String DELETED_FILE = "deleted.dat";
+    static final int COMPACT_THRESHOLD = 100;
+    static final int RECORD_SIZE = 4 + 8 + 4 + 1 + 4 + 4;
+    static final int MAX_SIGNATURE_LENGTH = 200;
+    private static final int NO_SIGNATURE = -1;
+    private static final String[] STATUSES = {ReportSummary.PASSED, ReportSummary.FAILED, ReportSummary.ERROR, ReportSummary.SKIPPED};
+    private static final Map<File, TestHistoryIndex> INDEXES = new HashMap<>();
+
+    private final File namesFile;
+    private final File recordsFile;
+    private final File deletedFile;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private long namesLength = -1;
+    private Set<Integer> deletedBuilds;
+
+    TestHistoryIndex(File directory) {
+        this.namesFile = new File(directory, NAMES_FILE);
+        this.recordsFile = new File(directory, RECORDS_FILE);
+        this.deletedFile = new File(directory, DELETED_FILE);
+    }
+
+    /**
+     * @param directory The directory of the index, created on the first append
+     * @return The index of the directory, shared by all callers so the name table is only read once
+     */
+    public static synchronized TestHistoryIndex get(File directory) {
+        TestHistoryIndex index = INDEXES.get(directory);
+        if (index == null) {
+            index = new TestHistoryIndex(directory);
+            INDEXES.put(directory, index);
+        }
+        return index;
+    }
+
+    /**
+     * Drops the shared indexes of a deleted or moved item, so a new job at the same path starts from its own files
+     *
+     * @param root The root directory of the item
+     */
+    public static synchronized void evict(File root) {
+        JobDirectoryCache.evict(INDEXES, root);
+    }
+
+    /**
+     * @return True if at least one build was added
+     */
+    public boolean exists() {
+        return recordsFile.length() >= RECORD_SIZE;
+    }
+
+    /**
+     * Appends the results of a build
+     *
+     * @param build     The build number
+     * @param timestamp The start time of the build in milliseconds
+     * @param summary   The test case results of the build
+     * @throws IOException If the index could not be written
+     */
+    public synchronized void append(int build, long timestamp, ReportSummary summary) throws IOException {
+        File directory = recordsFile.getParentFile();
+        if (! directory.isDirectory() && ! directory.mkdirs()) {
+            throw new IOException("The directory '" + directory + "' could not be created");
+        }
+        loadNames();
+        if (loadDeleted().size() >= COMPACT_THRESHOLD) {
+            compact();
+        }
+        try {
+            appendRecords(build, timestamp, summary);
+        } catch (IOException e) {
+            //Read the name table again, it may not contain the names added in memory
+            namesLength = -1;
+            throw e;
+        }
+    }
+
+    private void appendRecords(int build, long timestamp, ReportSummary summary) throws IOException {
+        //Names first, so every record refers to a stored name
+        ByteArrayOutputStream newNames = new ByteArrayOutputStream();
+        DataOutputStream namesOut = new DataOutputStream(newNames);
+        ByteArrayOutputStream records = new ByteArrayOutputStream(summary.getTotal() * RECORD_SIZE);
+        DataOutputStream recordsOut = new DataOutputStream(records);
+        for (ReportSummary.TestCaseResult result : summary.getTestCases()) {
+            int testCase = idOf(result.getDisplayName(), namesOut);
+            String signature = result.isFailed() ? signature(result.getMessage()) : null;
+            recordsOut.writeInt(build);
+            recordsOut.writeLong(timestamp);
+            recordsOut.writeInt(testCase);
+            recordsOut.writeByte(statusCode(result.getStatus()));
+            recordsOut.writeInt((int) Math.min(Integer.MAX_VALUE, Math.max(0, result.getDuration())));
+            recordsOut.writeInt(signature == null ? NO_SIGNATURE : idOf(signature, namesOut));
+        }
+        append(namesFile, namesLength, newNames.toByteArray());
+        namesLength += newNames.size();
+        long recordsLength = recordsFile.length();
+        append(recordsFile, recordsLength - recordsLength % RECORD_SIZE, records.toByteArray());
+    }
+
+    /**
+     * Removes the results of a deleted build from all queries. The records themselves are removed by a later
+     * append once {@link #COMPACT_THRESHOLD} builds were deleted, so deleting many builds stays cheap.
+     *
+     * @param build The build number
+     * @throws IOException If the deleted build could not be recorded
+     */
+    public synchronized void remove(int build) throws IOException {
+        if (! loadDeleted().add(build)) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(deletedFile, true))) {
+            out.writeInt(build);
+        }
+    }
+
+    /**
+     * @param testCase The name of the test case as shown in the summary of a build, including its class name
+     * @param limit    The maximum number of entries
+     * @return The latest results of the test case, the newest first
+     * @throws IOException If the index could not be read
+     */
+    public synchronized List<Entry> findByTestCase(String testCase, int limit) throws IOException {
+        loadNames();
+        Integer id = ids.get(testCase);
+        if (id == null) {
+            return new ArrayList<>();
+        }
+        return scan(id, null, Long.MIN_VALUE, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * @param message A failure message or signature, it is normalized like the stored signatures
+     * @param limit   The maximum number of entries
+     * @return The latest failures with the same signature, the newest first
+     * @throws IOException If the index could not be read
+     */
+    public synchronized List<Entry> findBySignature(String message, int limit) throws IOException {
+        loadNames();
+        Integer id = ids.get(signature(message));
+        if (id == null) {
+            return new ArrayList<>();
+        }
+        return scan(null, id, Long.MIN_VALUE, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * @param from  The earliest build start time in milliseconds, inclusive
+     * @param to    The latest build start time in milliseconds, inclusive
+     * @param limit The maximum number of entries
+     * @return The latest results of all builds started in the time range, the newest first
+     * @throws IOException If the index could not be read
+     */
+    public synchronized List<Entry> findByTime(long from, long to, int limit) throws IOException {
+        loadNames();
+        return scan(null, null, from, to, limit);
+    }
+
+    /**
+     * Groups failure messages which only differ in numbers like times, counts or ids
+     *
+     * @param message The failure message
+     * @return The failure signature or null if there is no message
+     */
+    public static String signature(String message) {
+        if (StringUtil.isNullOrSpace(message)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(Math.min(message.length(), MAX_SIGNATURE_LENGTH));
+        boolean space = false;
+        for (int i = 0; i < message.length() && sb.length() < MAX_SIGNATURE_LENGTH; i++) {
+            char c = message.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            boolean digit = Character.isDigit(c);
+            //A number is replaced by a single #
+            if (digit && ! space && sb.length() > 0 && sb.charAt(sb.length() - 1) == '#') {
+                continue;
+            }
+            if (space) {
+                sb.append(' ');
+                space = false;
+            }
+            sb.append(digit ? '#' : c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads the records from the newest to the oldest until enough entries are found
+     */
+    private List<Entry> scan(Integer testCase, Integer signature, long from, long to, int limit) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (! recordsFile.isFile() || limit <= 0) {
+            return entries;
+        }
+        Set<Integer> deleted = loadDeleted();
+        try (RandomAccessFile file = new RandomAccessFile(recordsFile, "r"); FileChannel channel = file.getChannel()) {
+            long end = channel.size() - channel.size() % RECORD_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            while (end > 0 && entries.size() < limit) {
+                int size = (int) Math.min(buffer.capacity(), end);
+                long start = end - size;
+                buffer.clear();
+                buffer.limit(size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        throw new EOFException("The test history ended unexpectedly");
+                    }
+                }
+                for (int record = size - RECORD_SIZE; record >= 0 && entries.size() < limit; record -= RECORD_SIZE) {
+                    int build = buffer.getInt(record);
+                    long timestamp = buffer.getLong(record + 4);
+                    int testCaseId = buffer.getInt(record + 12);
+                    byte status = buffer.get(record + 16);
+                    int duration = buffer.getInt(record + 17);
+                    int signatureId = buffer.getInt(record + 21);
+                    //A damaged record is skipped rather than failing every query
+                    if (status < 0 || status >= STATUSES.length || deleted.contains(build)) {
+                        continue;
+                    }
+                    if ((testCase == null || testCase == testCaseId) && (signature == null || signature == signatureId)
+                            && timestamp >= from && timestamp <= to) {
+                        entries.add(new Entry(build, timestamp, nameOf(testCaseId), STATUSES[status], duration,
+                                signatureId == NO_SIGNATURE ? null : nameOf(signatureId)));
+                    }
+                }
+                end = start;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Rewrites the records without the records of the deleted builds
+     */
+    private void compact() throws IOException {
+        Set<Integer> deleted = loadDeleted();
+        if (recordsFile.isFile()) {
+            File temp = new File(recordsFile.getParentFile(), RECORDS_FILE + ".tmp");
+            long length = recordsFile.length() - recordsFile.length() % RECORD_SIZE;
+            byte[] record = new byte[RECORD_SIZE];
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(recordsFile)));
+                 OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+                for (long position = 0; position < length; position += RECORD_SIZE) {
+                    in.readFully(record);
+                    if (! deleted.contains(ByteBuffer.wrap(record).getInt())) {
+                        out.write(record);
+                    }
+                }
+            }
+            Files.move(temp.toPath(), recordsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        //Deleted builds listed again after a crash here are just skipped once more
+        if (deletedFile.exists() && ! deletedFile.delete()) {
+            throw new IOException("The file '" + deletedFile + "' could not be deleted");
+        }
+        deleted.clear();
+    }
+
+    private String nameOf(int id) {
+        return id >= 0 && id < names.size() ? names.get(id) : "";
+    }
+
+    private int idOf(String name, DataOutputStream newNames) throws IOException {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+            newNames.writeUTF(name);
+        }
+        return id;
+    }
+
+    private Set<Integer> loadDeleted() throws IOException {
+        if (deletedBuilds == null) {
+            Set<Integer> deleted = new HashSet<>();
+            if (deletedFile.isFile()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(deletedFile)))) {
+                    for (long i = deletedFile.length() / 4; i > 0; i--) {
+                        deleted.add(in.readInt());
+                    }
+                }
+            }
+            deletedBuilds = deleted;
+        }
+        return deletedBuilds;
+    }
+
+    /**
+     * Reads the names appended since the last call, a name cut off by a crash is dropped
+     */
+    private void loadNames() throws IOException {
+        if (namesLength < 0) {
+            names.clear();
+            ids.clear();
+            namesLength = 0;
+        }
+        long length = namesFile.length();
+        if (length <= namesLength) {
+            return;
+        }
+        byte[] tail = new byte[(int) (length - namesLength)];
+        try (RandomAccessFile file = new RandomAccessFile(namesFile, "r")) {
+            file.seek(namesLength);
+            file.readFully(tail);
+        }
+        int position = 0;
+        while (position + 2 <= tail.length) {
+            int size = ((tail[position] & 0xff) << 8) | (tail[position + 1] & 0xff);
+            if (position + 2 + size > tail.length) {
+                break;
+            }
+            String name = new DataInputStream(new ByteArrayInputStream(tail, position, 2 + size)).readUTF();
+            ids.put(name, names.size());
+            names.add(name);
+            position += 2 + size;
+        }
+        namesLength += position;
+    }
+
+    private static void append(File file, long validLength, byte[] data) throws IOException {
+        if (data.length == 0) {
+            return;
+        }
+        if (file.length() > validLength) {
+            try (RandomAccessFile truncate = new RandomAccessFile(file, "rw")) {
+                truncate.setLength(validLength);
+            }
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(data);
+        }
+    }
+
+    private static byte statusCode(String status) {
+        for (byte i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return i;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * The result of a test case in one build
+     */
+    public static final class Entry {
+        private final int build;
+        private final long timestamp;
+        private final String testCase;
+        private final String status;
+        private final long duration;
+        private final String signature;
+
+        Entry(int build, long timestamp, String testCase, String status, long duration, String signature) {
+            this.build = build;
+            this.timestamp = timestamp;
+            this.testCase = testCase;
+            this.status = status;
+            this.duration = duration;
+            this.signature = signature;
+        }
+
+        public int getBuild() {
+            return build;
+        }
+
+        /**
+         * @return The start time of the build in milliseconds
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Date getDate() {
+            return new Date(timestamp);
+        }
+
+        public String getTestCase() {
+            return testCase;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        /**
+         * @return The duration in milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return The failure signature or null
+         */
+        public String getSignature() {
+            return signature;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import hudson.ProxyConfiguration;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Minimal client of the TestRail API v2, it only adds the results of several test cases to a test run in
+ * a single request ({@code add_results_for_cases}). The request body is written by hand, so the client
+ * does not depend on a JSON library.
+ */
+public final class TestRailClient {
+    public static final int STATUS_PASSED = 1;
+    public static final int STATUS_FAILED = 5;
+    private static final int CONNECT_TIMEOUT = 30000;
+    private static final int READ_TIMEOUT = 120000;
+    private static final int MAX_ERROR_LENGTH = 300;
+
+    private final String url;
+    private final String authorization;
+
+    /**
+     * @param url      The address of the TestRail instance, e.g. https://example.testrail.io
+     * @param user     The TestRail user
+     * @param password The password or API key of the user
+     */
+    public TestRailClient(String url, String user, String password) {
+        this.url = url.endsWith("/") ? url : url + "/";
+        this.authorization = "Basic " + DatatypeConverter.printBase64Binary((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param runId   The ID of the test run, with or without the leading R
+     * @param results The results to add
+     * @throws RequestException If TestRail rejected the request or could not be reached. Only requests which
+     *                          were not connected or were answered with a rate limit or a server error are
+     *                          retryable; after the results were sent TestRail may have added them already.
+     */
+    public void addResultsForCases(String runId, List<Result> results) throws RequestException {
+        String id = runId.trim();
+        if (id.startsWith("R") || id.startsWith("r")) {
+            id = id.substring(1);
+        }
+        byte[] body = toJson(results).getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = null;
+        try {
+            //Honors the proxy configured in Jenkins
+            connection = (HttpURLConnection) ProxyConfiguration.open(new URL(url + "index.php?/api/v2/add_results_for_cases/" + id));
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("Authorization", authorization);
+            try {
+                connection.connect();
+            } catch (IOException e) {
+                throw new RequestException("TestRail could not be reached: " + e.getMessage(), true, 0);
+            }
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            if (status / 100 == 2) {
+                read(connection.getInputStream());
+                return;
+            }
+            String error = read(connection.getErrorStream());
+            //Rate limits and server errors are temporary, anything else is rejected for good
+            boolean retryable = status == 429 || status / 100 == 5;
+            throw new RequestException("TestRail answered " + status + ": " + error, retryable, retryAfter(connection));
+        } catch (RequestException e) {
+            throw e;
+        } catch (IOException e) {
+            //add_results_for_cases is not idempotent, sending the results again could add them twice
+            throw new RequestException("The request to TestRail failed: " + e.getMessage(), false, 0);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    static String toJson(List<Result> results) {
+        StringBuilder json = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"case_id\":").append(result.getCaseId())
+                    .append(",\"status_id\":").append(result.getStatusId());
+            long seconds = Math.round(result.getDuration() / 1000.0);
+            //TestRail rejects an elapsed time of 0
+            if (seconds > 0) {
+                json.append(",\"elapsed\":\"").append(seconds).append("s\"");
+            }
+            if (result.getComment() != null) {
+                json.append(",\"comment\":");
+                appendString(json, result.getComment());
+            }
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static long retryAfter(HttpURLConnection connection) {
+        String retryAfter = connection.getHeaderField("Retry-After");
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(retryAfter.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != - 1) {
+                if (out.size() < MAX_ERROR_LENGTH) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        return text.length() > MAX_ERROR_LENGTH ? text.substring(0, MAX_ERROR_LENGTH) : text;
+    }
+
+    /**
+     * The result of a single TestRail test case
+     */
+    public static final class Result {
+        private final int caseId;
+        private final int statusId;
+        private final long duration;
+        private final String comment;
+
+        /**
+         * @param caseId   The ID of the TestRail test case without the leading C
+         * @param statusId {@link #STATUS_PASSED} or {@link #STATUS_FAILED}
+         * @param duration The duration in milliseconds
+         * @param comment  The failure message or null
+         */
+        public Result(int caseId, int statusId, long duration, String comment) {
+            this.caseId = caseId;
+            this.statusId = statusId;
+            this.duration = duration;
+            this.comment = comment;
+        }
+
+        public int getCaseId() {
+            return caseId;
+        }
+
+        public int getStatusId() {
+            return statusId;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        public String getComment() {
+            return comment;
+        }
+    }
+
+    /**
+     * A request TestRail did not accept
+     */
+    public static final class RequestException extends IOException {
+        private static final long serialVersionUID = 1L;
+        private final boolean retryable;
+        private final long retryAfter;
+
+        RequestException(String message, boolean retryable, long retryAfter) {
+            super(message);
+            this.retryable = retryable;
+            this.retryAfter = retryAfter;
+        }
+
+        /**
+         * @return true if the same request may succeed later, e.g. after a rate limit or a server error
+         */
+        public boolean isRetryable() {
+            return retryable;
+        }
+
+        /**
+         * @return The time in milliseconds TestRail asked to wait before the next request, 0 if not given
+         */
+        public long getRetryAfter() {
+            return retryAfter;
+        }
+    }
+}
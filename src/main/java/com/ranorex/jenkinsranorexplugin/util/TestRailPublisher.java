@@ -0,0 +1,178 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Publishes test case results to a TestRail run in the background. The results of a run are split into
+ * batches which are sent with one {@code add_results_for_cases} request each by a small pool of workers,
+ * so the caller never waits for TestRail. Batches rejected with a rate limit or a server error, or not sent
+ * because TestRail could not be connected, are sent again after a growing delay. A batch which failed after
+ * it was sent is not repeated, TestRail may have added its results already.
+ * <p>
+ * A test case is mapped to TestRail by the case ID in its name, e.g. "C1234 Login" or "Login_C1234".
+ * Test cases without a case ID and skipped test cases are not published.
+ */
+public final class TestRailPublisher {
+    public static final int BATCH_SIZE = 250;
+    public static final int THREADS = 2;
+    public static final int MAX_ATTEMPTS = 4;
+    public static final long BACKOFF = 2000;
+    private static final Pattern CASE_ID = Pattern.compile("(?:^|[^A-Za-z0-9])C(\\d{1,9})(?![0-9])");
+
+    private final TestRailClient client;
+    private final String runId;
+    private final int batchSize;
+    private final long backoff;
+    private final ExecutorService workers;
+    private final AtomicInteger published = new AtomicInteger();
+    private final AtomicInteger withoutCaseId = new AtomicInteger();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * @param client The client of the TestRail instance
+     * @param runId  The ID of the TestRail run
+     */
+    public TestRailPublisher(TestRailClient client, String runId) {
+        this(client, runId, THREADS, BATCH_SIZE, BACKOFF);
+    }
+
+    TestRailPublisher(TestRailClient client, String runId, int threads, int batchSize, long backoff) {
+        this.client = client;
+        this.runId = runId;
+        this.batchSize = batchSize;
+        this.backoff = backoff;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+        this.workers = executor;
+    }
+
+    /**
+     * Queues the results of a summary and returns immediately
+     *
+     * @param summary The test cases of a run
+     */
+    public void publish(ReportSummary summary) {
+        List<TestRailClient.Result> batch = new ArrayList<>();
+        for (ReportSummary.TestCaseResult testCase : summary.getTestCases()) {
+            if (ReportSummary.SKIPPED.equals(testCase.getStatus())) {
+                continue;
+            }
+            int caseId = getCaseId(testCase.getName());
+            if (caseId < 0) {
+                withoutCaseId.incrementAndGet();
+                continue;
+            }
+            batch.add(new TestRailClient.Result(caseId, testCase.isFailed() ? TestRailClient.STATUS_FAILED : TestRailClient.STATUS_PASSED,
+                    testCase.getDuration(), testCase.getMessage()));
+            if (batch.size() == batchSize) {
+                submit(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (! batch.isEmpty()) {
+            submit(batch);
+        }
+    }
+
+    /**
+     * Waits until all queued results are published or given up
+     *
+     * @param timeout The maximum time to wait in milliseconds
+     * @return true if all batches were sent, false if the timeout elapsed and the remaining batches were dropped
+     * @throws InterruptedException If the build is aborted while waiting, the remaining batches are dropped
+     */
+    public boolean finish(long timeout) throws InterruptedException {
+        workers.shutdown();
+        try {
+            if (workers.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            errors.add("Publishing the results took longer than " + timeout / 1000 + " seconds, the remaining results were dropped");
+            return false;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Drops the queued batches and interrupts the workers without waiting, called when the build step fails
+     */
+    public void cancel() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * @return The number of results TestRail accepted
+     */
+    public int getPublished() {
+        return published.get();
+    }
+
+    /**
+     * @return The number of test cases which were not published because their name contains no case ID
+     */
+    public int getWithoutCaseId() {
+        return withoutCaseId.get();
+    }
+
+    /**
+     * @return A message for every batch which could not be published
+     */
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    /**
+     * @param name The name of a test case, optionally with a run configuration in front
+     * @return The TestRail case ID in the name or -1 if it has none
+     */
+    static int getCaseId(String name) {
+        //Only the test case itself, a run configuration in front of it may look like a case ID too
+        int separator = name.lastIndexOf(" / ");
+        Matcher matcher = CASE_ID.matcher(separator < 0 ? name : name.substring(separator + 3));
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : - 1;
+    }
+
+    private void submit(final List<TestRailClient.Result> batch) {
+        workers.execute(new Runnable() {
+            @Override
+            public void run() {
+                send(batch);
+            }
+        });
+    }
+
+    private void send(List<TestRailClient.Result> batch) {
+        long delay = backoff;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                client.addResultsForCases(runId, batch);
+                published.addAndGet(batch.size());
+                return;
+            } catch (TestRailClient.RequestException e) {
+                if (! e.isRetryable() || attempt == MAX_ATTEMPTS) {
+                    errors.add(batch.size() + " results could not be published after " + attempt + " attempts: " + e.getMessage());
+                    return;
+                }
+                try {
+                    Thread.sleep(Math.max(delay, e.getRetryAfter()));
+                } catch (InterruptedException interrupted) {
+                    errors.add(batch.size() + " results were not published, the build was aborted");
+                    return;
+                }
+                delay *= 2;
+            }
+        }
+    }
+}
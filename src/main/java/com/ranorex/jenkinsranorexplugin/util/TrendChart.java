@@ -0,0 +1,115 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders the buckets of a {@link TrendHistory} as a simple SVG line chart. The chart is drawn from the
+ * pre-aggregated buckets only, so rendering takes the same time for any number of builds.
+ */
+public final class TrendChart {
+    static final int WIDTH = 500;
+    static final int HEIGHT = 200;
+    private static final int MARGIN = 40;
+    private static final String[] COLORS = {"#729fcf", "#ef2929", "#fcaf3e", "#8ae234", "#ad7fa8", "#e9b96e", "#888a85"};
+
+    private TrendChart() {
+    }
+
+    /**
+     * @param buckets The buckets, the oldest first
+     * @return A chart of the average number of passed, failed and skipped test cases per build
+     */
+    public static String renderCounts(List<TrendHistory.Bucket> buckets) {
+        Map<String, double[]> series = new LinkedHashMap<>();
+        double[] passed = new double[buckets.size()];
+        double[] failed = new double[buckets.size()];
+        double[] skipped = new double[buckets.size()];
+        for (int i = 0; i < buckets.size(); i++) {
+            passed[i] = buckets.get(i).getPassed();
+            failed[i] = buckets.get(i).getFailed();
+            skipped[i] = buckets.get(i).getSkipped();
+        }
+        series.put(ReportSummary.PASSED, passed);
+        series.put(ReportSummary.FAILED, failed);
+        series.put(ReportSummary.SKIPPED, skipped);
+        return render("Test cases", series, buckets);
+    }
+
+    /**
+     * @param buckets The buckets, the oldest first
+     * @return A chart of the average duration in minutes of the whole run and of every run configuration
+     */
+    public static String renderDurations(List<TrendHistory.Bucket> buckets) {
+        Map<String, double[]> series = new LinkedHashMap<>();
+        series.put("Total", new double[buckets.size()]);
+        for (int i = 0; i < buckets.size(); i++) {
+            TrendHistory.Bucket bucket = buckets.get(i);
+            series.get("Total")[i] = bucket.getDuration() / 60000.0;
+            for (Map.Entry<String, Long> entry : bucket.getRunConfigurationDurations().entrySet()) {
+                if (! series.containsKey(entry.getKey())) {
+                    if (series.size() >= COLORS.length) {
+                        continue;
+                    }
+                    series.put(entry.getKey(), new double[buckets.size()]);
+                }
+                series.get(entry.getKey())[i] = entry.getValue() / 60000.0;
+            }
+        }
+        return render("Duration (min)", series, buckets);
+    }
+
+    private static String render(String title, Map<String, double[]> series, List<TrendHistory.Bucket> buckets) {
+        double max = 1;
+        for (double[] values : series.values()) {
+            for (double value : values) {
+                max = Math.max(max, value);
+            }
+        }
+        int plotWidth = WIDTH - 2 * MARGIN;
+        int plotHeight = HEIGHT - 2 * MARGIN;
+        StringBuilder svg = new StringBuilder(4096);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(WIDTH).append("\" height=\"").append(HEIGHT)
+                .append("\" font-family=\"sans-serif\" font-size=\"10\">");
+        svg.append("<text x=\"").append(MARGIN).append("\" y=\"15\" font-size=\"12\">").append(escape(title)).append("</text>");
+        svg.append("<text x=\"").append(MARGIN - 5).append("\" y=\"").append(MARGIN).append("\" text-anchor=\"end\">")
+                .append(format(max)).append("</text>");
+        svg.append("<text x=\"").append(MARGIN - 5).append("\" y=\"").append(HEIGHT - MARGIN).append("\" text-anchor=\"end\">0</text>");
+        svg.append("<rect x=\"").append(MARGIN).append("\" y=\"").append(MARGIN).append("\" width=\"").append(plotWidth)
+                .append("\" height=\"").append(plotHeight).append("\" fill=\"none\" stroke=\"#ccc\"/>");
+        if (! buckets.isEmpty()) {
+            svg.append("<text x=\"").append(MARGIN).append("\" y=\"").append(HEIGHT - MARGIN + 15).append("\">#")
+                    .append(buckets.get(0).getFirstBuild()).append("</text>");
+            svg.append("<text x=\"").append(WIDTH - MARGIN).append("\" y=\"").append(HEIGHT - MARGIN + 15).append("\" text-anchor=\"end\">#")
+                    .append(buckets.get(buckets.size() - 1).getLastBuild()).append("</text>");
+        }
+        int color = 0;
+        for (Map.Entry<String, double[]> entry : series.entrySet()) {
+            double[] values = entry.getValue();
+            List<String> points = new ArrayList<>(values.length);
+            for (int i = 0; i < values.length; i++) {
+                double x = MARGIN + (values.length == 1 ? plotWidth / 2.0 : (double) plotWidth * i / (values.length - 1));
+                double y = HEIGHT - MARGIN - plotHeight * values[i] / max;
+                points.add(format(x) + "," + format(y));
+            }
+            svg.append("<polyline fill=\"none\" stroke-width=\"2\" stroke=\"").append(COLORS[color]).append("\" points=\"")
+                    .append(StringUtil.join(points, " ")).append("\"/>");
+            svg.append("<text x=\"").append(MARGIN + 90 * color).append("\" y=\"").append(HEIGHT - 8).append("\" fill=\"")
+                    .append(COLORS[color]).append("\">").append(escape(entry.getKey())).append("</text>");
+            color++;
+        }
+        svg.append("</svg>");
+        return svg.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,324 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-aggregated trend of a job which stays the same size however many builds are added. The newest
+ * builds are kept one by one, older builds are merged into buckets of 10, 100 and 1000 builds. Each
+ * level holds at most {@link #LEVEL_CAPACITY} buckets, so a chart never reads more than
+ * {@link #MAX_BUCKETS} buckets. Buckets are merged when a build is added, never when the trend is read.
+ */
+public final class TrendHistory {
+    static final String TREND_FILE = "trend.dat";
+    static final int LEVEL_CAPACITY = 30;
+    static final int MERGE_FACTOR = 10;
+    static final int LEVELS = 4;
+    public static final int MAX_BUCKETS = LEVEL_CAPACITY * LEVELS;
+    private static final int VERSION = 1;
+    private static final Map<File, TrendHistory> TRENDS = new HashMap<>();
+
+    private final File trendFile;
+    private List<List<Bucket>> levels;
+
+    TrendHistory(File directory) {
+        this.trendFile = new File(directory, TREND_FILE);
+    }
+
+    /**
+     * @param directory The directory of the trend file, created on the first build
+     * @return The trend of the directory, shared by all callers so it is only read once
+     */
+    public static synchronized TrendHistory get(File directory) {
+        TrendHistory trend = TRENDS.get(directory);
+        if (trend == null) {
+            trend = new TrendHistory(directory);
+            TRENDS.put(directory, trend);
+        }
+        return trend;
+    }
+
+    /**
+     * Drops the shared trends of a deleted or moved item, so a new job at the same path starts from its own files
+     *
+     * @param root The root directory of the item
+     */
+    public static synchronized void evict(File root) {
+        JobDirectoryCache.evict(TRENDS, root);
+    }
+
+    /**
+     * @return True if at least one build was added
+     */
+    public boolean exists() {
+        return trendFile.isFile();
+    }
+
+    /**
+     * Adds the results of a build step. Several build steps of the same build are added to the same bucket.
+     *
+     * @param build                     The build number
+     * @param passed                    The number of passed test cases
+     * @param failed                    The number of failed test cases
+     * @param skipped                   The number of skipped test cases
+     * @param duration                  The duration of the Ranorex runs in milliseconds
+     * @param runConfigurationDurations The duration of every run configuration in milliseconds
+     * @throws IOException If the trend could not be written
+     */
+    public synchronized void addBuild(int build, int passed, int failed, int skipped, long duration, Map<String, Long> runConfigurationDurations) throws IOException {
+        load();
+        List<Bucket> newest = levels.get(0);
+        Bucket last = newest.isEmpty() ? null : newest.get(newest.size() - 1);
+        if (last != null && last.firstBuild == build && last.lastBuild == build) {
+            last.add(passed, failed, skipped, duration, runConfigurationDurations);
+        } else {
+            Bucket bucket = new Bucket(build);
+            bucket.add(passed, failed, skipped, duration, runConfigurationDurations);
+            newest.add(bucket);
+            compact();
+        }
+        save();
+    }
+
+    /**
+     * @return All buckets, the oldest first, at most {@link #MAX_BUCKETS}
+     * @throws IOException If the trend could not be read
+     */
+    public synchronized List<Bucket> getBuckets() throws IOException {
+        load();
+        List<Bucket> buckets = new ArrayList<>();
+        for (int level = levels.size() - 1; level >= 0; level--) {
+            for (Bucket bucket : levels.get(level)) {
+                buckets.add(bucket.copy());
+            }
+        }
+        return buckets;
+    }
+
+    private void compact() {
+        for (int level = 0; level < levels.size(); level++) {
+            List<Bucket> buckets = levels.get(level);
+            if (buckets.size() <= LEVEL_CAPACITY) {
+                return;
+            }
+            if (level == levels.size() - 1) {
+                //The oldest builds fall out of the trend
+                buckets.remove(0);
+                return;
+            }
+            Bucket merged = buckets.remove(0);
+            for (int i = 1; i < MERGE_FACTOR; i++) {
+                merged.merge(buckets.remove(0));
+            }
+            levels.get(level + 1).add(merged);
+        }
+    }
+
+    private void load() throws IOException {
+        if (levels != null) {
+            return;
+        }
+        levels = new ArrayList<>();
+        for (int level = 0; level < LEVELS; level++) {
+            levels.add(new ArrayList<Bucket>());
+        }
+        if (! trendFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(trendFile)))) {
+            if (in.readInt() != VERSION) {
+                //Written by another plugin version, start over
+                return;
+            }
+            int levelCount = Math.min(in.readInt(), LEVELS);
+            for (int level = 0; level < levelCount; level++) {
+                int bucketCount = in.readInt();
+                for (int i = 0; i < bucketCount; i++) {
+                    levels.get(level).add(Bucket.read(in));
+                }
+            }
+        } catch (EOFException e) {
+            //A damaged trend is started over, the next build replaces it
+            for (List<Bucket> buckets : levels) {
+                buckets.clear();
+            }
+        }
+    }
+
+    private void save() throws IOException {
+        File directory = trendFile.getParentFile();
+        if (! directory.isDirectory() && ! directory.mkdirs()) {
+            throw new IOException("The directory '" + directory + "' could not be created");
+        }
+        //Write a copy first, so a crash never leaves a half written trend
+        File temp = new File(directory, TREND_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(VERSION);
+            out.writeInt(levels.size());
+            for (List<Bucket> buckets : levels) {
+                out.writeInt(buckets.size());
+                for (Bucket bucket : buckets) {
+                    bucket.write(out);
+                }
+            }
+        }
+        if (trendFile.exists() && ! trendFile.delete() || ! temp.renameTo(trendFile)) {
+            throw new IOException("The Ranorex trend '" + trendFile + "' could not be replaced");
+        }
+    }
+
+    /**
+     * The sums of one or more consecutive builds
+     */
+    public static final class Bucket {
+        private int firstBuild;
+        private int lastBuild;
+        private int builds;
+        private long passed;
+        private long failed;
+        private long skipped;
+        private long duration;
+        private final Map<String, Long> runConfigurationDurations = new LinkedHashMap<>();
+
+        Bucket(int build) {
+            this.firstBuild = build;
+            this.lastBuild = build;
+            this.builds = 1;
+        }
+
+        void add(int passed, int failed, int skipped, long duration, Map<String, Long> runConfigurationDurations) {
+            this.passed += passed;
+            this.failed += failed;
+            this.skipped += skipped;
+            this.duration += duration;
+            addDurations(runConfigurationDurations);
+        }
+
+        void merge(Bucket other) {
+            firstBuild = Math.min(firstBuild, other.firstBuild);
+            lastBuild = Math.max(lastBuild, other.lastBuild);
+            builds += other.builds;
+            passed += other.passed;
+            failed += other.failed;
+            skipped += other.skipped;
+            duration += other.duration;
+            addDurations(other.runConfigurationDurations);
+        }
+
+        private void addDurations(Map<String, Long> durations) {
+            for (Map.Entry<String, Long> entry : durations.entrySet()) {
+                Long sum = runConfigurationDurations.get(entry.getKey());
+                runConfigurationDurations.put(entry.getKey(), sum == null ? entry.getValue() : sum + entry.getValue());
+            }
+        }
+
+        Bucket copy() {
+            Bucket copy = new Bucket(firstBuild);
+            copy.lastBuild = lastBuild;
+            copy.builds = builds;
+            copy.add(0, 0, 0, 0, runConfigurationDurations);
+            copy.passed = passed;
+            copy.failed = failed;
+            copy.skipped = skipped;
+            copy.duration = duration;
+            return copy;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(firstBuild);
+            out.writeInt(lastBuild);
+            out.writeInt(builds);
+            out.writeLong(passed);
+            out.writeLong(failed);
+            out.writeLong(skipped);
+            out.writeLong(duration);
+            out.writeInt(runConfigurationDurations.size());
+            for (Map.Entry<String, Long> entry : runConfigurationDurations.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+
+        static Bucket read(DataInputStream in) throws IOException {
+            Bucket bucket = new Bucket(in.readInt());
+            bucket.lastBuild = in.readInt();
+            bucket.builds = in.readInt();
+            bucket.passed = in.readLong();
+            bucket.failed = in.readLong();
+            bucket.skipped = in.readLong();
+            bucket.duration = in.readLong();
+            int runConfigurations = in.readInt();
+            for (int i = 0; i < runConfigurations; i++) {
+                bucket.runConfigurationDurations.put(in.readUTF(), in.readLong());
+            }
+            return bucket;
+        }
+
+        public int getFirstBuild() {
+            return firstBuild;
+        }
+
+        public int getLastBuild() {
+            return lastBuild;
+        }
+
+        /**
+         * @return The number of builds merged into this bucket
+         */
+        public int getBuilds() {
+            return builds;
+        }
+
+        /**
+         * @return The average number of passed test cases per build
+         */
+        public double getPassed() {
+            return (double) passed / builds;
+        }
+
+        /**
+         * @return The average number of failed test cases per build
+         */
+        public double getFailed() {
+            return (double) failed / builds;
+        }
+
+        /**
+         * @return The average number of skipped test cases per build
+         */
+        public double getSkipped() {
+            return (double) skipped / builds;
+        }
+
+        /**
+         * @return The average duration per build in milliseconds
+         */
+        public long getDuration() {
+            return duration / builds;
+        }
+
+        /**
+         * @return The average duration of every run configuration per build in milliseconds
+         */
+        public Map<String, Long> getRunConfigurationDurations() {
+            Map<String, Long> averages = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> entry : runConfigurationDurations.entrySet()) {
+                averages.put(entry.getKey(), entry.getValue() / builds);
+            }
+            return Collections.unmodifiableMap(averages);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import java.util.List;
+
+/**
+ * Quotes arguments for a Windows process which splits its command line like CommandLineToArgvW,
+ * as every .NET program including the Ranorex test exe file does. Without a shell in between,
+ * no cmd.exe escaping is needed.
+ */
+public final class WindowsCommandLine {
+    /**
+     * The maximum length of a command line executed by cmd.exe
+     */
+    public static final int CMD_MAX_LENGTH = 8191;
+    /**
+     * The maximum length of a command line passed to CreateProcess
+     */
+    public static final int MAX_LENGTH = 32767;
+
+    private WindowsCommandLine() {
+    }
+
+    /**
+     * Quotes an argument if it contains whitespace or quotes. Backslashes are only escaped in front of a quote,
+     * so paths stay readable.
+     *
+     * @param argument The argument
+     * @return The argument as it has to appear in the command line
+     */
+    public static String quote(String argument) {
+        if (argument == null || argument.isEmpty()) {
+            return "\"\"";
+        }
+        if (! needsQuotes(argument)) {
+            return argument;
+        }
+        StringBuilder sb = new StringBuilder(argument.length() + 8);
+        sb.append('"');
+        int backslashes = 0;
+        for (int i = 0; i < argument.length(); i++) {
+            char c = argument.charAt(i);
+            if (c == '\\') {
+                backslashes++;
+            } else if (c == '"') {
+                appendBackslashes(sb, backslashes * 2 + 1);
+                sb.append('"');
+                backslashes = 0;
+            } else {
+                appendBackslashes(sb, backslashes);
+                sb.append(c);
+                backslashes = 0;
+            }
+        }
+        //Backslashes in front of the closing quote have to be doubled
+        appendBackslashes(sb, backslashes * 2);
+        sb.append('"');
+        return sb.toString();
+    }
+
+    /**
+     * @param arguments The arguments including the program, quoted or unquoted
+     * @return The length of the command line built from the arguments, unquoted arguments are counted with the quotes they need
+     */
+    public static int length(List<String> arguments) {
+        int length = 0;
+        for (String argument : arguments) {
+            length += (isQuoted(argument) ? argument.length() : quote(argument).length()) + 1;
+        }
+        return Math.max(0, length - 1);
+    }
+
+    private static boolean isQuoted(String argument) {
+        return argument.length() > 1 && argument.charAt(0) == '"' && argument.charAt(argument.length() - 1) == '"';
+    }
+
+    private static boolean needsQuotes(String argument) {
+        for (int i = 0; i < argument.length(); i++) {
+            char c = argument.charAt(i);
+            if (c == ' ' || c == '\t' || c == '"') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendBackslashes(StringBuilder sb, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append('\\');
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RanorexDurationActionTest {
+    @Test
+    void getDuration_UnknownRunConfiguration_MinusOne() {
+        RanorexDurationAction action = new RanorexDurationAction();
+        assertEquals(- 1, action.getDuration("Smoke"));
+    }
+
+    @Test
+    void getDuration_RecordedRunConfiguration_Duration() {
+        RanorexDurationAction action = new RanorexDurationAction();
+        action.addDuration("Smoke", 1200);
+        assertEquals(1200, action.getDuration("Smoke"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RanorexPreflightTest {
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("RanorexPreflightTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    void invoke_AllPresent_NoProblems() throws IOException {
+        File exe = new File(directory, "Suite.exe");
+        assertTrue(exe.createNewFile());
+        List<String> problems = check(exe.getPath(), 0);
+        assertTrue(problems.isEmpty(), problems.toString());
+    }
+
+    @Test
+    void invoke_MissingExe_Problem() {
+        List<String> problems = check(new File(directory, "Suite.exe").getPath(), 0);
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).startsWith("The test exe file"));
+    }
+
+    @Test
+    void invoke_MissingReportDirectory_Created() throws IOException {
+        File exe = new File(directory, "Suite.exe");
+        assertTrue(exe.createNewFile());
+        File reports = new File(directory, "Reports");
+        RanorexPreflight preflight = new RanorexPreflight(directory.getPath(), exe.getPath(),
+                Collections.singletonList(reports.getPath()), Collections.<String>emptyList(), 0);
+        assertTrue(preflight.invoke(directory, null).isEmpty());
+        assertTrue(reports.isDirectory());
+        assertTrue(reports.delete());
+    }
+
+    @Test
+    void invoke_NotEnoughSpace_Problem() throws IOException {
+        File exe = new File(directory, "Suite.exe");
+        assertTrue(exe.createNewFile());
+        List<String> problems = check(exe.getPath(), Long.MAX_VALUE);
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).contains("MB are free"));
+    }
+
+    private List<String> check(String executablePath, long minFreeSpace) {
+        RanorexPreflight preflight = new RanorexPreflight(directory.getPath(), executablePath,
+                Collections.singletonList(directory.getPath()), Collections.<String>emptyList(), minFreeSpace);
+        return preflight.invoke(directory, null);
+    }
+}
@@ -0,0 +1,53 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RanorexProgressActionTest {
+    @Test
+    void testCaseCompleted_StartedTestCase_StatusAndDuration() {
+        RanorexProgressAction action = new RanorexProgressAction();
+        action.testCaseStarted("Smoke", "Login", 1000);
+        action.testCaseCompleted("Smoke", "Login", "Success", 3500);
+        List<RanorexProgressAction.TestCaseProgress> testCases = action.getTestCases();
+        assertEquals(1, testCases.size());
+        assertEquals("Success", testCases.get(0).getStatus());
+        assertEquals(2500, testCases.get(0).getDuration());
+        assertEquals(1, action.getCompletedCount());
+    }
+
+    @Test
+    void testCaseCompleted_RepeatedTestCase_LastStartedCompleted() {
+        RanorexProgressAction action = new RanorexProgressAction();
+        action.testCaseStarted(null, "Login", 1000);
+        action.testCaseCompleted(null, "Login", "Success", 2000);
+        action.testCaseStarted(null, "Login", 3000);
+        action.testCaseCompleted(null, "Login", "Failed", 7000);
+        List<RanorexProgressAction.TestCaseProgress> testCases = action.getTestCases();
+        assertEquals(1000, testCases.get(0).getDuration());
+        assertEquals("Failed", testCases.get(1).getStatus());
+        assertEquals(4000, testCases.get(1).getDuration());
+    }
+
+    @Test
+    void testCaseCompleted_MissingStart_Recorded() {
+        RanorexProgressAction action = new RanorexProgressAction();
+        action.testCaseCompleted(null, "Login", "Success", 2000);
+        assertEquals("Success", action.getTestCases().get(0).getStatus());
+    }
+
+    @Test
+    void finish_RunningTestCase_Aborted() {
+        RanorexProgressAction action = new RanorexProgressAction();
+        action.testCaseStarted(null, "Login", 1000);
+        assertTrue(action.isRunning());
+        assertTrue(action.getTestCases().get(0).isRunning());
+        action.finish(4000);
+        assertFalse(action.isRunning());
+        assertEquals("Aborted", action.getTestCases().get(0).getStatus());
+        assertEquals(3000, action.getTestCases().get(0).getDuration());
+    }
+}
@@ -0,0 +1,102 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RanorexReportArchiveTest {
+    private File workspace;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workspace = Files.createTempDirectory("RanorexReportArchiveTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteRecursive(workspace);
+    }
+
+    @Test
+    void listReportFiles_WorkspaceAsReportDirectory_OnlyReportFiles() throws IOException {
+        File screenshots = new File(workspace, "Suite_20240101");
+        File build = new File(new File(workspace, "bin"), "Debug");
+        File zipped = new File(workspace, "zipped");
+        assertTrue(screenshots.mkdirs());
+        assertTrue(build.mkdirs());
+        assertTrue(zipped.mkdirs());
+        assertTrue(new File(workspace, "Suite_20240101.rxlog").createNewFile());
+        assertTrue(new File(workspace, "Suite_20240101.rxlog.data").createNewFile());
+        assertTrue(new File(workspace, "Suite.rxzlog").createNewFile());
+        assertTrue(new File(workspace, "build.log").createNewFile());
+        assertTrue(new File(screenshots, "Screenshot_1.png").createNewFile());
+        assertTrue(new File(build, "Suite.exe").createNewFile());
+        assertTrue(new File(zipped, "Nightly.rxzlog").createNewFile());
+        assertTrue(new File(zipped, "notes.txt").createNewFile());
+
+        Map<String, File> files = RanorexReportArchive.listReportFiles(Arrays.asList(workspace.getPath(), zipped.getPath()), "rxlog");
+        assertEquals(5, files.size());
+        assertTrue(files.containsKey("Suite_20240101.rxlog"));
+        assertTrue(files.containsKey("Suite_20240101.rxlog.data"));
+        assertTrue(files.containsKey("Suite.rxzlog"));
+        assertTrue(files.containsKey("Suite_20240101/Screenshot_1.png"));
+        assertTrue(files.containsKey(RanorexReportArchive.ZIPPED_REPORT_PREFIX + "Nightly.rxzlog"));
+    }
+
+    @Test
+    void isArchived_CompressedReport_OnlyInReportDirectory() {
+        assertTrue(RanorexReportArchive.isArchived("Nightly.RXZLOG", "rxlog"));
+        assertFalse(RanorexReportArchive.isArchived("old/Nightly.rxzlog", "rxlog"));
+        assertFalse(RanorexReportArchive.isArchived("Nightly.rxzlog.finish", "rxlog"));
+    }
+
+    @Test
+    void hashChanges_SecondPass_OnlyChangedAndRemovedFiles() throws IOException {
+        File unchanged = new File(workspace, "Suite_1.rxlog");
+        File modified = new File(workspace, "Suite_2.rxlog");
+        File removed = new File(workspace, "Suite_3.rxlog");
+        assertTrue(new File(workspace, "Old.rxlog").createNewFile());
+        List<String> reportDirectories = Collections.singletonList(workspace.getPath());
+        RanorexReportArchive.AgentReportHashes hashes = new RanorexReportArchive.AgentReportHashes(reportDirectories, "rxlog",
+                RanorexReportArchive.listLastModified(reportDirectories, "rxlog"));
+        Files.write(unchanged.toPath(), "1".getBytes(StandardCharsets.UTF_8));
+        Files.write(modified.toPath(), "2".getBytes(StandardCharsets.UTF_8));
+        Files.write(removed.toPath(), "3".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, RanorexReportArchive.HashedFile> files = new HashMap<>();
+        RanorexReportArchive.HashChanges first = hashes.hashChanges(Long.MAX_VALUE);
+        first.applyTo(files);
+        assertEquals(3, first.getChanged().size());
+
+        Files.write(modified.toPath(), "22".getBytes(StandardCharsets.UTF_8));
+        assertTrue(removed.delete());
+        RanorexReportArchive.HashChanges second = hashes.hashChanges(Long.MAX_VALUE);
+        second.applyTo(files);
+        assertEquals(Collections.singleton("Suite_2.rxlog"), second.getChanged().keySet());
+        assertEquals(2, files.size());
+        assertTrue(files.containsKey("Suite_1.rxlog"));
+        assertEquals(2, files.get("Suite_2.rxlog").getSize());
+    }
+
+    private static void deleteRecursive(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursive(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,64 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RanorexReportCompressorTest {
+    private File reportDirectory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        reportDirectory = Files.createTempDirectory("RanorexReportCompressorTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteRecursive(reportDirectory);
+    }
+
+    @Test
+    void isReportFile_ReportAndWorkspaceFiles_OnlyReportFiles() {
+        assertTrue(RanorexReportCompressor.isReportFile("Suite_20240101.rxlog", "rxlog"));
+        assertTrue(RanorexReportCompressor.isReportFile("Suite_20240101.RXLOG.data", "rxlog"));
+        assertTrue(RanorexReportCompressor.isReportFile("RanorexReport.css", "rxlog"));
+        assertTrue(RanorexReportCompressor.isReportFile("Suite_20240101/Screenshot_1.png", "rxlog"));
+        assertFalse(RanorexReportCompressor.isReportFile("Suite.junit.xml", "rxlog"));
+        assertFalse(RanorexReportCompressor.isReportFile("build.log", "rxlog"));
+        assertFalse(RanorexReportCompressor.isReportFile("bin/Debug/Suite.exe", "rxlog"));
+        assertFalse(RanorexReportCompressor.isReportFile("src/images/Logo.png", "rxlog"));
+    }
+
+    @Test
+    void listReportFiles_NestedDirectories_OneLevelDeep() throws IOException {
+        File images = new File(reportDirectory, "images");
+        File nested = new File(new File(reportDirectory, "bin"), "Debug");
+        assertTrue(images.mkdirs());
+        assertTrue(nested.mkdirs());
+        assertTrue(new File(reportDirectory, "Suite.rxlog").createNewFile());
+        assertTrue(new File(images, "Screenshot.png").createNewFile());
+        assertTrue(new File(nested, "Suite.exe").createNewFile());
+
+        Map<String, File> files = RanorexReportCompressor.listReportFiles(reportDirectory);
+        assertEquals(2, files.size());
+        assertTrue(files.containsKey("Suite.rxlog"));
+        assertTrue(files.containsKey("images/Screenshot.png"));
+    }
+
+    private static void deleteRecursive(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursive(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,29 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RanorexRerunActionTest {
+    @Test
+    void getResults_SeveralPasses_AllPassesPerTestCase() {
+        RanorexRerunAction action = new RanorexRerunAction();
+        action.addResult("Smoke", "AddUser", false);
+        action.addResult("Smoke", "AddUser", false);
+        action.addResult("Smoke", "AddUser", true);
+        assertEquals(Arrays.asList("Failed", "Failed", "Passed"), action.getResults().get("Smoke / AddUser"));
+    }
+
+    @Test
+    void getFlakyTestCases_PassedInRerun_Flaky() {
+        RanorexRerunAction action = new RanorexRerunAction();
+        action.addResult(null, "AddUser", false);
+        action.addResult(null, "AddUser", true);
+        action.addResult(null, "Delete", false);
+        action.addResult(null, "Delete", false);
+        assertEquals(Collections.singletonList("AddUser"), action.getFlakyTestCases());
+    }
+}
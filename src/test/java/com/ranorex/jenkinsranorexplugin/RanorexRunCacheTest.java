@@ -0,0 +1,88 @@
+package com.ranorex.jenkinsranorexplugin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RanorexRunCacheTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private File cacheRoot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cacheRoot = Files.createTempDirectory("RanorexRunCacheTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteRecursive(cacheRoot);
+    }
+
+    @Test
+    void evict_OldEntries_Deleted() throws IOException {
+        long now = System.currentTimeMillis();
+        File used = entry("used", now - DAY);
+        File unused = entry("unused", now - (RanorexRunCache.MAX_AGE_DAYS + 1) * DAY);
+        File interrupted = entry("key.1234.tmp", now - 2 * DAY);
+
+        assertEquals(2, RanorexRunCache.evict(cacheRoot, now));
+        assertTrue(used.isDirectory());
+        assertFalse(unused.exists());
+        assertFalse(interrupted.exists());
+    }
+
+    @Test
+    void evict_MissingCacheRoot_NothingDeleted() {
+        assertEquals(0, RanorexRunCache.evict(new File(cacheRoot, "missing"), System.currentTimeMillis()));
+    }
+
+    @Test
+    void restore_ReportOfSameNameExists_RestoredReportModified() throws IOException {
+        long lastBuild = System.currentTimeMillis() - DAY;
+        File entry = entry("key", lastBuild);
+        File cached = new File(entry, "0" + File.separator + "report.rxlog");
+        assertTrue(cached.setLastModified(lastBuild));
+        Files.write(new File(entry, "run.properties").toPath(), "exitCode=1\n".getBytes(StandardCharsets.ISO_8859_1));
+        File reportDirectory = new File(cacheRoot, "reports");
+        File report = new File(reportDirectory, "report.rxlog");
+        assertTrue(reportDirectory.mkdirs());
+        Files.write(report.toPath(), new byte[] {1});
+        assertTrue(report.setLastModified(lastBuild));
+
+        assertEquals(Integer.valueOf(1), RanorexRunCache.restore(cacheRoot, "key", Collections.singletonList(reportDirectory.getPath())));
+        assertTrue(report.lastModified() > lastBuild);
+    }
+
+    @Test
+    void restore_NotCached_Null() throws IOException {
+        assertNull(RanorexRunCache.restore(cacheRoot, "missing", Collections.singletonList(cacheRoot.getPath())));
+    }
+
+    private File entry(String name, long lastModified) throws IOException {
+        File entry = new File(cacheRoot, name);
+        File report = new File(entry, "0" + File.separator + "report.rxlog");
+        report.getParentFile().mkdirs();
+        Files.write(report.toPath(), new byte[] {1});
+        entry.setLastModified(lastModified);
+        return entry;
+    }
+
+    private static void deleteRecursive(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursive(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,115 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArgumentParserTest {
+    //Tokenizer
+    @Test
+    void next_SeparatedInput_EntriesWithoutBlanks() {
+        String input = "first;; \n second\tthird;";
+        ArgumentTokenizer tokenizer = new ArgumentTokenizer(input, "\t\r\n;");
+        assertTrue(tokenizer.next());
+        assertEquals("first", tokenizer.getToken());
+        assertTrue(tokenizer.next());
+        assertEquals(" second", tokenizer.getToken());
+        assertEquals(9, tokenizer.getStart());
+        assertTrue(tokenizer.next());
+        assertEquals("third", tokenizer.getToken());
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    void next_NULL_False() {
+        assertFalse(new ArgumentTokenizer(null, ";").next());
+    }
+
+    //Arguments
+    @Test
+    void parseArgument_FlagNameAndValue_AllParts() {
+        ArgumentParser parser = new ArgumentParser();
+        assertTrue(parser.parseArgument("/tcpa:TestCase:Param=Value", 0, 26));
+        assertEquals("tcpa", parser.getFlag());
+        assertEquals("TestCase:Param", parser.getName());
+        assertEquals("Value", parser.getValue());
+    }
+
+    @Test
+    void parseArgument_FlagOnly_NoNameAndValue() {
+        ArgumentParser parser = new ArgumentParser();
+        assertTrue(parser.parseArgument("/junit", 0, 6));
+        assertEquals("junit", parser.getFlag());
+        assertFalse(parser.hasName());
+        assertFalse(parser.hasValue());
+    }
+
+    @Test
+    void parseArgument_SlashOnly_False() {
+        ArgumentParser parser = new ArgumentParser();
+        assertFalse(parser.parseArgument(" / ", 0, 3));
+    }
+
+    @Test
+    void parseArgument_PartOfInput_OnlyGivenRange() {
+        String input = "/rl:Debug;/tc:Login";
+        ArgumentParser parser = new ArgumentParser();
+        assertTrue(parser.parseArgument(input, 10, input.length()));
+        assertEquals("tc", parser.getFlag());
+        assertEquals("Login", parser.getName());
+    }
+
+    @Test
+    void isFlagOneOf_FlagWithWhitespace_True() {
+        ArgumentParser parser = new ArgumentParser();
+        parser.parseArgument(" /pa :Name=Value", 0, 16);
+        assertTrue(parser.isFlagOneOf(Arrays.asList("param", "pa")));
+        assertFalse(parser.isFlagOneOf(Collections.singletonList("p")));
+    }
+
+    @Test
+    void appendTo_UntrimmedArgument_KeepsWhitespace() {
+        String input = "/flag : name = value ";
+        ArgumentParser parser = new ArgumentParser();
+        parser.parseArgument(input, 0, input.length());
+        StringBuilder sb = new StringBuilder();
+        parser.appendTo(sb, false, null);
+        assertEquals(input, sb.toString());
+    }
+
+    //Parameters
+    @Test
+    void parseParameter_ValueWithColon_NoFlag() {
+        String input = "Url=http://localhost:8080";
+        ArgumentParser parser = new ArgumentParser();
+        assertTrue(parser.parseParameter(input, 0, input.length()));
+        assertFalse(parser.hasFlag());
+        assertEquals("Url", parser.getName());
+        assertEquals("http://localhost:8080", parser.getValue());
+    }
+
+    @Test
+    void parseParameter_MissingValue_False() {
+        ArgumentParser parser = new ArgumentParser();
+        assertFalse(parser.parseParameter("/pa:Name= ", 0, 10));
+    }
+
+    @Test
+    void parseParameter_MissingName_False() {
+        ArgumentParser parser = new ArgumentParser();
+        assertFalse(parser.parseParameter("/pa:=Value", 0, 10));
+    }
+
+    @Test
+    void appendTo_TrimmedParameterWithoutFlag_DefaultFlag() {
+        String input = " User name = admin ";
+        ArgumentParser parser = new ArgumentParser();
+        parser.parseParameter(input, 0, input.length());
+        StringBuilder sb = new StringBuilder();
+        parser.appendTo(sb, true, "pa");
+        assertEquals("/pa:User name=admin", sb.toString());
+    }
+}
@@ -0,0 +1,164 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobChunksTest {
+    private File directory;
+    private BlobStore store;
+    private List<File> files;
+    private List<ReportManifest.Entry> entries;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("BlobChunksTest").toFile();
+        store = new BlobStore(new File(directory, "blobs"));
+        files = new ArrayList<>();
+        ReportManifest manifest = new ReportManifest();
+        String[] contents = {"first screenshot", "", "second screenshot with more bytes", "report"};
+        for (int i = 0; i < contents.length; i++) {
+            File file = new File(directory, "file" + i);
+            Files.write(file.toPath(), contents[i].getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+            manifest.add(file.getName(), BlobStore.hash(file), file.length());
+        }
+        entries = manifest.getEntries();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteRecursive(directory);
+    }
+
+    @Test
+    void plan_SmallFiles_GroupedBySize() {
+        List<List<ReportManifest.Entry>> chunks = BlobChunks.plan(entries, 40);
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(2, chunks.get(1).size());
+    }
+
+    @Test
+    void plan_FileLargerThanChunk_OwnChunk() {
+        List<List<ReportManifest.Entry>> chunks = BlobChunks.plan(entries, 16);
+        assertEquals(3, chunks.size());
+        assertEquals(Arrays.asList(entries.get(0), entries.get(1)), chunks.get(0));
+        assertEquals(Arrays.asList(entries.get(2)), chunks.get(1));
+        assertEquals(Arrays.asList(entries.get(3)), chunks.get(2));
+    }
+
+    @Test
+    void plan_NoFiles_NoChunks() {
+        assertTrue(BlobChunks.plan(new ArrayList<ReportManifest.Entry>(), BlobChunks.CHUNK_SIZE).isEmpty());
+    }
+
+    @Test
+    void receiver_WholeChunk_AllStored() throws IOException {
+        byte[] chunk = writeChunk();
+        BlobChunks.Receiver receiver = new BlobChunks.Receiver(store, entries);
+        //Deliver the chunk in small pieces like a remote stream would
+        for (int i = 0; i < chunk.length; i += 7) {
+            receiver.write(chunk, i, Math.min(7, chunk.length - i));
+        }
+        receiver.finish();
+        receiver.close();
+        for (ReportManifest.Entry entry : entries) {
+            assertTrue(store.contains(entry.getHash()));
+        }
+    }
+
+    @Test
+    void receiver_CutOff_ResumedFromPartialFile() throws IOException {
+        byte[] chunk = writeChunk();
+        BlobChunks.Receiver receiver = new BlobChunks.Receiver(store, entries);
+        //Cut off within the third file
+        receiver.write(chunk, 0, 60);
+        receiver.close();
+        try {
+            receiver.finish();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("2 of 4"));
+        }
+        assertTrue(store.contains(entries.get(0).getHash()));
+        assertFalse(store.contains(entries.get(2).getHash()));
+        long offset = BlobChunks.resumeOffset(store, entries.get(2));
+        assertTrue(offset > 0);
+
+        List<ReportManifest.Entry> pending = entries.subList(2, 4);
+        ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+        BlobChunks.write(files.subList(2, 4), Arrays.asList(offset, BlobChunks.resumeOffset(store, entries.get(3))), resumed);
+        receiver = new BlobChunks.Receiver(store, pending);
+        receiver.write(resumed.toByteArray(), 0, resumed.size());
+        receiver.finish();
+        receiver.close();
+        assertTrue(store.contains(entries.get(2).getHash()));
+        assertTrue(store.contains(entries.get(3).getHash()));
+        assertFalse(store.getPartial(entries.get(2).getHash()).exists());
+    }
+
+    @Test
+    void receiver_ChangedContent_ThrowsIOException() throws IOException {
+        Files.write(files.get(0).toPath(), "changed after hashing".getBytes(StandardCharsets.UTF_8));
+        byte[] chunk = writeChunk();
+        BlobChunks.Receiver receiver = new BlobChunks.Receiver(store, entries);
+        try {
+            receiver.write(chunk, 0, chunk.length);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(entries.get(0).getHash()));
+            assertFalse(store.getPartial(entries.get(0).getHash()).exists());
+        }
+    }
+
+    @Test
+    void receiver_Closed_ThrowsIOException() throws IOException {
+        BlobChunks.Receiver receiver = new BlobChunks.Receiver(store, entries);
+        receiver.close();
+        try {
+            receiver.write(1);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("closed"));
+        }
+    }
+
+    @Test
+    void resumeOffset_PartialLargerThanFile_Discarded() throws IOException {
+        ReportManifest.Entry entry = entries.get(3);
+        try (OutputStream out = store.appendPartial(entry.getHash())) {
+            out.write("far too much content".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(0, BlobChunks.resumeOffset(store, entry));
+        assertFalse(store.getPartial(entry.getHash()).exists());
+    }
+
+    private byte[] writeChunk() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BlobChunks.write(files, Arrays.asList(0L, 0L, 0L, 0L), out);
+        return out.toByteArray();
+    }
+
+    private static void deleteRecursive(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursive(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,150 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobStoreTest {
+    private static final String HELLO_HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("BlobStoreTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteRecursive(directory);
+    }
+
+    @Test
+    void add_MatchingHash_Stored() throws IOException {
+        BlobStore store = new BlobStore(directory);
+        assertFalse(store.contains(HELLO_HASH));
+        store.add(HELLO_HASH, content("hello"));
+        assertTrue(store.contains(HELLO_HASH));
+        assertEquals("hello", new String(Files.readAllBytes(store.getBlob(HELLO_HASH).toPath()), StandardCharsets.UTF_8));
+        assertEquals(new File(new File(directory, "2c"), HELLO_HASH), store.getBlob(HELLO_HASH));
+    }
+
+    @Test
+    void add_SameContentTwice_StoredOnce() throws IOException {
+        BlobStore store = new BlobStore(directory);
+        store.add(HELLO_HASH, content("hello"));
+        store.add(HELLO_HASH, content("hello"));
+        assertEquals(1, store.getBlob(HELLO_HASH).getParentFile().listFiles().length);
+    }
+
+    @Test
+    void add_WrongHash_ThrowsIOException() {
+        BlobStore store = new BlobStore(directory);
+        try {
+            store.add(HELLO_HASH, content("hello world"));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertFalse(store.getBlob(HELLO_HASH).exists());
+            assertEquals(0, store.getBlob(HELLO_HASH).getParentFile().listFiles().length);
+        }
+    }
+
+    @Test
+    void getBlob_NotAHash_ThrowsIllegalArgumentException() {
+        try {
+            new BlobStore(directory).getBlob("../../config.xml");
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("config.xml"));
+        }
+    }
+
+    @Test
+    void hash_File_Sha256() throws IOException {
+        File file = new File(directory, "hello.txt");
+        Files.write(file.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+        assertEquals(HELLO_HASH, BlobStore.hash(file));
+    }
+
+    @Test
+    void collectGarbage_Unreferenced_Deleted() throws IOException {
+        BlobStore store = new BlobStore(directory);
+        store.add(HELLO_HASH, content("hello"));
+        assertEquals(0, store.collectGarbage(Collections.singleton(HELLO_HASH), Long.MAX_VALUE));
+        assertEquals(0, store.collectGarbage(Collections.<String>emptySet(), 0));
+        assertEquals(1, store.collectGarbage(Collections.<String>emptySet(), Long.MAX_VALUE));
+        assertFalse(store.getBlob(HELLO_HASH).getParentFile().exists());
+    }
+
+    @Test
+    void takeGarbageMark_Marked_TakenOnce() throws IOException {
+        BlobStore store = new BlobStore(directory);
+        assertFalse(store.takeGarbageMark(Long.MAX_VALUE));
+        store.markGarbage();
+        assertFalse(store.takeGarbageMark(0));
+        assertTrue(store.takeGarbageMark(Long.MAX_VALUE));
+        assertFalse(store.takeGarbageMark(Long.MAX_VALUE));
+    }
+
+    @Test
+    void addPartial_AppendedInPieces_Stored() throws IOException {
+        BlobStore store = new BlobStore(directory);
+        try (OutputStream out = store.appendPartial(HELLO_HASH)) {
+            out.write("hel".getBytes(StandardCharsets.UTF_8));
+        }
+        try (OutputStream out = store.appendPartial(HELLO_HASH)) {
+            out.write("lo".getBytes(StandardCharsets.UTF_8));
+        }
+        store.addPartial(HELLO_HASH);
+        assertTrue(store.contains(HELLO_HASH));
+        assertFalse(store.getPartial(HELLO_HASH).exists());
+    }
+
+    @Test
+    void addPartial_WrongHash_PartialDeleted() throws IOException {
+        BlobStore store = new BlobStore(directory);
+        try (OutputStream out = store.appendPartial(HELLO_HASH)) {
+            out.write("hello hello".getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            store.addPartial(HELLO_HASH);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertFalse(store.getPartial(HELLO_HASH).exists());
+            assertFalse(store.contains(HELLO_HASH));
+        }
+    }
+
+    @Test
+    void collectGarbage_StalePartial_Deleted() throws IOException {
+        BlobStore store = new BlobStore(directory);
+        try (OutputStream out = store.appendPartial(HELLO_HASH)) {
+            out.write("hel".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(0, store.collectGarbage(Collections.singleton(HELLO_HASH), Long.MAX_VALUE));
+        assertFalse(store.getPartial(HELLO_HASH).exists());
+    }
+
+    private static ByteArrayInputStream content(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void deleteRecursive(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursive(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,38 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionWatchdogTest {
+    private static final long MINUTE = 60 * 1000L;
+
+    @Test
+    void check_Disabled_NeverExceeded() {
+        ExecutionWatchdog watchdog = new ExecutionWatchdog(0, 0, 0);
+        assertFalse(watchdog.isEnabled());
+        assertNull(watchdog.check(1000 * MINUTE));
+    }
+
+    @Test
+    void check_TimeoutExceeded_Reason() {
+        ExecutionWatchdog watchdog = new ExecutionWatchdog(30, 0, 0);
+        watchdog.activity(29 * MINUTE);
+        assertNull(watchdog.check(29 * MINUTE));
+        assertEquals("the timeout of 30 minutes is exceeded", watchdog.check(30 * MINUTE));
+    }
+
+    @Test
+    void check_NoOutput_InactivityReason() {
+        ExecutionWatchdog watchdog = new ExecutionWatchdog(0, 5, 0);
+        assertEquals("there was no output for 5 minutes", watchdog.check(5 * MINUTE));
+    }
+
+    @Test
+    void check_RecentOutput_NotExceeded() {
+        ExecutionWatchdog watchdog = new ExecutionWatchdog(0, 5, 0);
+        watchdog.activity(4 * MINUTE);
+        assertNull(watchdog.check(8 * MINUTE));
+        assertNotNull(watchdog.check(9 * MINUTE));
+    }
+}
@@ -0,0 +1,70 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FailFastPolicyTest {
+    @Test
+    void testCaseCompleted_Disabled_NeverTriggered() {
+        FailFastPolicy policy = new FailFastPolicy(0, 0, 0);
+        assertFalse(policy.isEnabled());
+        for (int i = 0; i < 100; i++) {
+            assertFalse(policy.testCaseCompleted(true));
+        }
+    }
+
+    @Test
+    void testCaseCompleted_MaxFailuresReached_Triggered() {
+        FailFastPolicy policy = new FailFastPolicy(3, 0, 0);
+        assertFalse(policy.testCaseCompleted(true));
+        assertFalse(policy.testCaseCompleted(false));
+        assertFalse(policy.testCaseCompleted(true));
+        assertTrue(policy.testCaseCompleted(true));
+        assertTrue(policy.isTriggered());
+        assertEquals("3 test cases failed", policy.getReason());
+    }
+
+    @Test
+    void testCaseCompleted_PercentageBeforeWindowFilled_NotTriggered() {
+        FailFastPolicy policy = new FailFastPolicy(0, 50, 4);
+        assertFalse(policy.testCaseCompleted(true));
+        assertFalse(policy.testCaseCompleted(true));
+        assertFalse(policy.testCaseCompleted(true));
+        assertTrue(policy.testCaseCompleted(false));
+        assertEquals("3 of the last 4 test cases failed", policy.getReason());
+    }
+
+    @Test
+    void testCaseCompleted_HugeWindow_CappedToMaxWindow() {
+        FailFastPolicy policy = new FailFastPolicy(0, 100, Integer.MAX_VALUE);
+        for (int i = 1; i < FailFastPolicy.MAX_WINDOW; i++) {
+            assertFalse(policy.testCaseCompleted(true));
+        }
+        assertTrue(policy.testCaseCompleted(true));
+        assertEquals(FailFastPolicy.MAX_WINDOW + " of the last " + FailFastPolicy.MAX_WINDOW + " test cases failed", policy.getReason());
+    }
+
+    @Test
+    void testCaseCompleted_OldFailuresLeaveWindow_NotTriggered() {
+        FailFastPolicy policy = new FailFastPolicy(0, 75, 4);
+        policy.testCaseCompleted(true);
+        policy.testCaseCompleted(true);
+        policy.testCaseCompleted(false);
+        policy.testCaseCompleted(false);
+        assertFalse(policy.testCaseCompleted(true));
+        assertFalse(policy.testCaseCompleted(false));
+        assertFalse(policy.isTriggered());
+        policy.testCaseCompleted(true);
+        assertTrue(policy.testCaseCompleted(true));
+    }
+
+    @Test
+    void isFailure_Status_FailedAndErrorOnly() {
+        assertTrue(FailFastPolicy.isFailure("Failed"));
+        assertTrue(FailFastPolicy.isFailure("error"));
+        assertFalse(FailFastPolicy.isFailure("Success"));
+        assertFalse(FailFastPolicy.isFailure("Ignored"));
+        assertFalse(FailFastPolicy.isFailure(null));
+    }
+}
@@ -275,4 +275,16 @@ class FileUtilTest {
         String actualResult = FileUtil.removeFileExtension("ThisFileHasNoExtension");
         assertEquals("ThisFileHasNoExtension", actualResult);
     }
+
+    @Test
+    void ToValidFileName_NameWithInvalidCharacters_NameWithUnderscores() {
+        String actualResult = FileUtil.toValidFileName("Smoke Test: Chrome/Edge");
+        assertEquals("Smoke_Test__Chrome_Edge", actualResult);
+    }
+
+    @Test
+    void ToValidFileName_ValidName_SameName() {
+        String actualResult = FileUtil.toValidFileName("Regression");
+        assertEquals("Regression", actualResult);
+    }
 }
@@ -0,0 +1,54 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JUnitFailureReaderTest {
+    @Test
+    void readFailedTestCases_FailuresAndErrors_InReportOrder() throws IOException {
+        String report = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+                + "<testsuites><testsuite name=\"Suite\" tests=\"4\">"
+                + "<testcase classname=\"Suite.Login\" name=\"Login\" time=\"1.2\"/>"
+                + "<testcase classname=\"Suite.AddUser\" name=\"AddUser\"><failure message=\"not found\">trace</failure></testcase>"
+                + "<testcase classname=\"Suite.Logout\" name=\"Logout\"><system-out>ok</system-out></testcase>"
+                + "<testcase classname=\"Suite.Delete\" name=\"Delete\"><error message=\"crash\"/></testcase>"
+                + "</testsuite></testsuites>";
+        assertEquals(Arrays.asList("AddUser", "Delete"), JUnitFailureReader.readFailedTestCases(stream(report)));
+    }
+
+    @Test
+    void readFailedTestCases_RepeatedFailure_NoDuplicates() throws IOException {
+        String report = "<testsuite>"
+                + "<testcase name=\"AddUser\"><failure/></testcase>"
+                + "<testcase name=\"AddUser\"><failure/></testcase>"
+                + "</testsuite>";
+        assertEquals(Collections.singletonList("AddUser"), JUnitFailureReader.readFailedTestCases(stream(report)));
+    }
+
+    @Test
+    void readFailedTestCases_NoFailures_Empty() throws IOException {
+        assertTrue(JUnitFailureReader.readFailedTestCases(stream("<testsuite><testcase name=\"Login\"/></testsuite>")).isEmpty());
+    }
+
+    @Test
+    void readFailedTestCases_InvalidXml_ThrowsIOException() {
+        try {
+            JUnitFailureReader.readFailedTestCases(stream("<testsuite><testcase"));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("The JUnit report could not be read"));
+        }
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RanorexCommandPlanTest {
+    private static final String SEPARATORS = "\t\r\n;";
+
+    @Test
+    void Constructor_Empty_EmptyPlan() {
+        RanorexCommandPlan plan = new RanorexCommandPlan("", "", SEPARATORS);
+        assertTrue(plan.getGlobalParameters().isEmpty());
+        assertTrue(plan.getIgnoredGlobalParameters().isEmpty());
+        assertTrue(plan.getCommandLineArguments().isEmpty());
+        assertTrue(plan.getIgnoredCommandLineArguments().isEmpty());
+    }
+
+    @Test
+    void Constructor_ValidGlobalParameters_FormattedParameters() {
+        RanorexCommandPlan plan = new RanorexCommandPlan("Url=localhost;/param:User = admin", "", SEPARATORS);
+        assertEquals(Arrays.asList("/pa:Url=localhost", "/param:User=admin"), plan.getGlobalParameters());
+        assertTrue(plan.getIgnoredGlobalParameters().isEmpty());
+    }
+
+    @Test
+    void Constructor_InvalidGlobalParameter_Ignored() {
+        RanorexCommandPlan plan = new RanorexCommandPlan("Url=localhost\n/zr\n/param:test=", "", SEPARATORS);
+        assertEquals(Collections.singletonList("/pa:Url=localhost"), plan.getGlobalParameters());
+        assertEquals(Arrays.asList("/zr", "/param:test="), plan.getIgnoredGlobalParameters());
+    }
+
+    @Test
+    void Constructor_ValidCommandLineArguments_FormattedArguments() {
+        RanorexCommandPlan plan = new RanorexCommandPlan("", "/rl:Debug;/tc:Login", SEPARATORS);
+        assertEquals(Arrays.asList("/rl:Debug", "/tc:Login"), plan.getCommandLineArguments());
+        assertTrue(plan.getIgnoredCommandLineArguments().isEmpty());
+    }
+
+    @Test
+    void Constructor_IgnoredCommandLineArgument_Ignored() {
+        RanorexCommandPlan plan = new RanorexCommandPlan("", "/rl:Debug;/junit;/pa:Url=x", SEPARATORS);
+        assertEquals(Collections.singletonList("/rl:Debug"), plan.getCommandLineArguments());
+        assertEquals(Arrays.asList("/junit", "/pa:Url=x"), plan.getIgnoredCommandLineArguments());
+    }
+
+    @Test
+    void getGlobalParameters_Modify_ThrowsUnsupportedOperationException() {
+        RanorexCommandPlan plan = new RanorexCommandPlan("Url=x", "", SEPARATORS);
+        try {
+            plan.getGlobalParameters().add("/pa:User=admin");
+            fail("Plan must be immutable");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(1, plan.getGlobalParameters().size());
+        }
+    }
+}
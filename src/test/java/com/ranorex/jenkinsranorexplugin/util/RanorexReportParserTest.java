@@ -0,0 +1,176 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RanorexReportParserTest {
+    @Test
+    void parseJUnit_AllStatuses_Counted() throws IOException {
+        String report = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+                + "<testsuites><testsuite name=\"Suite\" tests=\"4\">"
+                + "<testcase name=\"Login\" time=\"1.25\"/>"
+                + "<testcase name=\"AddUser\" time=\"3\"><failure message=\"not found\">trace</failure></testcase>"
+                + "<testcase name=\"Logout\"><skipped/></testcase>"
+                + "<testcase name=\"Delete\" time=\"0,5\"><error message=\"crash\"/></testcase>"
+                + "</testsuite></testsuites>";
+        ReportSummary summary = new ReportSummary();
+        RanorexReportParser.parseJUnit(stream(report), summary.report(""));
+        assertEquals(4, summary.getTotal());
+        assertEquals(1, summary.getPassed());
+        assertEquals(2, summary.getFailed());
+        assertEquals(1, summary.getSkipped());
+        assertEquals(4750, summary.getDuration());
+        List<ReportSummary.TestCaseResult> failures = summary.getFailures();
+        assertEquals("AddUser", failures.get(0).getName());
+        assertEquals("not found", failures.get(0).getMessage());
+        assertEquals(ReportSummary.ERROR, failures.get(1).getStatus());
+    }
+
+    @Test
+    void parseJUnit_InvalidXml_ThrowsIOException() {
+        try {
+            RanorexReportParser.parseJUnit(stream("<testsuite><testcase"), new ReportSummary().report(""));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("The JUnit report could not be read"));
+        }
+    }
+
+    @Test
+    void parseReportData_NestedTestCases_ReportedWhenCompleted() throws IOException {
+        String report = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+                + "<report><activity type=\"root\" result=\"Failed\">"
+                + "<activity type=\"testsuite\" testsuitename=\"Suite\">"
+                + "<activity type=\"testcase\" testcasename=\"Login\" result=\"Success\" duration=\"1m 2.5s\"/>"
+                + "<activity type=\"testcase\" testcasename=\"Users\" result=\"Failed\" durationms=\"4000\">"
+                + "<activity type=\"testcase\" testcasename=\"AddUser\" result=\"Failed\" duration=\"350ms\">"
+                + "<activity type=\"recordingmodule\" modulename=\"OpenDialog\" result=\"Failed\">"
+                + "<item level=\"Info\"><message>Dialog opened</message></item>"
+                + "<item level=\"Failure\"><message><![CDATA[Button 'OK' not found]]></message></item>"
+                + "<item level=\"Failure\"><message>Second failure</message></item>"
+                + "</activity></activity>"
+                + "</activity>"
+                + "<activity type=\"testcase\" testcasename=\"Logout\" result=\"Ignored\"/>"
+                + "</activity></activity></report>";
+        ReportSummary summary = new ReportSummary();
+        RanorexReportParser.parseReportData(stream(report), summary.report(""));
+        List<ReportSummary.TestCaseResult> testCases = summary.getTestCases();
+        assertEquals(4, testCases.size());
+        assertEquals("Login", testCases.get(0).getName());
+        assertEquals("Suite", testCases.get(0).getClassName());
+        assertEquals(62500, testCases.get(0).getDuration());
+        assertEquals("AddUser", testCases.get(1).getName());
+        assertEquals("Button 'OK' not found", testCases.get(1).getMessage());
+        assertEquals(350, testCases.get(1).getDuration());
+        assertEquals("Users", testCases.get(2).getName());
+        assertNull(testCases.get(2).getMessage());
+        assertEquals(4000, testCases.get(2).getDuration());
+        assertEquals(ReportSummary.SKIPPED, testCases.get(3).getStatus());
+    }
+
+    @Test
+    void parseReportData_LongMessage_Bounded() throws IOException {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            message.append("0123456789");
+        }
+        String report = "<activity type=\"testcase\" testcasename=\"Login\" result=\"Failed\">"
+                + "<item level=\"Error\"><message>" + message + "</message></item></activity>";
+        ReportSummary summary = new ReportSummary();
+        RanorexReportParser.parseReportData(stream(report), summary.report(""));
+        assertEquals(ReportSummary.FAILED, summary.getTestCases().get(0).getStatus());
+        assertTrue(summary.getTestCases().get(0).getMessage().length() <= RanorexReportParser.MAX_MESSAGE_LENGTH + 3);
+    }
+
+    @Test
+    void parseReportData_InvalidXml_ThrowsIOException() {
+        try {
+            RanorexReportParser.parseReportData(stream("<report><activity"), new ReportSummary().report(""));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("The Ranorex report data file could not be read"));
+        }
+    }
+
+    @Test
+    void parseReportData_LargeReport_Streamed() throws IOException {
+        //About 100 MB, far more than would fit into the heap of the test JVM as a DOM
+        final int testCases = 500000;
+        final long[] count = new long[1];
+        RanorexReportParser.parseReportData(new SequenceInputStream(new GeneratedTestCases(testCases)), new TestCaseConsumer() {
+            @Override
+            public void testCaseCompleted(String className, String name, String status, long duration, String message) {
+                count[0]++;
+            }
+        });
+        assertEquals(testCases, count[0]);
+    }
+
+    @Test
+    void parseDuration_Notations_Milliseconds() {
+        assertEquals(1500, RanorexReportParser.parseDuration("1.5"));
+        assertEquals(1500, RanorexReportParser.parseDuration("1,5"));
+        assertEquals(3723000, RanorexReportParser.parseDuration("1h 2m 3s"));
+        assertEquals(20, RanorexReportParser.parseDuration("20ms"));
+        assertEquals(0, RanorexReportParser.parseDuration("abc"));
+        assertEquals(0, RanorexReportParser.parseDuration(null));
+    }
+
+    @Test
+    void reportDataStatus_Results_Mapped() {
+        assertEquals(ReportSummary.PASSED, RanorexReportParser.reportDataStatus("Success"));
+        assertEquals(ReportSummary.SKIPPED, RanorexReportParser.reportDataStatus("Blocked"));
+        assertEquals(ReportSummary.ERROR, RanorexReportParser.reportDataStatus("Error"));
+        assertEquals(ReportSummary.FAILED, RanorexReportParser.reportDataStatus("Failed"));
+        assertEquals(ReportSummary.FAILED, RanorexReportParser.reportDataStatus("Unknown"));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Produces a report data file piece by piece, so the report itself is never kept in memory
+     */
+    private static final class GeneratedTestCases implements Enumeration<InputStream> {
+        private final int testCases;
+        private int next = -1;
+
+        GeneratedTestCases(int testCases) {
+            this.testCases = testCases;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return next <= testCases;
+        }
+
+        @Override
+        public InputStream nextElement() {
+            if (! hasMoreElements()) {
+                throw new NoSuchElementException();
+            }
+            int current = next++;
+            if (current < 0) {
+                return stream("<report><activity type=\"testsuite\">");
+            }
+            if (current == testCases) {
+                return stream("</activity></report>");
+            }
+            return stream("<activity type=\"testcase\" testcasename=\"TestCase" + current + "\" result=\"Success\" duration=\"1.2s\">"
+                    + "<activity type=\"recordingmodule\" modulename=\"Module\" result=\"Success\">"
+                    + "<item level=\"Info\"><message>Validating AttributeEqual (Text='OK') on item 'Dialog.ButtonOK'.</message></item>"
+                    + "</activity></activity>");
+        }
+    }
+}
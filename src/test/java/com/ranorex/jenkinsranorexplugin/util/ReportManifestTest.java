@@ -0,0 +1,74 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportManifestTest {
+    private static final String HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("ReportManifestTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    void write_ReadBack_SameEntries() throws IOException {
+        ReportManifest manifest = new ReportManifest();
+        manifest.add("Report 1.rxlog", HASH, 5);
+        manifest.add("Images/Screenshot 1.jpg", HASH, 5);
+        File file = new File(directory, "report.manifest");
+        manifest.write(file);
+
+        ReportManifest read = ReportManifest.read(file);
+        assertEquals(2, read.getEntries().size());
+        assertEquals(HASH, read.get("Images/Screenshot 1.jpg").getHash());
+        assertEquals(10, read.getSize());
+    }
+
+    @Test
+    void read_MissingFile_Empty() throws IOException {
+        assertTrue(ReportManifest.read(new File(directory, "missing.manifest")).getEntries().isEmpty());
+    }
+
+    @Test
+    void read_DamagedLine_ThrowsIOException() throws IOException {
+        File file = new File(directory, "report.manifest");
+        Files.write(file.toPath(), "../../secret 5 Report.rxlog\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            ReportManifest.read(file);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("damaged"));
+        }
+    }
+
+    @Test
+    void addAll_SamePath_Replaced() {
+        ReportManifest first = new ReportManifest();
+        first.add("Report.rxlog", HASH, 5);
+        ReportManifest second = new ReportManifest();
+        second.add("Report.rxlog", HASH, 7);
+        first.addAll(second);
+        assertEquals(7, first.get("Report.rxlog").getSize());
+    }
+}
@@ -0,0 +1,225 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportMergerTest {
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("ReportMergerTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    void merge_Rerun_LastAttemptWinsAndFailureKept() throws IOException {
+        File first = write("first.junit.xml", "<testsuites><testsuite name=\"Suite\">"
+                + "<testcase classname=\"Suite\" name=\"Login\" time=\"1.5\"><failure message=\"Timeout\">stack</failure></testcase>"
+                + "<testcase classname=\"Suite\" name=\"Search\" time=\"2\"><system-out>searching &amp; more</system-out></testcase>"
+                + "</testsuite></testsuites>");
+        File rerun = write("rerun.junit.xml", "<testsuite name=\"Suite\">"
+                + "<testcase classname=\"Suite\" name=\"Login\" time=\"1\"/>"
+                + "</testsuite>");
+        ReportMerger merger = new ReportMerger();
+        merger.add("", first);
+        merger.add("", rerun);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportSummary summary = merger.merge(out);
+
+        assertEquals(2, summary.getTotal());
+        assertEquals(2, summary.getPassed());
+        String merged = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(merged.contains("tests=\"2\" failures=\"0\""), merged);
+        assertTrue(merged.contains("<system-out>searching &amp; more</system-out>"), merged);
+        assertTrue(merged.contains("<flakyFailure message=\"Timeout\">"), merged);
+        assertFalse(merged.contains("stack"), merged);
+        //The merged report is a valid report itself
+        List<String> names = parse(merged);
+        assertEquals(2, names.size());
+        assertEquals("Search:Passed", names.get(0));
+        assertEquals("Login:Passed", names.get(1));
+    }
+
+    @Test
+    void merge_FailedInEveryAttempt_RerunFailures() throws IOException {
+        File first = write("first.junit.xml", "<testsuite><testcase classname=\"S\" name=\"Login\"><error message=\"Crash\"/></testcase></testsuite>");
+        File rerun = write("rerun.junit.xml", "<testsuite><testcase classname=\"S\" name=\"Login\"><failure message=\"Timeout\"/></testcase></testsuite>");
+        ReportMerger merger = new ReportMerger();
+        merger.add("", first);
+        merger.add("", rerun);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportSummary summary = merger.merge(out);
+
+        assertEquals(1, summary.getFailed());
+        assertEquals("Timeout", summary.getFailures().get(0).getMessage());
+        String merged = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(merged.contains("<rerunError message=\"Crash\">"), merged);
+        assertTrue(merged.contains("failures=\"1\" errors=\"0\""), merged);
+    }
+
+    @Test
+    void merge_RepeatedTestCaseInOneReport_IterationsKept() throws IOException {
+        File report = write("iterations.junit.xml", "<testsuite>"
+                + "<testcase classname=\"S\" name=\"Checkout\"><failure message=\"row1\"/></testcase>"
+                + "<testcase classname=\"S\" name=\"Checkout\"/>"
+                + "</testsuite>");
+        ReportMerger merger = new ReportMerger();
+        merger.add("", report);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportSummary summary = merger.merge(out);
+
+        assertEquals(2, summary.getTotal());
+        assertEquals(1, summary.getFailed());
+        assertEquals("row1", summary.getFailures().get(0).getMessage());
+        String merged = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(merged.contains("tests=\"2\" failures=\"1\""), merged);
+        assertFalse(merged.contains("flakyFailure"), merged);
+    }
+
+    @Test
+    void merge_SameNameInOtherClass_BothCounted() throws IOException {
+        File report = write("classes.junit.xml", "<testsuite>"
+                + "<testcase classname=\"A\" name=\"Same\"/>"
+                + "<testcase classname=\"B\" name=\"Same\"><failure message=\"Wrong\"/></testcase>"
+                + "<testcase classname=\"B\" name=\"Other\"/>"
+                + "</testsuite>");
+        ReportMerger merger = new ReportMerger();
+        merger.add("", report);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportSummary summary = merger.merge(out);
+
+        assertEquals(3, summary.getTotal());
+        assertEquals(1, summary.getFailed());
+        assertEquals("B", summary.getFailures().get(0).getClassName());
+        String merged = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(merged.contains("tests=\"3\""), merged);
+    }
+
+    @Test
+    void merge_Groups_OneSuitePerGroup() throws IOException {
+        File chrome = write("chrome.junit.xml", "<testsuite><testcase classname=\"S\" name=\"Login\"/></testsuite>");
+        File firefox = write("firefox.rxlog.data", "<report><activity type=\"test-case\" testcasename=\"Login\" result=\"Failed\">"
+                + "<item level=\"Failure\"><message>Not found</message></item></activity></report>");
+        ReportMerger merger = new ReportMerger();
+        merger.add("Chrome", chrome);
+        merger.add("Firefox", firefox);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportSummary summary = merger.merge(out);
+
+        assertEquals(2, summary.getTotal());
+        assertEquals(1, summary.getFailed());
+        assertEquals("Firefox / Login", summary.getFailures().get(0).getName());
+        String merged = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(merged.contains("<testsuite name=\"Chrome\""), merged);
+        assertTrue(merged.contains("<testsuite name=\"Firefox\""), merged);
+        assertTrue(merged.contains("<failure message=\"Not found\">"), merged);
+    }
+
+    @Test
+    void merge_DamagedReport_ThrowsIOException() throws IOException {
+        ReportMerger merger = new ReportMerger();
+        merger.add("", write("damaged.junit.xml", "<testsuite><testcase name=\"Login\">"));
+        try {
+            merger.merge(new ByteArrayOutputStream());
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("damaged.junit.xml"));
+        }
+    }
+
+    @Test
+    void merge_LargeReports_Streamed() throws IOException {
+        //Two reports of about 25 MB each with the same test cases, the second one wins
+        File first = writeLarge("first.junit.xml", 10000, "failure");
+        File second = writeLarge("second.junit.xml", 10000, null);
+        ReportMerger merger = new ReportMerger();
+        merger.add("", first);
+        merger.add("", second);
+        CountingOutputStream out = new CountingOutputStream();
+        ReportSummary summary = merger.merge(out);
+
+        assertEquals(10000, summary.getTotal());
+        assertEquals(10000, summary.getPassed());
+        assertTrue(out.count > second.length(), "The output of the last attempts is copied");
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(directory, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private File writeLarge(String name, int testCases, String failure) throws IOException {
+        File file = new File(directory, name);
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            output.append("Step ").append(i).append(" of the test case finished without problems. ");
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write("<testsuite name=\"Large\">");
+            for (int i = 0; i < testCases; i++) {
+                out.write("<testcase classname=\"Large\" name=\"Test" + i + "\" time=\"1\">");
+                if (failure != null) {
+                    out.write("<" + failure + " message=\"Failed\"/>");
+                }
+                out.write("<system-out>");
+                out.write(output.toString());
+                out.write("</system-out></testcase>");
+            }
+            out.write("</testsuite>");
+        }
+        return file;
+    }
+
+    private static List<String> parse(String report) throws IOException {
+        final List<String> names = new ArrayList<>();
+        RanorexReportParser.parseJUnit(new ByteArrayInputStream(report.getBytes(StandardCharsets.UTF_8)), new TestCaseConsumer() {
+            @Override
+            public void testCaseCompleted(String className, String name, String status, long duration, String message) {
+                names.add(name + ":" + status);
+            }
+        });
+        return names;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportSummaryTest {
+    @Test
+    void addTestCase_SameName_LastResultWins() {
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase("Login", ReportSummary.FAILED, 100, "timeout");
+        summary.addTestCase("Logout", ReportSummary.PASSED, 100, null);
+        summary.addTestCase("Login", ReportSummary.PASSED, 200, null);
+        assertEquals(2, summary.getTotal());
+        assertEquals(0, summary.getFailed());
+        assertEquals("Login", summary.getTestCases().get(1).getName());
+    }
+
+    @Test
+    void addTestCase_SameNameInOtherClass_Counted() {
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase("Orders", "Login", 1, ReportSummary.FAILED, 100, "timeout");
+        summary.addTestCase("Users", "Login", 1, ReportSummary.PASSED, 100, null);
+        assertEquals(2, summary.getTotal());
+        assertEquals(1, summary.getFailed());
+        assertEquals("Users", summary.getTestCases().get(1).getClassName());
+        assertEquals("Login (Users)", summary.getTestCases().get(1).getDisplayName());
+    }
+
+    @Test
+    void report_RepeatedTestCase_IterationsCountedAndReplacedByLaterReport() {
+        ReportSummary summary = new ReportSummary();
+        TestCaseConsumer report = summary.report("Chrome / ");
+        report.testCaseCompleted("Orders", "Checkout", ReportSummary.FAILED, 100, "row1");
+        report.testCaseCompleted("Orders", "Checkout", ReportSummary.PASSED, 100, null);
+        assertEquals(2, summary.getTotal());
+        assertEquals(1, summary.getFailed());
+        assertEquals("Chrome / Checkout (Orders) #2", summary.getTestCases().get(1).getDisplayName());
+
+        TestCaseConsumer rerun = summary.report("Chrome / ");
+        rerun.testCaseCompleted("Orders", "Checkout", ReportSummary.PASSED, 100, null);
+        assertEquals(2, summary.getTotal());
+        assertEquals(0, summary.getFailed());
+    }
+
+    @Test
+    void addTestCase_LongMessage_Truncated() {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            message.append("0123456789");
+        }
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase("Login", ReportSummary.FAILED, 0, message.toString());
+        assertEquals(503, summary.getTestCases().get(0).getMessage().length());
+    }
+
+    @Test
+    void addAll_OtherSummary_ReplacesResults() {
+        ReportSummary first = new ReportSummary();
+        first.addTestCase("Login", ReportSummary.FAILED, 100, null);
+        ReportSummary rerun = new ReportSummary();
+        rerun.addTestCase("Login", ReportSummary.PASSED, 100, null);
+        first.addAll(rerun);
+        assertEquals(1, first.getPassed());
+        assertEquals(0, first.getFailed());
+    }
+
+    @Test
+    void getSlowest_MoreTestCasesThanCount_SlowestFirst() {
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase("Fast", ReportSummary.PASSED, 10, null);
+        summary.addTestCase("Slow", ReportSummary.PASSED, 300, null);
+        summary.addTestCase("Medium", ReportSummary.PASSED, 100, null);
+        List<ReportSummary.TestCaseResult> slowest = summary.getSlowest(2);
+        assertEquals(2, slowest.size());
+        assertEquals("Slow", slowest.get(0).getName());
+        assertEquals("Medium", slowest.get(1).getName());
+    }
+}
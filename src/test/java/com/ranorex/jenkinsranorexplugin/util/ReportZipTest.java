@@ -0,0 +1,157 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Calendar;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportZipTest {
+    private File directory;
+    private File zip;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("ReportZipTest").toFile();
+        zip = new File(directory, "report.rxzlog");
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteRecursive(directory);
+    }
+
+    @Test
+    void write_SeveralFiles_ReadableZip() throws IOException, InterruptedException {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            log.append("<item level=\"Info\">Step ").append(i).append("</item>\n");
+        }
+        File report = write("report.rxlog.data", log.toString());
+        File screenshot = write("images/screenshot.png", "not really a png");
+        File empty = write("empty.txt", "");
+        try (ReportZip reportZip = new ReportZip(new File(directory, "parts"), 3)) {
+            reportZip.add("report.rxlog.data", report);
+            reportZip.add("images/screenshot.png", screenshot);
+            reportZip.add("empty.txt", empty);
+            reportZip.write(zip);
+            assertEquals(3, reportZip.size());
+        }
+        assertFalse(new File(directory, "parts").exists());
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            assertEquals(3, zipFile.size());
+            ZipEntry reportEntry = zipFile.getEntry("report.rxlog.data");
+            assertEquals(ZipEntry.DEFLATED, reportEntry.getMethod());
+            assertTrue(reportEntry.getCompressedSize() < reportEntry.getSize());
+            assertEquals(log.toString(), read(zipFile, reportEntry));
+            ZipEntry screenshotEntry = zipFile.getEntry("images/screenshot.png");
+            assertEquals(ZipEntry.STORED, screenshotEntry.getMethod());
+            assertEquals("not really a png", read(zipFile, screenshotEntry));
+            assertEquals("", read(zipFile, zipFile.getEntry("empty.txt")));
+        }
+    }
+
+    @Test
+    void add_UnchangedFile_NotCompressedAgain() throws IOException {
+        File report = write("report.rxlog", "report");
+        try (ReportZip reportZip = new ReportZip(new File(directory, "parts"), 1)) {
+            assertTrue(reportZip.add("report.rxlog", report));
+            assertFalse(reportZip.add("report.rxlog", report));
+        }
+    }
+
+    @Test
+    void add_ChangedFile_LatestContentWritten() throws IOException, InterruptedException {
+        File report = write("report.rxlog.data", "first version");
+        try (ReportZip reportZip = new ReportZip(new File(directory, "parts"), 2)) {
+            reportZip.add("report.rxlog.data", report);
+            write("report.rxlog.data", "second, longer version");
+            assertTrue(reportZip.add("report.rxlog.data", report));
+            reportZip.write(zip);
+        }
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            assertEquals(1, zipFile.size());
+            assertEquals("second, longer version", read(zipFile, zipFile.getEntry("report.rxlog.data")));
+        }
+    }
+
+    @Test
+    void write_StoredFileChangedAfterAdd_ThrowsIOException() throws IOException, InterruptedException {
+        File screenshot = write("screenshot.png", "first image");
+        try (ReportZip reportZip = new ReportZip(new File(directory, "parts"), 1)) {
+            reportZip.add("screenshot.png", screenshot);
+            //Wait for the checksum before the file is changed
+            reportZip.write(new File(directory, "first.rxzlog"));
+            write("screenshot.png", "other image");
+            try {
+                reportZip.write(zip);
+                fail("IOException expected");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("screenshot.png"));
+                assertFalse(zip.exists());
+            }
+        }
+    }
+
+    @Test
+    void isStored_CompressedFormats_True() {
+        assertTrue(ReportZip.isStored("images/Screenshot.PNG"));
+        assertTrue(ReportZip.isStored("photo.jpeg"));
+        assertFalse(ReportZip.isStored("report.rxlog"));
+        assertFalse(ReportZip.isStored("RanorexReport.css"));
+    }
+
+    @Test
+    void toDosTime_Date_PackedFields() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2024, Calendar.MARCH, 15, 13, 45, 31);
+        long dosTime = ReportZip.toDosTime(calendar.getTimeInMillis());
+        assertEquals(2024 - 1980, dosTime >> 25);
+        assertEquals(3, (dosTime >> 21) & 0xf);
+        assertEquals(15, (dosTime >> 16) & 0x1f);
+        assertEquals(13, (dosTime >> 11) & 0x1f);
+        assertEquals(45, (dosTime >> 5) & 0x3f);
+        assertEquals(15, dosTime & 0x1f);
+        assertEquals((1 << 21) | (1 << 16), ReportZip.toDosTime(0));
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(directory, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(ZipFile zipFile, ZipEntry entry) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != - 1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void deleteRecursive(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursive(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,90 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunCacheKeyTest {
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("RunCacheKeyTest").toFile();
+        write("Suite.exe", "exe");
+        write("Ranorex.Core.dll", "core");
+    }
+
+    @AfterEach
+    void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    void toHex_SameInput_SameKey() throws IOException {
+        assertEquals(keyOf("/runconfig:Smoke"), keyOf("/runconfig:Smoke"));
+        assertEquals(64, keyOf("/runconfig:Smoke").length());
+    }
+
+    @Test
+    void toHex_ChangedArgument_DifferentKey() throws IOException {
+        assertNotEquals(keyOf("/runconfig:Smoke"), keyOf("/runconfig:Nightly"));
+    }
+
+    @Test
+    void toHex_ChangedAssembly_DifferentKey() throws IOException {
+        String before = keyOf("/runconfig:Smoke");
+        write("Ranorex.Core.dll", "core2");
+        assertNotEquals(before, keyOf("/runconfig:Smoke"));
+    }
+
+    @Test
+    void toHex_NewReportFile_SameKey() throws IOException {
+        String before = keyOf("/runconfig:Smoke");
+        write("Suite_20180502.rxlog", "report");
+        write("Suite_20180502.rxlog.junit.xml", "junit");
+        assertEquals(before, keyOf("/runconfig:Smoke"));
+    }
+
+    @Test
+    void toHex_MovedArgumentBoundary_DifferentKey() {
+        RunCacheKey first = new RunCacheKey();
+        first.addString("argument", "/a");
+        first.addString("argument", "b");
+        RunCacheKey second = new RunCacheKey();
+        second.addString("argument", "/ab");
+        second.addString("argument", "");
+        assertNotEquals(first.toHex(), second.toHex());
+    }
+
+    private String keyOf(String argument) throws IOException {
+        RunCacheKey key = new RunCacheKey();
+        key.addBinaries(directory);
+        key.addString("argument", argument);
+        return key.toHex();
+    }
+
+    private void write(String name, String content) throws IOException {
+        try (OutputStream out = new FileOutputStream(new File(directory, name))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -124,4 +124,16 @@ public class StringUtilTest {
         assertEquals("Test", result.get(3));
         assertEquals("Banana", result.get(4));
     }
+
+    @Test
+    public void join_ListOfValues_JoinedString() {
+        List<String> values = StringUtil.splitBy("Smoke;Regression;Nightly", ";");
+        assertEquals("Smoke, Regression, Nightly", StringUtil.join(values, ", "));
+    }
+
+    @Test
+    public void join_EmptyList_EmptyString() {
+        List<String> values = StringUtil.splitBy("", ";");
+        assertEquals("", StringUtil.join(values, ", "));
+    }
 }
@@ -0,0 +1,44 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCaseOutputParserTest {
+    @Test
+    void parseLine_StartMarker_Started() {
+        TestCaseOutputParser parser = new TestCaseOutputParser();
+        assertEquals(TestCaseOutputParser.Event.STARTED, parser.parseLine("[2018/05/02 10:15:01.123][Info    ][Test]: Test Case 'Login' started."));
+        assertEquals("Login", parser.getTestCase());
+        assertNull(parser.getStatus());
+    }
+
+    @Test
+    void parseLine_CompletedMarker_NameAndStatus() {
+        TestCaseOutputParser parser = new TestCaseOutputParser();
+        assertEquals(TestCaseOutputParser.Event.COMPLETED, parser.parseLine("[2018/05/02 10:15:09.456][Failure ][Test]: Test Case 'Add User' completed with status 'Failed'."));
+        assertEquals("Add User", parser.getTestCase());
+        assertEquals("Failed", parser.getStatus());
+    }
+
+    @Test
+    void parseLine_IterationInfo_Started() {
+        TestCaseOutputParser parser = new TestCaseOutputParser();
+        assertEquals(TestCaseOutputParser.Event.STARTED, parser.parseLine("Test Case 'Login' (iteration 2/3) started."));
+        assertEquals("Login", parser.getTestCase());
+    }
+
+    @Test
+    void parseLine_OtherOutput_None() {
+        TestCaseOutputParser parser = new TestCaseOutputParser();
+        parser.parseLine("Test Case 'Login' started.");
+        assertEquals(TestCaseOutputParser.Event.NONE, parser.parseLine("[Info    ][Module]: Module 'OpenBrowser' started."));
+        assertNull(parser.getTestCase());
+    }
+
+    @Test
+    void parseLine_NULL_None() {
+        TestCaseOutputParser parser = new TestCaseOutputParser();
+        assertEquals(TestCaseOutputParser.Event.NONE, parser.parseLine(null));
+    }
+}
@@ -0,0 +1,160 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestHistoryIndexTest {
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("TestHistoryIndexTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    void evict_DeletedOrMovedJob_NewInstance() {
+        File history = new File(directory, "history");
+        TestHistoryIndex shared = TestHistoryIndex.get(history);
+        assertSame(shared, TestHistoryIndex.get(history));
+        TestHistoryIndex.evict(directory);
+        assertNotSame(shared, TestHistoryIndex.get(history));
+
+        File moved = new File(new File(directory, "moved"), "history");
+        shared = TestHistoryIndex.get(moved);
+        TestHistoryIndex.evict(new File(directory, "other"));
+        assertNotSame(shared, TestHistoryIndex.get(moved));
+        assertSame(TestHistoryIndex.get(history), TestHistoryIndex.get(history));
+    }
+
+    @Test
+    void findByTestCase_SeveralBuilds_NewestFirst() throws IOException {
+        TestHistoryIndex index = new TestHistoryIndex(directory);
+        assertFalse(index.exists());
+        index.append(1, 1000, summary("Login", ReportSummary.PASSED, 10, null));
+        index.append(2, 2000, summary("Login", ReportSummary.FAILED, 20, "Timeout after 30s"));
+        index.append(3, 3000, summary("Logout", ReportSummary.PASSED, 30, null));
+        assertTrue(index.exists());
+
+        List<TestHistoryIndex.Entry> entries = index.findByTestCase("Login", 10);
+        assertEquals(2, entries.size());
+        assertEquals(2, entries.get(0).getBuild());
+        assertEquals(ReportSummary.FAILED, entries.get(0).getStatus());
+        assertEquals(20, entries.get(0).getDuration());
+        assertEquals("Timeout after #s", entries.get(0).getSignature());
+        assertEquals(1, entries.get(1).getBuild());
+        assertNull(entries.get(1).getSignature());
+        assertTrue(index.findByTestCase("Unknown", 10).isEmpty());
+    }
+
+    @Test
+    void findBySignature_MessagesDifferInNumbers_Grouped() throws IOException {
+        TestHistoryIndex index = new TestHistoryIndex(directory);
+        index.append(1, 1000, summary("Login", ReportSummary.FAILED, 10, "Timeout after 30s"));
+        index.append(2, 2000, summary("Logout", ReportSummary.FAILED, 10, "Timeout after 45s"));
+        index.append(3, 3000, summary("Logout", ReportSummary.FAILED, 10, "Button not found"));
+        List<TestHistoryIndex.Entry> entries = index.findBySignature("Timeout after 12s", 10);
+        assertEquals(2, entries.size());
+        assertEquals("Logout", entries.get(0).getTestCase());
+        assertEquals("Login", entries.get(1).getTestCase());
+    }
+
+    @Test
+    void findByTime_Range_Inclusive() throws IOException {
+        TestHistoryIndex index = new TestHistoryIndex(directory);
+        for (int build = 1; build <= 5; build++) {
+            index.append(build, build * 1000L, summary("Login", ReportSummary.PASSED, 10, null));
+        }
+        List<TestHistoryIndex.Entry> entries = index.findByTime(2000, 4000, 2);
+        assertEquals(2, entries.size());
+        assertEquals(4, entries.get(0).getBuild());
+        assertEquals(3, entries.get(1).getBuild());
+    }
+
+    @Test
+    void append_NewInstance_ReadsExistingNames() throws IOException {
+        new TestHistoryIndex(directory).append(1, 1000, summary("Login", ReportSummary.PASSED, 10, null));
+        TestHistoryIndex index = new TestHistoryIndex(directory);
+        index.append(2, 2000, summary("Login", ReportSummary.PASSED, 10, null));
+        assertEquals(2, index.findByTestCase("Login", 10).size());
+    }
+
+    @Test
+    void append_TornRecord_Overwritten() throws IOException {
+        TestHistoryIndex index = new TestHistoryIndex(directory);
+        index.append(1, 1000, summary("Login", ReportSummary.PASSED, 10, null));
+        try (FileOutputStream out = new FileOutputStream(new File(directory, TestHistoryIndex.RECORDS_FILE), true)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+        assertEquals(1, index.findByTestCase("Login", 10).size());
+        index.append(2, 2000, summary("Login", ReportSummary.PASSED, 10, null));
+        assertEquals(2 * TestHistoryIndex.RECORD_SIZE, new File(directory, TestHistoryIndex.RECORDS_FILE).length());
+        assertEquals(2, index.findByTestCase("Login", 10).get(0).getBuild());
+    }
+
+    @Test
+    void findByTestCase_CorruptStatus_Skipped() throws IOException {
+        TestHistoryIndex index = new TestHistoryIndex(directory);
+        index.append(1, 1000, summary("Login", ReportSummary.PASSED, 10, null));
+        index.append(2, 2000, summary("Login", ReportSummary.PASSED, 10, null));
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, TestHistoryIndex.RECORDS_FILE), "rw")) {
+            file.seek(TestHistoryIndex.RECORD_SIZE + 16);
+            file.write(99);
+        }
+        List<TestHistoryIndex.Entry> entries = index.findByTestCase("Login", 10);
+        assertEquals(1, entries.size());
+        assertEquals(1, entries.get(0).getBuild());
+    }
+
+    @Test
+    void remove_DeletedBuilds_SkippedAndCompacted() throws IOException {
+        TestHistoryIndex index = new TestHistoryIndex(directory);
+        for (int build = 1; build <= TestHistoryIndex.COMPACT_THRESHOLD + 1; build++) {
+            index.append(build, build * 1000L, summary("Login", ReportSummary.PASSED, 10, null));
+        }
+        index.remove(1);
+        assertEquals(TestHistoryIndex.COMPACT_THRESHOLD, index.findByTestCase("Login", 1000).size());
+        assertEquals(TestHistoryIndex.COMPACT_THRESHOLD, new TestHistoryIndex(directory).findByTestCase("Login", 1000).size());
+        for (int build = 2; build <= TestHistoryIndex.COMPACT_THRESHOLD; build++) {
+            index.remove(build);
+        }
+        index.append(200, 200000, summary("Login", ReportSummary.PASSED, 10, null));
+        assertEquals(2 * TestHistoryIndex.RECORD_SIZE, new File(directory, TestHistoryIndex.RECORDS_FILE).length());
+        assertFalse(new File(directory, TestHistoryIndex.DELETED_FILE).exists());
+        List<TestHistoryIndex.Entry> entries = index.findByTestCase("Login", 10);
+        assertEquals(200, entries.get(0).getBuild());
+        assertEquals(TestHistoryIndex.COMPACT_THRESHOLD + 1, entries.get(1).getBuild());
+    }
+
+    @Test
+    void signature_NumbersAndWhitespace_Normalized() {
+        assertEquals("Item # not found after #.#s", TestHistoryIndex.signature("  Item 4711 not found\nafter 12.5s "));
+        assertNull(TestHistoryIndex.signature(" "));
+    }
+
+    private static ReportSummary summary(String testCase, String status, long duration, String message) {
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase(testCase, status, duration, message);
+        return summary;
+    }
+}
@@ -0,0 +1,193 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Publishes to a local HTTP server standing in for TestRail
+ */
+class TestRailPublisherTest {
+    //Closes the connection after the request was read, without an answer
+    private static final int CLOSE = - 1;
+    private HttpServer server;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    private final LinkedList<Integer> responses = new LinkedList<>();
+    private String authorization;
+    private TestRailClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                authorization = exchange.getRequestHeaders().getFirst("Authorization");
+                requests.add(exchange.getRequestURI() + " " + read(exchange.getRequestBody()));
+                int status;
+                synchronized (responses) {
+                    status = responses.isEmpty() ? 200 : responses.removeFirst();
+                }
+                if (status == CLOSE) {
+                    exchange.close();
+                    return;
+                }
+                byte[] body = (status == 200 ? "[]" : "{\"error\":\"Rejected\"}").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+        client = new TestRailClient("http://127.0.0.1:" + server.getAddress().getPort(), "user", "key");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void publish_ManyResults_SentInBatches() throws InterruptedException {
+        ReportSummary summary = new ReportSummary();
+        for (int i = 1; i <= 5; i++) {
+            summary.addTestCase("C" + i + " Test", i == 3 ? ReportSummary.FAILED : ReportSummary.PASSED, 2000, i == 3 ? "Not found" : null);
+        }
+        summary.addTestCase("Without ID", ReportSummary.PASSED, 0, null);
+        summary.addTestCase("C9 Skipped", ReportSummary.SKIPPED, 0, null);
+        TestRailPublisher publisher = new TestRailPublisher(client, "R42", 2, 2, 10);
+        publisher.publish(summary);
+
+        assertTrue(publisher.finish(10000));
+        assertEquals(5, publisher.getPublished());
+        assertEquals(1, publisher.getWithoutCaseId());
+        assertTrue(publisher.getErrors().isEmpty());
+        assertEquals(3, requests.size());
+        assertEquals("Basic dXNlcjprZXk=", authorization);
+        String all = requests.toString();
+        assertTrue(all.contains("/index.php?/api/v2/add_results_for_cases/42 "), all);
+        assertTrue(all.contains("{\"case_id\":3,\"status_id\":5,\"elapsed\":\"2s\",\"comment\":\"Not found\"}"), all);
+        assertFalse(all.contains("\"case_id\":9"), all);
+    }
+
+    @Test
+    void publish_ServerError_Retried() throws InterruptedException {
+        responses.add(503);
+        responses.add(429);
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase("C1 Login", ReportSummary.PASSED, 1000, null);
+        TestRailPublisher publisher = new TestRailPublisher(client, "42", 1, 10, 10);
+        publisher.publish(summary);
+
+        assertTrue(publisher.finish(10000));
+        assertEquals(1, publisher.getPublished());
+        assertTrue(publisher.getErrors().isEmpty());
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void publish_BadRequest_NotRetried() throws InterruptedException {
+        responses.add(400);
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase("C1 Login", ReportSummary.PASSED, 1000, null);
+        TestRailPublisher publisher = new TestRailPublisher(client, "42", 1, 10, 10);
+        publisher.publish(summary);
+
+        assertTrue(publisher.finish(10000));
+        assertEquals(0, publisher.getPublished());
+        assertEquals(1, requests.size());
+        assertEquals(1, publisher.getErrors().size());
+        assertTrue(publisher.getErrors().get(0).contains("400"));
+    }
+
+    @Test
+    void publish_Unreachable_GivesUpAfterMaxAttempts() throws InterruptedException {
+        server.stop(0);
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase("C1 Login", ReportSummary.PASSED, 1000, null);
+        TestRailPublisher publisher = new TestRailPublisher(client, "42", 1, 10, 1);
+        publisher.publish(summary);
+
+        assertTrue(publisher.finish(10000));
+        assertEquals(0, publisher.getPublished());
+        assertTrue(publisher.getErrors().get(0).contains("after " + TestRailPublisher.MAX_ATTEMPTS + " attempts"));
+    }
+
+    @Test
+    void publish_ConnectionLostAfterRequest_NotRetried() throws InterruptedException {
+        responses.add(CLOSE);
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase("C1 Login", ReportSummary.PASSED, 1000, null);
+        TestRailPublisher publisher = new TestRailPublisher(client, "42", 1, 10, 10);
+        publisher.publish(summary);
+
+        assertTrue(publisher.finish(10000));
+        assertEquals(0, publisher.getPublished());
+        assertEquals(1, requests.size());
+        assertTrue(publisher.getErrors().get(0).contains("after 1 attempts"), publisher.getErrors().toString());
+    }
+
+    @Test
+    void cancel_RetryPending_RemainingBatchesDropped() throws InterruptedException {
+        responses.add(503);
+        ReportSummary summary = new ReportSummary();
+        summary.addTestCase("C1 Login", ReportSummary.PASSED, 1000, null);
+        summary.addTestCase("C2 Logout", ReportSummary.PASSED, 1000, null);
+        TestRailPublisher publisher = new TestRailPublisher(client, "42", 1, 1, 60000);
+        publisher.publish(summary);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (requests.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        publisher.cancel();
+        assertTrue(publisher.finish(10000));
+        assertEquals(0, publisher.getPublished());
+        assertEquals(1, requests.size());
+        assertTrue(publisher.getErrors().get(0).contains("aborted"), publisher.getErrors().toString());
+    }
+
+    @Test
+    void getCaseId_Names_IdOfTestCase() {
+        assertEquals(1234, TestRailPublisher.getCaseId("C1234 Login"));
+        assertEquals(34, TestRailPublisher.getCaseId("Chrome / Login_C34"));
+        assertEquals(- 1, TestRailPublisher.getCaseId("Chrome C5 / Login"));
+        assertEquals(- 1, TestRailPublisher.getCaseId("Cancel order"));
+        assertEquals(- 1, TestRailPublisher.getCaseId("ABC12"));
+    }
+
+    @Test
+    void toJson_SpecialCharacters_Escaped() {
+        List<TestRailClient.Result> results = new ArrayList<>();
+        results.add(new TestRailClient.Result(7, TestRailClient.STATUS_FAILED, 400, "\"Save\" failed\n\tat C:\\Temp"));
+        assertEquals("{\"results\":[{\"case_id\":7,\"status_id\":5,\"comment\":\"\\\"Save\\\" failed\\n\\tat C:\\\\Temp\"}]}",
+                TestRailClient.toJson(results));
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != - 1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
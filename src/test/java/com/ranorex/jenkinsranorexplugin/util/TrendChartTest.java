@@ -0,0 +1,68 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendChartTest {
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("TrendChartTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    void renderCounts_Buckets_OneLinePerStatus() throws IOException {
+        TrendHistory trend = new TrendHistory(directory);
+        trend.addBuild(7, 10, 2, 0, 1000, Collections.<String, Long>emptyMap());
+        trend.addBuild(8, 11, 1, 0, 1000, Collections.<String, Long>emptyMap());
+        String svg = TrendChart.renderCounts(trend.getBuckets());
+        assertTrue(svg.startsWith("<svg"));
+        assertEquals(3, count(svg, "<polyline"));
+        assertTrue(svg.contains("#7"));
+        assertTrue(svg.contains("#8"));
+    }
+
+    @Test
+    void renderDurations_RunConfigurations_EscapedLegend() throws IOException {
+        TrendHistory trend = new TrendHistory(directory);
+        trend.addBuild(1, 1, 0, 0, 60000, Collections.singletonMap("Smoke <UI>", 60000L));
+        String svg = TrendChart.renderDurations(trend.getBuckets());
+        assertEquals(2, count(svg, "<polyline"));
+        assertTrue(svg.contains("Smoke &lt;UI&gt;"));
+    }
+
+    @Test
+    void renderCounts_NoBuckets_EmptyChart() {
+        String svg = TrendChart.renderCounts(new ArrayList<TrendHistory.Bucket>());
+        assertTrue(svg.endsWith("</svg>"));
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
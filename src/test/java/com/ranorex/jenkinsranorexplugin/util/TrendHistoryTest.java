@@ -0,0 +1,107 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendHistoryTest {
+    private File directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("TrendHistoryTest").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    void evict_DeletedOrMovedJob_NewInstance() {
+        File history = new File(directory, "history");
+        TrendHistory shared = TrendHistory.get(history);
+        assertSame(shared, TrendHistory.get(history));
+        TrendHistory.evict(directory);
+        assertNotSame(shared, TrendHistory.get(history));
+
+        File moved = new File(new File(directory, "moved"), "history");
+        shared = TrendHistory.get(moved);
+        TrendHistory.evict(new File(directory, "other"));
+        assertNotSame(shared, TrendHistory.get(moved));
+        assertSame(TrendHistory.get(history), TrendHistory.get(history));
+    }
+
+    @Test
+    void addBuild_FewBuilds_OneBucketPerBuild() throws IOException {
+        TrendHistory trend = new TrendHistory(directory);
+        assertFalse(trend.exists());
+        trend.addBuild(1, 10, 2, 1, 60000, Collections.singletonMap("Smoke", 60000L));
+        trend.addBuild(2, 12, 0, 1, 30000, Collections.<String, Long>emptyMap());
+        assertTrue(trend.exists());
+        List<TrendHistory.Bucket> buckets = trend.getBuckets();
+        assertEquals(2, buckets.size());
+        assertEquals(1, buckets.get(0).getFirstBuild());
+        assertEquals(2.0, buckets.get(0).getFailed());
+        assertEquals(Long.valueOf(60000), buckets.get(0).getRunConfigurationDurations().get("Smoke"));
+        assertEquals(30000, buckets.get(1).getDuration());
+    }
+
+    @Test
+    void addBuild_SameBuildTwice_Summed() throws IOException {
+        TrendHistory trend = new TrendHistory(directory);
+        trend.addBuild(1, 10, 0, 0, 1000, Collections.<String, Long>emptyMap());
+        trend.addBuild(1, 5, 1, 0, 2000, Collections.<String, Long>emptyMap());
+        List<TrendHistory.Bucket> buckets = trend.getBuckets();
+        assertEquals(1, buckets.size());
+        assertEquals(15.0, buckets.get(0).getPassed());
+        assertEquals(3000, buckets.get(0).getDuration());
+    }
+
+    @Test
+    void addBuild_ManyBuilds_SizeBoundedAndAveraged() throws IOException {
+        TrendHistory trend = new TrendHistory(directory);
+        for (int build = 1; build <= 5000; build++) {
+            trend.addBuild(build, build % 2 == 0 ? 10 : 20, 0, 0, 1000, Collections.singletonMap("Smoke", 500L));
+        }
+        List<TrendHistory.Bucket> buckets = trend.getBuckets();
+        assertTrue(buckets.size() <= TrendHistory.MAX_BUCKETS);
+        assertEquals(5000, buckets.get(buckets.size() - 1).getLastBuild());
+        int builds = 0;
+        for (TrendHistory.Bucket bucket : buckets) {
+            builds += bucket.getBuilds();
+        }
+        assertEquals(5000, builds);
+        TrendHistory.Bucket oldest = buckets.get(0);
+        assertEquals(1000, oldest.getBuilds());
+        assertEquals(15.0, oldest.getPassed());
+        assertEquals(Long.valueOf(500), oldest.getRunConfigurationDurations().get("Smoke"));
+    }
+
+    @Test
+    void getBuckets_NewInstance_ReadFromFile() throws IOException {
+        for (int build = 1; build <= 50; build++) {
+            new TrendHistory(directory).addBuild(build, 1, 0, 0, 1000, Collections.singletonMap("Smoke", 1000L));
+        }
+        List<TrendHistory.Bucket> buckets = new TrendHistory(directory).getBuckets();
+        assertEquals(TrendHistory.LEVEL_CAPACITY + 2, buckets.size());
+        assertEquals(10, buckets.get(0).getBuilds());
+        Map<String, Long> durations = buckets.get(buckets.size() - 1).getRunConfigurationDurations();
+        assertEquals(Long.valueOf(1000), durations.get("Smoke"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.ranorex.jenkinsranorexplugin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowsCommandLineTest {
+    @Test
+    void quote_NoSpecialCharacters_Unchanged() {
+        assertEquals("/pa:User=admin", WindowsCommandLine.quote("/pa:User=admin"));
+        assertEquals("C:\\Tests\\Suite.exe", WindowsCommandLine.quote("C:\\Tests\\Suite.exe"));
+    }
+
+    @Test
+    void quote_Whitespace_Quoted() {
+        assertEquals("\"/pa:User name=John Doe\"", WindowsCommandLine.quote("/pa:User name=John Doe"));
+    }
+
+    @Test
+    void quote_EmbeddedQuote_Escaped() {
+        assertEquals("\"/pa:Text=say \\\"hi\\\"\"", WindowsCommandLine.quote("/pa:Text=say \"hi\""));
+    }
+
+    @Test
+    void quote_TrailingBackslash_Doubled() {
+        assertEquals("\"/reportfile:C:\\My Reports\\\\\"", WindowsCommandLine.quote("/reportfile:C:\\My Reports\\"));
+    }
+
+    @Test
+    void quote_BackslashBeforeQuote_Escaped() {
+        assertEquals("\"a\\\\\\\"b\"", WindowsCommandLine.quote("a\\\"b"));
+    }
+
+    @Test
+    void quote_Empty_EmptyQuotes() {
+        assertEquals("\"\"", WindowsCommandLine.quote(""));
+    }
+
+    @Test
+    void length_UnquotedArguments_CountedWithQuotes() {
+        assertEquals(29, WindowsCommandLine.length(Arrays.asList("Suite.exe", "/pa:Name=John Doe")));
+    }
+
+    @Test
+    void length_QuotedArguments_CountedAsIs() {
+        assertEquals(30, WindowsCommandLine.length(Arrays.asList("\"C:\\My Tests\\Suite.exe\"", "/junit")));
+    }
+}